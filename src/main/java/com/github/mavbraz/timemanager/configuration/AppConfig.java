@@ -1,10 +1,12 @@
 package com.github.mavbraz.timemanager.configuration;
 
-import javax.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 @Configuration
 public class AppConfig {
@@ -17,10 +19,28 @@ public class AppConfig {
   //    return new MongoTemplate(databaseFactory, converter);
   //  }
 
-  @Autowired private MappingMongoConverter mappingMongoConverter;
+  /**
+   * Builds the converter of the blocking template, which reads references annotated with "@DBRef"
+   * as entities with only the id.
+   *
+   * <p>The converter would otherwise load the references of each document with queries of their
+   * own, so the controllers load the references of a whole page together instead.
+   *
+   * @param databaseFactory the database factory
+   * @param mappingContext the mapping context
+   * @param conversions the custom conversions
+   * @return the converter
+   */
+  @Bean
+  public MappingMongoConverter mappingMongoConverter(
+      MongoDatabaseFactory databaseFactory,
+      MongoMappingContext mappingContext,
+      MongoCustomConversions conversions) {
+    var converter = new MappingMongoConverter(UnresolvedDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.setCodecRegistryProvider(databaseFactory);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
 
-  @PostConstruct
-  public void setUp() {
-    mappingMongoConverter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    return converter;
   }
 }
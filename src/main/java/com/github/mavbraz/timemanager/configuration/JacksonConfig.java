@@ -0,0 +1,77 @@
+package com.github.mavbraz.timemanager.configuration;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.github.mavbraz.timemanager.dto.BaseDTO;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson configurations.
+ *
+ * <p>DTOs are bound to the filter {@value #FIELDS_FILTER}, which serializes every property unless a
+ * request selects only some fields.
+ */
+@Configuration
+public class JacksonConfig {
+
+  /** Id of the filter bound to the DTOs. */
+  public static final String FIELDS_FILTER = "fields";
+
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer fieldsFilterCustomizer() {
+    return builder ->
+        builder
+            .mixIn(BaseDTO.class, FieldsFilterMixIn.class)
+            .filters(
+                new SimpleFilterProvider()
+                    .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+  }
+
+  /**
+   * Builds the filters that write only the selected fields of a DTO class.
+   *
+   * <p>Only objects of the DTO class are filtered, the objects nested in them keep every field.
+   *
+   * @param dtoClass the DTO class
+   * @param fields the fields written, besides "id"
+   * @return the filters
+   */
+  public static FilterProvider fieldsFilter(Class<?> dtoClass, Set<String> fields) {
+    return new SimpleFilterProvider().addFilter(FIELDS_FILTER, new FieldsFilter(dtoClass, fields));
+  }
+
+  @JsonFilter(FIELDS_FILTER)
+  private abstract static class FieldsFilterMixIn {}
+
+  private static class FieldsFilter extends SimpleBeanPropertyFilter {
+
+    private final Class<?> dtoClass;
+    private final Set<String> fields;
+
+    FieldsFilter(Class<?> dtoClass, Set<String> fields) {
+      this.dtoClass = dtoClass;
+      this.fields = fields;
+    }
+
+    @Override
+    public void serializeAsField(
+        Object pojo, JsonGenerator jgen, SerializerProvider provider, PropertyWriter writer)
+        throws Exception {
+      if (pojo.getClass() != dtoClass
+          || "id".equals(writer.getName())
+          || fields.contains(writer.getName())) {
+        writer.serializeAsField(pojo, jgen, provider);
+      } else if (!jgen.canOmitFields()) {
+        writer.serializeAsOmittedField(pojo, jgen, provider);
+      }
+    }
+  }
+}
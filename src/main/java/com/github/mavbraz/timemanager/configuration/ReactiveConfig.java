@@ -0,0 +1,62 @@
+package com.github.mavbraz.timemanager.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Configurations of the reactive stack, used when the application runs with the profile
+ * "reactive".
+ *
+ * <p>Requests are served by Netty and the database is accessed by the reactive driver. References
+ * annotated with "@DBRef" are not resolved by the converter, as it could only block, so the
+ * reactive controllers load them in batches.
+ *
+ * @see EnableReactiveMongoAuditing
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableReactiveMongoAuditing
+public class ReactiveConfig {
+
+  /**
+   * Serves the requests with Netty, as Tomcat would be picked first when both are available.
+   *
+   * @return the server factory
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  /**
+   * Builds the reactive template with a converter of its own, which reads references as entities
+   * with only the id, like the blocking one.
+   *
+   * @param databaseFactory the reactive database factory
+   * @param mappingContext the mapping context shared with the blocking template
+   * @param conversions the custom conversions shared with the blocking template
+   * @return the reactive template
+   */
+  @Bean
+  public ReactiveMongoTemplate reactiveMongoTemplate(
+      ReactiveMongoDatabaseFactory databaseFactory,
+      MongoMappingContext mappingContext,
+      MongoCustomConversions conversions) {
+    var converter = new MappingMongoConverter(UnresolvedDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.setCodecRegistryProvider(databaseFactory);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+
+    return new ReactiveMongoTemplate(databaseFactory, converter);
+  }
+}
@@ -0,0 +1,26 @@
+package com.github.mavbraz.timemanager.configuration;
+
+/**
+ * How the contributors and the project of the tasks read are loaded, chosen by the property
+ * {@value #PROPERTY}.
+ */
+public enum ReferenceLoading {
+
+  /** Loads the references of a whole page with one query per collection. */
+  BATCH,
+
+  /**
+   * Reads the id and the name of the references embedded in each task, without further queries.
+   * Tasks written before the summaries existed are loaded in batches.
+   */
+  SUMMARY,
+
+  /**
+   * Joins the references of a page of tasks with "$lookup", in the same aggregation that reads the
+   * page. Other reads load them in batches.
+   */
+  LOOKUP;
+
+  /** Property with the reference loading. */
+  public static final String PROPERTY = "task.reference-loading";
+}
@@ -0,0 +1,13 @@
+package com.github.mavbraz.timemanager.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the background jobs, such as the automatic finish of the tasks left started.
+ *
+ * @see EnableScheduling
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
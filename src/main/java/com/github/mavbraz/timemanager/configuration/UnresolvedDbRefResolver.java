@@ -0,0 +1,37 @@
+package com.github.mavbraz.timemanager.configuration;
+
+import com.mongodb.DBRef;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.DbRefProxyHandler;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.DbRefResolverCallback;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+/**
+ * Reads each reference as a document with only the id, without accessing the database, so the
+ * controllers load the references of a whole page in batches.
+ */
+enum UnresolvedDbRefResolver implements DbRefResolver {
+  INSTANCE;
+
+  @Override
+  public Object resolveDbRef(
+      MongoPersistentProperty property,
+      DBRef dbref,
+      DbRefResolverCallback callback,
+      DbRefProxyHandler proxyHandler) {
+    return callback.resolve(property);
+  }
+
+  @Override
+  public Document fetch(DBRef dbRef) {
+    return new Document("_id", dbRef.getId());
+  }
+
+  @Override
+  public List<Document> bulkFetch(List<DBRef> dbRefs) {
+    return dbRefs.stream().map(this::fetch).collect(Collectors.toList());
+  }
+}
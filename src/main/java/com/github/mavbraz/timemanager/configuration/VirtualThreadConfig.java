@@ -0,0 +1,100 @@
+package com.github.mavbraz.timemanager.configuration;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs each request on a new virtual thread instead of the Tomcat worker pool, when the property
+ * {@value #ENABLED_PROPERTY} is "true". Experimental, off by default.
+ *
+ * <p>The controllers block on the MongoDB driver, so the worker pool ("server.tomcat.threads.max")
+ * limits the concurrent requests. A blocked virtual thread releases its carrier thread, so the
+ * limit becomes "server.tomcat.max-connections". Asynchronous requests, such as the exports, also
+ * run on virtual threads.
+ *
+ * <p>Virtual threads need Java 21 or later at runtime, while the application builds with Java 17 on
+ * Spring Boot 2.4, which supports neither. The executor is looked up at runtime and nothing else
+ * of the stack is aware of it: Tomcat and the MongoDB driver block inside synchronized code, which
+ * pins the carrier thread, so the gain is not guaranteed. The mode is not supported until Spring
+ * Boot and Java are upgraded, then it is replaced by the support of Spring Boot itself.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = VirtualThreadConfig.ENABLED_PROPERTY, havingValue = "true")
+public class VirtualThreadConfig {
+
+  /** Property that enables the virtual threads. */
+  public static final String ENABLED_PROPERTY = "experimental.virtual-threads.enabled";
+
+  /** Java version that added the virtual threads. */
+  private static final int MIN_JAVA_VERSION = 21;
+
+  /**
+   * Builds the executor that starts a new virtual thread for each task.
+   *
+   * @return the executor
+   * @throws IllegalStateException if the runtime does not support virtual threads
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService virtualThreadExecutor() {
+    if (Runtime.version().feature() < MIN_JAVA_VERSION) {
+      throw new IllegalStateException(
+          "Virtual threads need Java "
+              + MIN_JAVA_VERSION
+              + " or later, running on Java "
+              + Runtime.version().feature());
+    }
+
+    try {
+      // Looked up at runtime, as the method does not exist in the Java version of the build
+      return (ExecutorService)
+          MethodHandles.publicLookup()
+              .findStatic(
+                  Executors.class,
+                  "newVirtualThreadPerTaskExecutor",
+                  MethodType.methodType(ExecutorService.class))
+              .invoke();
+    } catch (Throwable exception) {
+      throw new IllegalStateException("Virtual threads are not available", exception);
+    }
+  }
+
+  /**
+   * Runs the requests received by Tomcat on virtual threads.
+   *
+   * @param virtualThreadExecutor the executor of virtual threads
+   * @return the customizer of the Tomcat protocol handler
+   */
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+      ExecutorService virtualThreadExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+  }
+
+  /**
+   * Runs the asynchronous requests on virtual threads.
+   *
+   * @param virtualThreadExecutor the executor of virtual threads
+   * @return the configurer of Spring MVC
+   */
+  @Bean
+  public WebMvcConfigurer virtualThreadAsyncConfigurer(ExecutorService virtualThreadExecutor) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+      }
+    };
+  }
+}
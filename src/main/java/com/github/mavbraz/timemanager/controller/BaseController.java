@@ -1,23 +1,62 @@
 package com.github.mavbraz.timemanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.github.mavbraz.timemanager.dto.BaseDTO;
+import com.github.mavbraz.timemanager.dto.BulkDeleteResultDTO;
+import com.github.mavbraz.timemanager.dto.BulkItemResultDTO;
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
 import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.exceptions.BulkSizeExceededException;
+import com.github.mavbraz.timemanager.exceptions.InvalidCursorException;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.exceptions.PreconditionFailedException;
 import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
+import com.github.mavbraz.timemanager.exceptions.UnindexedQueryException;
+import com.github.mavbraz.timemanager.exceptions.VersionConflictException;
 import com.github.mavbraz.timemanager.mapper.BaseMapper;
-import java.lang.reflect.ParameterizedType;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * Base of REST Controllers.
@@ -25,32 +64,45 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * @param <E> entity
  * @param <D> DTO
  * @param <M> mapper
+ * @param <Q> list query
  */
 @Slf4j
 public abstract class BaseController<
-    E extends BaseDocument, D extends BaseDTO, M extends BaseMapper<E, D>> {
+        E extends BaseDocument,
+        D extends BaseDTO,
+        M extends BaseMapper<E, D>,
+        Q extends ListQueryDTO>
+    extends ControllerSupport<E, D, M, Q> {
+
+  /** Error code of MongoDB for duplicate keys. */
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
 
   /** Service for database operation. */
   protected final MongoRepository<E, String> repository;
 
-  /** Service to map entity and DTO. */
-  protected final M mapper;
+  /** Service for database operation that the repository does not expose. */
+  protected final MongoTemplate mongoTemplate;
 
-  private final Class<E> controllerClass;
+  /** Service to serialize the exported DTOs. */
+  @Autowired private ObjectMapper objectMapper;
 
   /**
    * Instantiates with the services.
    *
    * @param repository the repository service
+   * @param mongoTemplate the template service
    * @param mapper the mapper service
    */
-  @SuppressWarnings("unchecked")
-  protected BaseController(MongoRepository<E, String> repository, M mapper) {
+  protected BaseController(
+      MongoRepository<E, String> repository, MongoTemplate mongoTemplate, M mapper) {
+    super(mapper);
     this.repository = repository;
-    this.mapper = mapper;
-    this.controllerClass =
-        (Class<E>)
-            ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  protected MongoConverter getConverter() {
+    return mongoTemplate.getConverter();
   }
 
   /**
@@ -58,17 +110,19 @@ public abstract class BaseController<
    *
    * @param details the DTO with updates
    * @return the created details
-   * @throws ResourceNotFoundException if the entity is not found
    * @see PostMapping
    * @see ResponseStatus
    * @see HttpStatus
    */
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
-  public D create(@RequestBody @Valid D details) throws ResourceNotFoundException {
+  public D create(@RequestBody @Valid D details) {
     var entity = mapper.toEntity(details);
+    beforeSave(List.of(entity));
+    // The saved entity already has the id, auditing dates and version, so it is not read again
     entity = repository.save(entity);
-    entity = getEntityById(entity.getId());
+    afterSave(entity, true);
+    entity = resolveReferences(entity);
 
     //    log.info("Creating {} with details {}", );
 
@@ -76,51 +130,297 @@ public abstract class BaseController<
   }
 
   /**
-   * Gets all entities from database.
+   * Creates the entities by details into database with a single unordered bulk insert.
+   *
+   * <p>Each item is validated with the same rules of {@link #create(BaseDTO)}. Invalid items are
+   * reported and skipped, the valid ones are inserted anyway.
    *
-   * @return all saved entities
+   * @param details the DTOs to create
+   * @return the result of each item, in request order
+   * @throws BulkSizeExceededException if there are more than {@value #MAX_BULK_SIZE} items
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkItemResultDTO>> createAll(@RequestBody List<D> details)
+      throws BulkSizeExceededException {
+    checkBulkSize(details.size());
+
+    var results = new ArrayList<BulkItemResultDTO>(details.size());
+    var entities = new ArrayList<E>(details.size());
+    // Position of each entity in the request, as the bulk only receives the valid ones
+    var indexes = new ArrayList<Integer>(details.size());
+
+    for (int i = 0; i < details.size(); i++) {
+      D dto = details.get(i);
+      List<String> errors = validate(dto);
+      results.add(BulkItemResultDTO.builder().index(i).errors(new ArrayList<>(errors)).build());
+
+      if (errors.isEmpty()) {
+        E entity = mapper.toEntity(dto);
+        // Same initial version of MongoTemplate.insert, which bulk inserts do not apply
+        entity.setVersion(1);
+        entities.add(entity);
+        indexes.add(i);
+      } else {
+        results.get(i).setStatus(HttpStatus.BAD_REQUEST.value());
+      }
+    }
+
+    if (!entities.isEmpty()) {
+      beforeSave(entities);
+      BulkWriteResult writeResult;
+      List<BulkWriteError> writeErrors;
+
+      try {
+        writeResult =
+            mongoTemplate
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, controllerClass)
+                .insert(entities)
+                .execute();
+        writeErrors = List.of();
+      } catch (BulkOperationException exception) {
+        writeResult = exception.getResult();
+        writeErrors = exception.getErrors();
+      }
+
+      for (BulkWriteInsert insert : writeResult.getInserts()) {
+        BulkItemResultDTO result = results.get(indexes.get(insert.getIndex()));
+        result.setStatus(HttpStatus.CREATED.value());
+        result.setId(toId(insert.getId()));
+
+        E entity = entities.get(insert.getIndex());
+        entity.setId(result.getId());
+        afterSave(entity, true);
+      }
+
+      for (BulkWriteError writeError : writeErrors) {
+        BulkItemResultDTO result = results.get(indexes.get(writeError.getIndex()));
+        HttpStatus status =
+            writeError.getCode() == DUPLICATE_KEY_ERROR_CODE
+                ? HttpStatus.CONFLICT
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        result.setStatus(status.value());
+        result.getErrors().add(writeError.getMessage());
+      }
+    }
+
+    boolean allCreated =
+        results.stream().allMatch(result -> result.getStatus() == HttpStatus.CREATED.value());
+
+    return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+        .body(results);
+  }
+
+  /**
+   * Gets a page of entities from database, filtered and ordered by the query.
+   *
+   * <p>Entities are ordered by the sort property and then by id. When there are more entities, the
+   * cursor of the next page is sent in the header {@value #NEXT_CURSOR_HEADER}. Queries that no
+   * declared index supports are rejected, instead of scanning the collection.
+   *
+   * <p>The page is tagged with a hash of the entity tag of each entity, and a request whose
+   * "If-None-Match" still matches gets "304 Not Modified" before the references are resolved and
+   * the entities mapped.
+   *
+   * @param listQuery the filters, the sort, the page size, the cursor of the page and the fields
+   * @param request the request, used for conditional reads
+   * @return the saved entities of the page, or {@code null} when not modified
+   * @throws InvalidCursorException if the cursor is malformed or from another sort
+   * @throws InvalidFieldException if a field to read or to sort by is unknown
+   * @throws UnindexedQueryException if no declared index supports the query
    */
   @GetMapping
-  @ResponseStatus(HttpStatus.OK)
-  public List<D> getAll() {
-    var entities = repository.findAll();
+  public ResponseEntity<List<D>> getAll(@Valid Q listQuery, WebRequest request)
+      throws InvalidCursorException, InvalidFieldException, UnindexedQueryException {
+    int limit = listQuery.getLimit();
+    Set<String> selectedFields = getSelectedFields(listQuery.getFields());
+    var entities = findPage(getListQuery(listQuery, selectedFields));
+    var headers = new HttpHeaders();
+
+    // One extra entity is fetched only to know if there is a next page
+    if (entities.size() > limit) {
+      entities = entities.subList(0, limit);
+      headers.set(NEXT_CURSOR_HEADER, getNextCursor(entities.get(limit - 1), listQuery));
+    }
+
+    String eTag = getETag(resolvePage(entities, true));
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
 
-    return mapper.mapToDTO(entities);
+    selectFields(request, selectedFields);
+
+    return ResponseEntity.ok()
+        .headers(headers)
+        .eTag(eTag)
+        .body(mapper.mapToDTO(resolvePage(entities, false)));
+  }
+
+  /**
+   * Exports all entities from database as newline-delimited JSON, ordered by id.
+   *
+   * <p>Entities are read from a MongoDB cursor and written a cursor batch at a time, once the
+   * references of the batch are loaded, so the memory used does not grow with the collection.
+   *
+   * <p>The export is written asynchronously, with its own timeout of {@value
+   * #EXPORT_TIMEOUT_MILLIS} milliseconds, so the other asynchronous requests keep the default one.
+   *
+   * @param response the response, where the entities are written
+   * @return the task that writes the saved entities
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public WebAsyncTask<Void> export(HttpServletResponse response) {
+    var query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+    query.cursorBatchSize(EXPORT_BATCH_SIZE);
+    ObjectWriter writer = objectMapper.writerFor(dtoClass);
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+    return new WebAsyncTask<>(
+        EXPORT_TIMEOUT_MILLIS,
+        () -> {
+          OutputStream outputStream = response.getOutputStream();
+
+          try (CloseableIterator<E> entities = mongoTemplate.stream(query, controllerClass)) {
+            var batch = new ArrayList<E>(EXPORT_BATCH_SIZE);
+
+            while (entities.hasNext()) {
+              batch.add(entities.next());
+
+              if (batch.size() == EXPORT_BATCH_SIZE || !entities.hasNext()) {
+                for (E entity : resolveReferences(batch)) {
+                  outputStream.write(writer.writeValueAsBytes(mapper.toDTO(entity)));
+                  outputStream.write('\n');
+                }
+
+                outputStream.flush();
+                batch.clear();
+              }
+            }
+          }
+
+          return null;
+        });
   }
 
   /**
    * Gets the entity by id from database.
    *
+   * <p>The entity is tagged with its version, and a request whose "If-None-Match" still matches
+   * gets "304 Not Modified" before the references are resolved and the entity mapped.
+   *
    * @param id the entity id
-   * @return the saved details
+   * @param fields the fields to read, all of them when absent
+   * @param request the request, used for conditional reads
+   * @return the saved details, or {@code null} when not modified
    * @throws ResourceNotFoundException if the entity is not found
+   * @throws InvalidFieldException if a field to read is unknown
    */
   @GetMapping("/{id}")
-  @ResponseStatus(HttpStatus.OK)
-  public D get(@PathVariable String id) throws ResourceNotFoundException {
-    var entity = getEntityById(id);
+  public ResponseEntity<D> get(
+      @PathVariable String id,
+      @RequestParam(required = false) List<String> fields,
+      WebRequest request)
+      throws ResourceNotFoundException, InvalidFieldException {
+    Set<String> selectedFields = getSelectedFields(fields);
+    var query = Query.query(Criteria.where("id").is(id));
+    project(query, selectedFields);
+    E entity = mongoTemplate.findOne(query, controllerClass);
 
-    return mapper.toDTO(entity);
+    if (entity == null) {
+      throw new ResourceNotFoundException(getGenericSimpleName() + " not found");
+    }
+
+    String eTag = getETag(resolveVersions(entity));
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+
+    selectFields(request, selectedFields);
+
+    return ResponseEntity.ok().eTag(eTag).body(mapper.toDTO(resolveReferences(entity)));
   }
 
   /**
    * Updates the entity by id from database.
    *
+   * <p>When "If-Match" is sent, it must match the current version. A concurrent write between the
+   * read and the save is detected by the version and rejected, instead of being overwritten.
+   *
    * @param id the entity id
    * @param details the DTO with updates
+   * @param ifMatch the expected entity tag, optional
    * @return the updated entity
    * @throws ResourceNotFoundException if the entity is not found
+   * @throws PreconditionFailedException if "If-Match" does not match the current version
+   * @throws VersionConflictException if the entity was modified concurrently
    */
   @PutMapping("/{id}")
-  @ResponseStatus(HttpStatus.OK)
-  public D update(@PathVariable String id, @RequestBody @Valid D details)
-      throws ResourceNotFoundException {
+  public ResponseEntity<D> update(
+      @PathVariable String id,
+      @RequestBody @Valid D details,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+      throws ResourceNotFoundException, PreconditionFailedException, VersionConflictException {
     var entity = getEntityById(id);
+    checkVersion(entity, ifMatch);
     mapper.update(details, entity);
-    entity = repository.save(entity);
-    entity = getEntityById(entity.getId());
+    beforeSave(List.of(entity));
 
-    return mapper.toDTO(entity);
+    try {
+      entity = repository.save(entity);
+    } catch (OptimisticLockingFailureException exception) {
+      throw new VersionConflictException(
+          getGenericSimpleName() + " was modified concurrently", exception);
+    }
+
+    afterSave(entity, false);
+    entity = resolveReferences(entity);
+
+    return ResponseEntity.ok().eTag(getETag(entity)).body(mapper.toDTO(entity));
+  }
+
+  /**
+   * Partially updates the entity by id from database.
+   *
+   * <p>Only the fields sent (not null and, for collections, not empty) are written, with a single
+   * "$set" that also increments the version. When "If-Match" is sent, the update only applies to
+   * that version, so concurrent writers cannot silently overwrite each other.
+   *
+   * @param id the entity id
+   * @param details the DTO with the fields to update
+   * @param ifMatch the expected entity tag, optional
+   * @return the updated entity
+   * @throws InvalidFieldException if no field is sent or a sent field is invalid
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws PreconditionFailedException if "If-Match" does not match the current version
+   */
+  @PatchMapping("/{id}")
+  public ResponseEntity<D> patch(
+      @PathVariable String id,
+      @RequestBody D details,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+      throws InvalidFieldException, ResourceNotFoundException, PreconditionFailedException {
+    Update update = getPatchUpdate(details);
+    Criteria criteria = getPatchCriteria(id, ifMatch);
+    beforePatch(details, update);
+
+    E entity =
+        mongoTemplate.findAndModify(
+            Query.query(criteria),
+            update,
+            FindAndModifyOptions.options().returnNew(true),
+            controllerClass);
+
+    if (entity == null) {
+      if (!repository.existsById(id)) {
+        throw new ResourceNotFoundException(getGenericSimpleName() + " not found");
+      }
+
+      throw new PreconditionFailedException(getGenericSimpleName() + " version does not match");
+    }
+
+    afterSave(entity, false);
+    entity = resolveReferences(entity);
+
+    return ResponseEntity.ok().eTag(getETag(entity)).body(mapper.toDTO(entity));
   }
 
   /**
@@ -133,10 +433,50 @@ public abstract class BaseController<
   @DeleteMapping("/{id}")
   @ResponseStatus(HttpStatus.OK)
   public D remove(@PathVariable String id) throws ResourceNotFoundException {
-    var entity = getEntityById(id);
-    repository.delete(entity);
+    E entity =
+        mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(id)), controllerClass);
 
-    return mapper.toDTO(entity);
+    if (entity == null) {
+      throw new ResourceNotFoundException(getGenericSimpleName() + " not found");
+    }
+
+    afterRemove(List.of(id));
+
+    return mapper.toDTO(resolveReferences(entity));
+  }
+
+  /**
+   * Removes the entities by id from database with a single delete.
+   *
+   * <p>Ids not found are ignored, the result tells how many entities were removed. The delete does
+   * not tell which ones existed, so all the ids requested are handed to {@code afterRemove}, also
+   * the ones removed meanwhile by another request.
+   *
+   * @param ids the entities ids
+   * @return the number of entities requested and removed
+   * @throws BulkSizeExceededException if there are more than {@value #MAX_BULK_SIZE} ids
+   */
+  @DeleteMapping(params = "ids")
+  @ResponseStatus(HttpStatus.OK)
+  public BulkDeleteResultDTO removeAll(@RequestParam List<String> ids)
+      throws BulkSizeExceededException {
+    Set<String> distinctIds = new LinkedHashSet<>(ids);
+    distinctIds.remove("");
+
+    checkBulkSize(distinctIds.size());
+
+    long deleted =
+        distinctIds.isEmpty()
+            ? 0
+            : mongoTemplate
+                .remove(Query.query(Criteria.where("id").in(distinctIds)), controllerClass)
+                .getDeletedCount();
+
+    if (deleted > 0) {
+      afterRemove(distinctIds);
+    }
+
+    return BulkDeleteResultDTO.builder().requested(distinctIds.size()).deleted(deleted).build();
   }
 
   /**
@@ -155,11 +495,118 @@ public abstract class BaseController<
   }
 
   /**
-   * Gets generic simple name of controller class.
+   * Called before entities are created or updated, with the entities to save.
+   *
+   * <p>By default nothing is done.
+   *
+   * @param entities the entities to save, whose references only hold what the request sent
+   */
+  protected void beforeSave(List<E> entities) {}
+
+  /**
+   * Called before an entity is partially updated, with the update of the fields sent.
+   *
+   * <p>By default nothing is done.
+   *
+   * @param details the DTO with the fields to update
+   * @param update the update, which can set more fields
+   */
+  protected void beforePatch(D details, Update update) {}
+
+  /**
+   * Finds a page of entities.
+   *
+   * <p>By default the entities are found with the query, and their references are left to {@link
+   * #resolvePage(List, boolean)}.
+   *
+   * @param query the query of the page
+   * @return the entities, in query order
+   */
+  protected List<E> findPage(Query query) {
+    return mongoTemplate.find(query, controllerClass);
+  }
+
+  /**
+   * Resolves the references of a page of entities found by {@link #findPage(Query)}.
+   *
+   * <p>By default the page is resolved like any other read: only the versions of the references
+   * for the entity tag, all of them for the body.
+   *
+   * @param entities the entities of the page
+   * @param versionsOnly whether only the entity tag is built from the entities
+   * @return the entities with the references loaded from database, in the same order
+   */
+  protected List<E> resolvePage(List<E> entities, boolean versionsOnly) {
+    return versionsOnly ? resolveVersions(entities) : resolveReferences(entities);
+  }
+
+  /**
+   * Resolves the id and the version of the references of the entities, which is all their entity
+   * tag needs, so a read still tagged as not modified does not load the whole references.
+   *
+   * <p>By default there is nothing to resolve and the entities are returned as they are.
+   *
+   * @param entities the entities, whose references only hold the id
+   * @return the entities with the id and the version of the references, in the same order
+   */
+  protected List<E> resolveVersions(List<E> entities) {
+    return entities;
+  }
+
+  /**
+   * Resolves the id and the version of the references of an entity.
+   *
+   * @param entity the entity
+   * @return the entity with the id and the version of the references
+   * @see #resolveVersions(List)
+   */
+  protected E resolveVersions(E entity) {
+    return resolveVersions(List.of(entity)).get(0);
+  }
+
+  /**
+   * Resolves the references of the entities, which only hold the id as read from database or what
+   * the request sent.
+   *
+   * <p>By default there is nothing to resolve and the entities are returned as they are.
+   *
+   * @param entities the entities
+   * @return the entities with the references loaded from database, in the same order
+   */
+  protected List<E> resolveReferences(List<E> entities) {
+    return entities;
+  }
+
+  /**
+   * Resolves the references of an entity.
+   *
+   * @param entity the entity
+   * @return the entity with the references loaded from database
+   * @see #resolveReferences(List)
+   */
+  protected E resolveReferences(E entity) {
+    return resolveReferences(List.of(entity)).get(0);
+  }
+
+  /**
+   * Converts an id generated by MongoDB to the entity id.
+   *
+   * @param id the generated id
+   * @return the entity id
+   */
+  private static String toId(BsonValue id) {
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+  }
+
+  /**
+   * Writes only the selected fields in the response.
    *
-   * @return the generic simple name
+   * @param request the request
+   * @param selectedFields the selected fields, all of them when empty
    */
-  protected String getGenericSimpleName() {
-    return controllerClass.getSimpleName();
+  private void selectFields(WebRequest request, Set<String> selectedFields) {
+    if (!selectedFields.isEmpty()) {
+      FieldsResponseBodyAdvice.select(request, dtoClass, selectedFields);
+    }
   }
 }
@@ -0,0 +1,572 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.github.mavbraz.timemanager.dto.BaseDTO;
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.exceptions.BulkSizeExceededException;
+import com.github.mavbraz.timemanager.exceptions.InvalidCursorException;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.exceptions.PreconditionFailedException;
+import com.github.mavbraz.timemanager.exceptions.UnindexedQueryException;
+import com.github.mavbraz.timemanager.helper.CursorHelper;
+import com.github.mavbraz.timemanager.helper.ETagHelper;
+import com.github.mavbraz.timemanager.helper.IndexHelper;
+import com.github.mavbraz.timemanager.mapper.BaseMapper;
+import java.beans.PropertyDescriptor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.bson.Document;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Base of REST Controllers with the logic shared by the servlet and the reactive stacks, which does
+ * not access the database.
+ *
+ * @param <E> entity
+ * @param <D> DTO
+ * @param <M> mapper
+ * @param <Q> list query
+ */
+public abstract class ControllerSupport<
+    E extends BaseDocument,
+    D extends BaseDTO,
+    M extends BaseMapper<E, D>,
+    Q extends ListQueryDTO> {
+
+  /** Response header carrying the cursor of the next page. */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  /** Maximum items accepted by a bulk request. */
+  public static final int MAX_BULK_SIZE = 1000;
+
+  /** Documents fetched per cursor batch, and written between flushes, on exports. */
+  protected static final int EXPORT_BATCH_SIZE = 500;
+
+  /** Time an export may take, longer than the default timeout of the asynchronous requests. */
+  protected static final long EXPORT_TIMEOUT_MILLIS = 60 * 60 * 1000;
+
+  /** Service to map entity and DTO. */
+  protected final M mapper;
+
+  protected final Class<E> controllerClass;
+
+  protected final Class<D> dtoClass;
+
+  /** Keys of the indexes declared on the entity, which list queries must use. */
+  private final List<List<String>> indexes;
+
+  /** Service to validate each item of bulk requests and the fields of partial updates. */
+  @Autowired private Validator validator;
+
+  /**
+   * Instantiates with the mapper.
+   *
+   * @param mapper the mapper service
+   */
+  @SuppressWarnings("unchecked")
+  protected ControllerSupport(M mapper) {
+    this.mapper = mapper;
+
+    var typeArguments =
+        GenericTypeResolver.resolveTypeArguments(getClass(), ControllerSupport.class);
+    this.controllerClass = (Class<E>) typeArguments[0];
+    this.dtoClass = (Class<D>) typeArguments[1];
+    this.indexes = IndexHelper.getIndexes(controllerClass);
+  }
+
+  /**
+   * Gets the converter between entities and documents.
+   *
+   * @return the converter
+   */
+  protected abstract MongoConverter getConverter();
+
+  /**
+   * Builds the query of a page of entities, filtered and ordered by the list query.
+   *
+   * <p>Entities are ordered by the sort property and then by id, and one extra entity is fetched
+   * only to know if there is a next page. Queries that no declared index supports are rejected,
+   * instead of scanning the collection.
+   *
+   * @param listQuery the filters, the sort, the page size and the cursor of the page
+   * @param selectedFields the fields to read, all of them when empty
+   * @return the query
+   * @throws InvalidCursorException if the cursor is malformed or from another sort
+   * @throws InvalidFieldException if the property to sort by is unknown
+   * @throws UnindexedQueryException if no declared index supports the query
+   */
+  protected Query getListQuery(Q listQuery, Set<String> selectedFields)
+      throws InvalidCursorException, InvalidFieldException, UnindexedQueryException {
+    Sort.Order order = getSortOrder(listQuery.getSort());
+    String sortProperty = order.getProperty();
+    boolean sortedById = "id".equals(sortProperty);
+    List<Criteria> criteria = new ArrayList<>(getFilters(listQuery));
+    checkIndexed(criteria, sortProperty);
+
+    if (listQuery.getAfter() != null) {
+      criteria.add(getAfterCriteria(CursorHelper.decode(listQuery.getAfter()), order));
+    }
+
+    var sort = sortedById ? Sort.by(order) : Sort.by(order, order.withProperty("id"));
+    var query = new Query().with(sort).limit(listQuery.getLimit() + 1);
+
+    if (criteria.size() == 1) {
+      query.addCriteria(criteria.get(0));
+    } else if (criteria.size() > 1) {
+      query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+    }
+
+    project(query, selectedFields);
+
+    if (!sortedById && !selectedFields.isEmpty()) {
+      query.fields().include(sortProperty);
+    }
+
+    return query;
+  }
+
+  /**
+   * Builds the cursor of the page after an entity.
+   *
+   * @param last the last entity of the page
+   * @param listQuery the list query of the page
+   * @return the cursor
+   * @throws InvalidFieldException if the property to sort by is unknown
+   */
+  protected String getNextCursor(E last, Q listQuery) throws InvalidFieldException {
+    String sortProperty = getSortOrder(listQuery.getSort()).getProperty();
+    var keys = new Document();
+
+    if (!"id".equals(sortProperty)) {
+      Object value = new BeanWrapperImpl(last).getPropertyValue(sortProperty);
+      keys.append(sortProperty, getConverter().convertToMongoType(value));
+    }
+
+    keys.append(CursorHelper.ID_KEY, CursorHelper.toStoredId(last.getId()));
+
+    return CursorHelper.encode(keys);
+  }
+
+  /**
+   * Gets the filters of a list query.
+   *
+   * <p>By default there is no filter. Filters should only use indexed fields, as list queries that
+   * no declared index supports are rejected.
+   *
+   * @param listQuery the list query
+   * @return the filters, all of them must match
+   */
+  protected List<Criteria> getFilters(Q listQuery) {
+    return List.of();
+  }
+
+  /**
+   * Parses the sort of a list query, "property" or "-property" for descending order.
+   *
+   * @param sort the sort, "id" when {@code null} or blank
+   * @return the sort order
+   * @throws InvalidFieldException if the property is unknown
+   */
+  private Sort.Order getSortOrder(String sort) throws InvalidFieldException {
+    if (sort == null || sort.isBlank()) {
+      return Sort.Order.asc("id");
+    }
+
+    boolean descending = sort.startsWith("-");
+    String property = descending ? sort.substring(1) : sort;
+    checkField(property);
+
+    return descending ? Sort.Order.desc(property) : Sort.Order.asc(property);
+  }
+
+  /**
+   * Checks if a declared index supports the filters and the sort of a list query.
+   *
+   * <p>Filters with a single value or a list of values are equality filters, the other ones are
+   * range filters.
+   *
+   * @param filters the filters
+   * @param sortProperty the property sorted by, before id
+   * @throws UnindexedQueryException if no declared index supports the query
+   */
+  private void checkIndexed(List<Criteria> filters, String sortProperty)
+      throws UnindexedQueryException {
+    Set<String> equalityFields = new HashSet<>();
+    Set<String> rangeFields = new HashSet<>();
+
+    for (Criteria filter : filters) {
+      Object value = filter.getCriteriaObject().get(filter.getKey());
+      boolean range =
+          value instanceof Document
+              && ((Document) value).keySet().stream().anyMatch(key -> !"$in".equals(key));
+      (range ? rangeFields : equalityFields).add(toFieldName(filter.getKey()));
+    }
+
+    if (!IndexHelper.isSupported(
+        indexes, equalityFields, rangeFields, toFieldName(sortProperty))) {
+      Set<String> filteredFields = new TreeSet<>(equalityFields);
+      filteredFields.addAll(rangeFields);
+
+      throw new UnindexedQueryException(
+          "No index supports filtering by "
+              + filteredFields
+              + " and sorting by "
+              + sortProperty);
+    }
+  }
+
+  /**
+   * Builds the criteria of the entities after the cursor, in the sort order.
+   *
+   * <p>Null values come before any value in ascending order, and after any value in descending
+   * order.
+   *
+   * @param keys the sort key of the cursor
+   * @param order the sort order
+   * @return the criteria
+   * @throws InvalidCursorException if the cursor is from another sort
+   */
+  private static Criteria getAfterCriteria(Document keys, Sort.Order order)
+      throws InvalidCursorException {
+    String property = order.getProperty();
+    Object id = keys.get(CursorHelper.ID_KEY);
+    boolean ascending = order.isAscending();
+
+    if ("id".equals(property)) {
+      return ascending ? Criteria.where("id").gt(id) : Criteria.where("id").lt(id);
+    }
+
+    if (!keys.containsKey(property)) {
+      throw new InvalidCursorException("Invalid cursor");
+    }
+
+    Object value = keys.get(property);
+    Criteria sameValueAfter =
+        ascending
+            ? Criteria.where(property).is(value).and("id").gt(id)
+            : Criteria.where(property).is(value).and("id").lt(id);
+
+    if (value == null) {
+      return ascending
+          ? new Criteria().orOperator(sameValueAfter, Criteria.where(property).ne(null))
+          : sameValueAfter;
+    }
+
+    return ascending
+        ? new Criteria().orOperator(Criteria.where(property).gt(value), sameValueAfter)
+        : new Criteria()
+            .orOperator(
+                Criteria.where(property).lt(value),
+                sameValueAfter,
+                Criteria.where(property).is(null));
+  }
+
+  /**
+   * Gets the fields selected by a request.
+   *
+   * @param fields the fields sent, all of them when {@code null} or empty
+   * @return the selected fields, empty when all of them are selected
+   * @throws InvalidFieldException if a field is not a property of both the DTO and the entity
+   */
+  protected Set<String> getSelectedFields(List<String> fields) throws InvalidFieldException {
+    if (fields == null) {
+      return Set.of();
+    }
+
+    Set<String> selectedFields = new LinkedHashSet<>();
+
+    for (String field : fields) {
+      if (!field.isBlank()) {
+        checkField(field);
+        selectedFields.add(field);
+      }
+    }
+
+    return selectedFields;
+  }
+
+  /**
+   * Reads only the selected fields.
+   *
+   * <p>The fields become a projection of the query, so unselected fields, including references,
+   * are neither fetched nor resolved. The version is always read, as it tags the entity.
+   *
+   * @param query the query
+   * @param selectedFields the selected fields, all of them when empty
+   */
+  protected void project(Query query, Set<String> selectedFields) {
+    if (!selectedFields.isEmpty()) {
+      selectedFields.forEach(field -> query.fields().include(field));
+      query.fields().include("version");
+    }
+  }
+
+  /**
+   * Checks if a field is a property of both the DTO and the entity.
+   *
+   * @param field the field
+   * @throws InvalidFieldException if the field is unknown
+   */
+  private void checkField(String field) throws InvalidFieldException {
+    if ("class".equals(field)
+        || BeanUtils.getPropertyDescriptor(dtoClass, field) == null
+        || BeanUtils.getPropertyDescriptor(controllerClass, field) == null) {
+      throw new InvalidFieldException("Unknown field: " + field);
+    }
+  }
+
+  /**
+   * Gets the document field name of an entity property.
+   *
+   * @param property the property
+   * @return the field name
+   */
+  private static String toFieldName(String property) {
+    return "id".equals(property) ? IndexHelper.ID_FIELD : property;
+  }
+
+  /**
+   * Checks the size of a bulk request.
+   *
+   * @param size the number of items
+   * @throws BulkSizeExceededException if there are more than {@value #MAX_BULK_SIZE} items
+   */
+  protected static void checkBulkSize(int size) throws BulkSizeExceededException {
+    if (size > MAX_BULK_SIZE) {
+      throw new BulkSizeExceededException(
+          "Bulk requests accept at most " + MAX_BULK_SIZE + " items");
+    }
+  }
+
+  /**
+   * Checks if "If-Match" matches the current version of the entity.
+   *
+   * @param entity the entity
+   * @param ifMatch the expected entity tag, optional
+   * @throws PreconditionFailedException if "If-Match" does not match the current version
+   */
+  protected void checkVersion(E entity, String ifMatch) throws PreconditionFailedException {
+    Long expectedVersion = ifMatch == null ? null : ETagHelper.toVersion(ifMatch);
+
+    if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+      throw new PreconditionFailedException(getGenericSimpleName() + " version does not match");
+    }
+  }
+
+  /**
+   * Builds the criteria of a partial update: the id and, when "If-Match" is sent, the version.
+   *
+   * @param id the entity id
+   * @param ifMatch the expected entity tag, optional
+   * @return the criteria
+   * @throws PreconditionFailedException if "If-Match" is malformed
+   */
+  protected Criteria getPatchCriteria(String id, String ifMatch)
+      throws PreconditionFailedException {
+    var criteria = Criteria.where("id").is(id);
+    Long expectedVersion = ifMatch == null ? null : ETagHelper.toVersion(ifMatch);
+
+    if (expectedVersion != null) {
+      criteria.and("version").is(expectedVersion);
+    }
+
+    return criteria;
+  }
+
+  /**
+   * Builds the update of a partial update, a "$set" of the fields sent that also increments the
+   * version.
+   *
+   * @param details the DTO with the fields to update
+   * @return the update
+   * @throws InvalidFieldException if no field is sent or a sent field is invalid
+   */
+  protected Update getPatchUpdate(D details) throws InvalidFieldException {
+    List<String> fields = getPatchFields(details);
+
+    if (fields.isEmpty()) {
+      throw new InvalidFieldException("No field to update");
+    }
+
+    List<String> errors = validate(details, fields);
+
+    if (!errors.isEmpty()) {
+      throw new InvalidFieldException(String.join(", ", errors));
+    }
+
+    // The mapper converts the values, e.g. DTO references to entities that become "DBRef"s
+    var values = new BeanWrapperImpl(mapper.toEntity(details));
+    var update = new Update();
+    fields.forEach(field -> update.set(field, values.getPropertyValue(field)));
+
+    return update.inc("version", 1).set("modifiedAt", LocalDateTime.now());
+  }
+
+  /**
+   * Builds the entity tag of an entity.
+   *
+   * <p>By default it is the entity version, which changes on every save.
+   *
+   * @param entity the entity
+   * @return the entity tag
+   */
+  protected String getETag(E entity) {
+    return ETagHelper.of(entity.getVersion());
+  }
+
+  /**
+   * Builds the entity tag of a list of entities from the id and the entity tag of each one.
+   *
+   * @param entities the entities
+   * @return the entity tag
+   */
+  protected String getETag(List<E> entities) {
+    return ETagHelper.of(
+        entities.stream()
+            .map(entity -> entity.getId() + ":" + getETag(entity))
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Validates the DTO with the rules applied by {@code @Valid}.
+   *
+   * @param dto the DTO
+   * @return the messages of each violation, empty if the DTO is valid
+   */
+  protected List<String> validate(D dto) {
+    if (dto == null) {
+      return List.of("must not be null");
+    }
+
+    var errors = new ArrayList<String>();
+    addViolations(errors, "", validator.validate(dto));
+    Collections.sort(errors);
+
+    return errors;
+  }
+
+  /**
+   * Validates only the given fields of the DTO, cascading into the DTOs they hold.
+   *
+   * @param dto the DTO
+   * @param fields the fields to validate
+   * @return the messages of each violation, empty if the fields are valid
+   */
+  protected List<String> validate(D dto, List<String> fields) {
+    var errors = new ArrayList<String>();
+    var values = new BeanWrapperImpl(dto);
+
+    for (String field : fields) {
+      addViolations(errors, "", validator.validateProperty(dto, field));
+      Object value = values.getPropertyValue(field);
+
+      if (value instanceof BaseDTO) {
+        addViolations(errors, field + ".", validator.validate(value));
+      } else if (value instanceof Collection) {
+        int index = 0;
+
+        for (Object element : (Collection<?>) value) {
+          String path = field + "[" + index++ + "]";
+
+          if (element == null) {
+            errors.add(path + ": must not be null");
+          } else {
+            addViolations(errors, path + ".", validator.validate(element));
+          }
+        }
+      }
+    }
+
+    Collections.sort(errors);
+
+    return errors;
+  }
+
+  private static void addViolations(
+      List<String> errors, String pathPrefix, Set<? extends ConstraintViolation<?>> violations) {
+    violations.stream()
+        .map(violation -> pathPrefix + violation.getPropertyPath() + ": " + violation.getMessage())
+        .forEach(errors::add);
+  }
+
+  /**
+   * Gets the fields sent in a partial update: not null, not an empty collection and not read only.
+   *
+   * @param dto the DTO with the fields to update
+   * @return the fields to update
+   */
+  protected List<String> getPatchFields(D dto) {
+    var values = new BeanWrapperImpl(dto);
+    var readOnlyFields = getReadOnlyFields();
+
+    return Arrays.stream(values.getPropertyDescriptors())
+        .map(PropertyDescriptor::getName)
+        .filter(field -> !readOnlyFields.contains(field))
+        .filter(field -> BeanUtils.getPropertyDescriptor(controllerClass, field) != null)
+        .filter(
+            field -> {
+              Object value = values.getPropertyValue(field);
+              return value instanceof Collection
+                  ? !((Collection<?>) value).isEmpty()
+                  : value != null;
+            })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Gets the fields that clients cannot write.
+   *
+   * @return the read only fields
+   */
+  protected Set<String> getReadOnlyFields() {
+    return Set.of("id", "createdAt", "modifiedAt", "version");
+  }
+
+  /**
+   * Called after an entity is created or updated, with the saved entity.
+   *
+   * <p>By default nothing is done.
+   *
+   * @param entity the saved entity, whose references may only hold the id
+   * @param created whether the entity was created
+   */
+  protected void afterSave(E entity, boolean created) {}
+
+  /**
+   * Called after entities are removed by id.
+   *
+   * <p>By default nothing is done. A bulk delete hands all the ids requested, as the delete does
+   * not tell which ones existed, so the same id may be handed more than once.
+   *
+   * @param ids the ids removed, or requested by a bulk delete
+   */
+  protected void afterRemove(Collection<String> ids) {}
+
+  /**
+   * Gets generic simple name of controller class.
+   *
+   * @return the generic simple name
+   */
+  protected String getGenericSimpleName() {
+    return controllerClass.getSimpleName();
+  }
+}
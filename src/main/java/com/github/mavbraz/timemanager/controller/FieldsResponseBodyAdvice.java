@@ -0,0 +1,64 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.github.mavbraz.timemanager.configuration.JacksonConfig;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Writes only the fields selected by the request, when a controller selected some.
+ *
+ * @see JacksonConfig
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+  private static final String FIELDS_ATTRIBUTE =
+      FieldsResponseBodyAdvice.class.getName() + ".FIELDS";
+
+  /**
+   * Selects the fields written for the DTOs of the response.
+   *
+   * <p>Only objects of the DTO class are filtered, the objects nested in them keep every field.
+   *
+   * @param request the request
+   * @param dtoClass the DTO class
+   * @param fields the fields written, besides "id"
+   */
+  public static void select(WebRequest request, Class<?> dtoClass, Set<String> fields) {
+    request.setAttribute(
+        FIELDS_ATTRIBUTE,
+        JacksonConfig.fieldsFilter(dtoClass, fields),
+        RequestAttributes.SCOPE_REQUEST);
+  }
+
+  @Override
+  protected void beforeBodyWriteInternal(
+      MappingJacksonValue bodyContainer,
+      MediaType contentType,
+      MethodParameter returnType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (!(request instanceof ServletServerHttpRequest)) {
+      return;
+    }
+
+    Object filters =
+        ((ServletServerHttpRequest) request).getServletRequest().getAttribute(FIELDS_ATTRIBUTE);
+
+    if (filters instanceof FilterProvider) {
+      bodyContainer.setFilters((FilterProvider) filters);
+    }
+  }
+}
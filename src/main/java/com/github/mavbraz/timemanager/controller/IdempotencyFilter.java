@@ -0,0 +1,322 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.github.mavbraz.timemanager.entity.IdempotencyRecord;
+import com.github.mavbraz.timemanager.helper.IdempotencyHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Honors the header {@value #KEY_HEADER} on the writes, so a client can repeat a request without
+ * repeating its effect.
+ *
+ * <p>The first request with a key reserves it in the collection "idempotency_keys" for the lease
+ * {@value #LEASE_PROPERTY} and, if it succeeds, stores its response there. A repeat of the request
+ * gets the stored response, with the header {@value #REPLAYED_HEADER}, and the write is not done
+ * again. A repeat that arrives while the first request is running gets a conflict, and a different
+ * request that reuses the key gets an unprocessable entity. Once the lease ends without a stored
+ * response, such as when the instance stopped during the request, a repeat takes the key over and
+ * does the write.
+ *
+ * <p>Failed responses are not stored. On a client error the key is released so the client can fix
+ * the request and retry, since a rejected request did not write anything. On a server error, also
+ * when the write succeeded but its response could not be stored, the write may have been done, so
+ * the key stays reserved until the lease ends and a repeat does not write again meanwhile.
+ *
+ * <p>Only the servlet stack honors the header, the reactive controllers ignore it.
+ *
+ * @see IdempotencyRecord
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  /** Header with the key chosen by the client for the request and its repeats. */
+  public static final String KEY_HEADER = "Idempotency-Key";
+
+  /** Header added to a stored response when it is sent again. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  /** Property with the time a request holds its key, after it a repeat takes the key over. */
+  public static final String LEASE_PROPERTY = "idempotency.lease";
+
+  /** Characters of a key at most. */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+  /** Headers of the response that are stored, the others are rebuilt by a repeat. */
+  private static final List<String> STORED_HEADERS =
+      List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.LOCATION);
+
+  private final MongoTemplate mongoTemplate;
+  private final Duration lease;
+
+  /**
+   * Instantiates with the services and the properties autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param lease the time a request holds its key
+   */
+  @Autowired
+  public IdempotencyFilter(
+      MongoTemplate mongoTemplate, @Value("${" + LEASE_PROPERTY + "}") Duration lease) {
+    this.mongoTemplate = mongoTemplate;
+    this.lease = lease;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getHeader(KEY_HEADER) == null || !METHODS.contains(request.getMethod());
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String key = request.getHeader(KEY_HEADER).trim();
+
+    if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+      response.sendError(
+          HttpStatus.BAD_REQUEST.value(),
+          "\"" + KEY_HEADER + "\" must have between 1 and " + MAX_KEY_LENGTH + " characters");
+      return;
+    }
+
+    // The parameters of a form are read from the body, which then can not be read again
+    boolean form = isForm(request);
+    byte[] body = form ? new byte[0] : StreamUtils.copyToByteArray(request.getInputStream());
+    String fingerprint = IdempotencyHelper.getFingerprint(request, body);
+    LocalDateTime lockedUntil = reserve(key, fingerprint);
+
+    if (lockedUntil == null) {
+      replay(key, fingerprint, response);
+      return;
+    }
+
+    var cachingResponse = new ContentCachingResponseWrapper(response);
+
+    try {
+      filterChain.doFilter(form ? request : new CachedBodyRequest(request, body), cachingResponse);
+      HttpStatus.Series series = HttpStatus.Series.resolve(cachingResponse.getStatus());
+
+      if (series == HttpStatus.Series.SUCCESSFUL) {
+        store(key, lockedUntil, cachingResponse);
+      } else if (series == HttpStatus.Series.CLIENT_ERROR) {
+        mongoTemplate.remove(getReservedQuery(key, lockedUntil), IdempotencyRecord.class);
+      }
+    } finally {
+      cachingResponse.copyBodyToResponse();
+    }
+  }
+
+  /**
+   * Reserves a key for a request, or takes it over if the lease of the request that reserved it
+   * ended without a stored response.
+   *
+   * @param key the key
+   * @param fingerprint the fingerprint of the request
+   * @return the end of the lease, which identifies the reservation, or none if the key is taken
+   */
+  private LocalDateTime reserve(String key, String fingerprint) {
+    LocalDateTime now = TaskHelper.now();
+    LocalDateTime lockedUntil = now.plus(lease);
+
+    try {
+      mongoTemplate.insert(
+          IdempotencyRecord.builder()
+              .id(key)
+              .fingerprint(fingerprint)
+              .createdAt(now)
+              .lockedUntil(lockedUntil)
+              .build());
+
+      return lockedUntil;
+    } catch (DuplicateKeyException exception) {
+      IdempotencyRecord record =
+          mongoTemplate.findAndModify(
+              Query.query(
+                  Criteria.where("id")
+                      .is(key)
+                      .and("fingerprint")
+                      .is(fingerprint)
+                      .and("completed")
+                      .is(false)
+                      .orOperator(
+                          Criteria.where("lockedUntil").lt(now),
+                          Criteria.where("lockedUntil").is(null))),
+              new Update().set("lockedUntil", lockedUntil),
+              IdempotencyRecord.class);
+
+      return record == null ? null : lockedUntil;
+    }
+  }
+
+  /** Builds the query of a key while the reservation of the request is not taken over. */
+  private static Query getReservedQuery(String key, LocalDateTime lockedUntil) {
+    return Query.query(Criteria.where("id").is(key).and("lockedUntil").is(lockedUntil));
+  }
+
+  private void store(
+      String key, LocalDateTime lockedUntil, ContentCachingResponseWrapper response) {
+    var headers = new LinkedHashMap<String, String>();
+
+    for (String name : STORED_HEADERS) {
+      String value =
+          HttpHeaders.CONTENT_TYPE.equals(name)
+              ? response.getContentType()
+              : response.getHeader(name);
+
+      if (value != null) {
+        headers.put(name, value);
+      }
+    }
+
+    mongoTemplate.updateFirst(
+        getReservedQuery(key, lockedUntil),
+        new Update()
+            .set("completed", true)
+            .set("status", response.getStatus())
+            .set("headers", headers)
+            .set("body", response.getContentAsByteArray()),
+        IdempotencyRecord.class);
+  }
+
+  private void replay(String key, String fingerprint, HttpServletResponse response)
+      throws IOException {
+    IdempotencyRecord record = mongoTemplate.findById(key, IdempotencyRecord.class);
+
+    if (record != null && !record.getFingerprint().equals(fingerprint)) {
+      response.sendError(
+          HttpStatus.UNPROCESSABLE_ENTITY.value(),
+          "\"" + KEY_HEADER + "\" was already used by another request");
+    } else if (record == null || !record.isCompleted()) {
+      // The first request is running, or it was just rejected and released the key, or its lease
+      // was just taken over by another repeat
+      response.sendError(
+          HttpStatus.CONFLICT.value(),
+          "A request with this \"" + KEY_HEADER + "\" is being processed");
+    } else {
+      response.setStatus(record.getStatus());
+
+      if (record.getHeaders() != null) {
+        record.getHeaders().forEach(response::setHeader);
+      }
+
+      response.setHeader(REPLAYED_HEADER, "true");
+
+      if (record.getBody() != null && record.getBody().length > 0) {
+        response.setContentLength(record.getBody().length);
+        response.getOutputStream().write(record.getBody());
+      }
+    }
+  }
+
+  private static boolean isForm(HttpServletRequest request) {
+    if (request.getContentType() == null) {
+      return false;
+    }
+
+    try {
+      MediaType contentType = MediaType.parseMediaType(request.getContentType());
+
+      return MediaType.APPLICATION_FORM_URLENCODED.includes(contentType)
+          || MediaType.MULTIPART_FORM_DATA.includes(contentType);
+    } catch (IllegalArgumentException exception) {
+      return false;
+    }
+  }
+
+  /** Request whose body was already read, which serves it again from memory. */
+  private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      var input = new ByteArrayInputStream(body);
+
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return input.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        /** Notifies the listener at once, as the whole body is already in memory. */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          try {
+            if (!isFinished()) {
+              readListener.onDataAvailable();
+            }
+
+            readListener.onAllDataRead();
+          } catch (IOException exception) {
+            readListener.onError(exception);
+          }
+        }
+
+        @Override
+        public int read() {
+          return input.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+          return input.read(buffer, offset, length);
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      Charset charset =
+          getCharacterEncoding() == null
+              ? StandardCharsets.UTF_8
+              : Charset.forName(getCharacterEncoding());
+
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+  }
+}
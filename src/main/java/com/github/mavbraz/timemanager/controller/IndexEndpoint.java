@@ -0,0 +1,43 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.github.mavbraz.timemanager.dto.IndexReportDTO;
+import com.github.mavbraz.timemanager.service.IndexCatalog;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint "/actuator/indexes", served by both the servlet and the reactive stacks.
+ *
+ * @see Endpoint
+ * @see IndexCatalog
+ */
+@Component
+@Endpoint(id = "indexes")
+public class IndexEndpoint {
+
+  private final IndexCatalog indexCatalog;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param indexCatalog the index catalog service
+   */
+  @Autowired
+  public IndexEndpoint(IndexCatalog indexCatalog) {
+    this.indexCatalog = indexCatalog;
+  }
+
+  /**
+   * Reports the usage of the indexes of each entity, flagging the unused, missing and undeclared
+   * ones.
+   *
+   * @return the report of each index, by collection
+   */
+  @ReadOperation
+  public List<IndexReportDTO> indexes() {
+    return indexCatalog.getReport();
+  }
+}
@@ -0,0 +1,42 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.github.mavbraz.timemanager.dto.MigrationStatusDTO;
+import com.github.mavbraz.timemanager.service.MigrationRunner;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint "/actuator/migrations", served by both the servlet and the reactive stacks.
+ *
+ * @see Endpoint
+ * @see MigrationRunner
+ */
+@Component
+@Endpoint(id = "migrations")
+public class MigrationEndpoint {
+
+  private final MigrationRunner migrationRunner;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param migrationRunner the migration runner service
+   */
+  @Autowired
+  public MigrationEndpoint(MigrationRunner migrationRunner) {
+    this.migrationRunner = migrationRunner;
+  }
+
+  /**
+   * Reports the progress of each migration of the stored documents.
+   *
+   * @return the progress of each migration, in version order
+   */
+  @ReadOperation
+  public List<MigrationStatusDTO> migrations() {
+    return migrationRunner.getStatus();
+  }
+}
@@ -1,9 +1,15 @@
 package com.github.mavbraz.timemanager.controller;
 
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
 import com.github.mavbraz.timemanager.dto.PersonDTO;
 import com.github.mavbraz.timemanager.entity.Person;
 import com.github.mavbraz.timemanager.mapper.PersonMapper;
+import com.github.mavbraz.timemanager.service.TaskReferenceCleaner;
+import com.github.mavbraz.timemanager.service.TaskSummaryUpdater;
+import java.util.Collection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,16 +22,55 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping("/person")
-public class PersonController extends BaseController<Person, PersonDTO, PersonMapper> {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PersonController
+    extends BaseController<Person, PersonDTO, PersonMapper, ListQueryDTO> {
+
+  private final TaskSummaryUpdater summaryUpdater;
+  private final TaskReferenceCleaner referenceCleaner;
 
   /**
    * Instantiates with the services autowired by Spring.
    *
    * @param repository the repository service
+   * @param mongoTemplate the template service
    * @param personMapper the mapper service
+   * @param summaryUpdater the service of the summaries embedded in the tasks
+   * @param referenceCleaner the service that removes the deleted people from the tasks
    */
   @Autowired
-  public PersonController(MongoRepository<Person, String> repository, PersonMapper personMapper) {
-    super(repository, personMapper);
+  public PersonController(
+      MongoRepository<Person, String> repository,
+      MongoTemplate mongoTemplate,
+      PersonMapper personMapper,
+      TaskSummaryUpdater summaryUpdater,
+      TaskReferenceCleaner referenceCleaner) {
+    super(repository, mongoTemplate, personMapper);
+    this.summaryUpdater = summaryUpdater;
+    this.referenceCleaner = referenceCleaner;
+  }
+
+  /**
+   * Updates the name of the person in the summaries embedded in its tasks, in background.
+   *
+   * @param entity the saved person
+   * @param created whether the person was created, so no task has it yet
+   */
+  @Override
+  protected void afterSave(Person entity, boolean created) {
+    if (!created) {
+      summaryUpdater.personRenamed(entity);
+    }
+  }
+
+  /**
+   * Removes the deleted people from their tasks, in background.
+   *
+   * @param ids the ids removed, or requested by a bulk delete, which are cleaned only if still
+   *     referenced
+   */
+  @Override
+  protected void afterRemove(Collection<String> ids) {
+    referenceCleaner.personsRemoved(ids);
   }
 }
@@ -1,17 +1,57 @@
 package com.github.mavbraz.timemanager.controller;
 
+import com.github.mavbraz.timemanager.configuration.ReferenceLoading;
+import com.github.mavbraz.timemanager.dto.BulkTransitionResultDTO;
 import com.github.mavbraz.timemanager.dto.TaskDTO;
+import com.github.mavbraz.timemanager.dto.TaskListQueryDTO;
+import com.github.mavbraz.timemanager.dto.TaskTransitionQueryDTO;
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
 import com.github.mavbraz.timemanager.entity.Task;
-import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.github.mavbraz.timemanager.entity.TaskEvent;
+import com.github.mavbraz.timemanager.entity.TaskSnapshot;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.exceptions.BulkSizeExceededException;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
 import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
 import com.github.mavbraz.timemanager.exceptions.TaskInvalidStatusException;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.github.mavbraz.timemanager.helper.TaskEventHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
 import com.github.mavbraz.timemanager.mapper.TaskMapper;
+import com.github.mavbraz.timemanager.service.TaskEventLog;
+import com.github.mavbraz.timemanager.service.WorkPeriodLog;
+import com.mongodb.client.model.WriteModel;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,22 +63,84 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping("/task")
-public class TaskController extends BaseController<Task, TaskDTO, TaskMapper> {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TaskController extends BaseController<Task, TaskDTO, TaskMapper, TaskListQueryDTO> {
+
+  private final TaskEventLog eventLog;
+  private final WorkPeriodLog workPeriodLog;
+  private final ReferenceLoading referenceLoading;
 
   /**
-   * Instantiates with the services autowired by Spring.
+   * Instantiates with the services and the properties autowired by Spring.
    *
    * @param repository the repository service
+   * @param mongoTemplate the template service
    * @param taskMapper the mapper service
+   * @param eventLog the event log service
+   * @param workPeriodLog the work period log service
+   * @param referenceLoading how the references of the tasks read are loaded
    */
   @Autowired
-  public TaskController(MongoRepository<Task, String> repository, TaskMapper taskMapper) {
-    super(repository, taskMapper);
+  public TaskController(
+      MongoRepository<Task, String> repository,
+      MongoTemplate mongoTemplate,
+      TaskMapper taskMapper,
+      TaskEventLog eventLog,
+      WorkPeriodLog workPeriodLog,
+      @Value("${" + ReferenceLoading.PROPERTY + "}") ReferenceLoading referenceLoading) {
+    super(repository, mongoTemplate, taskMapper);
+    this.eventLog = eventLog;
+    this.workPeriodLog = workPeriodLog;
+    this.referenceLoading = referenceLoading;
+  }
+
+  /**
+   * Gets task as it was at a date, rebuilt from its last snapshot and the events after it.
+   *
+   * <p>Events are written in batches, so the latest writes may take a moment to show up. The
+   * contributors and the project are loaded as they are now, or with the names they had at the
+   * date when read from the summaries.
+   *
+   * @param id the entity id
+   * @param at the date
+   * @return the details at the date
+   * @throws ResourceNotFoundException if the entity did not exist at the date
+   */
+  @GetMapping("/{id}/history")
+  @ResponseBody
+  public TaskDTO getTaskAt(
+      @PathVariable String id,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at)
+      throws ResourceNotFoundException {
+    MongoConverter converter = mongoTemplate.getConverter();
+    Document snapshot =
+        mongoTemplate.findOne(
+            TaskEventHelper.getSnapshotQuery(id, at, converter),
+            Document.class,
+            mongoTemplate.getCollectionName(TaskSnapshot.class));
+    List<Document> events =
+        mongoTemplate.find(
+            TaskEventHelper.getEventsQuery(
+                id, snapshot == null ? -1 : snapshot.getLong("version"), at, converter),
+            Document.class,
+            mongoTemplate.getCollectionName(TaskEvent.class));
+    Document state =
+        TaskEventHelper.replay(
+            snapshot == null ? null : snapshot.get("state", Document.class), events);
+
+    if (state == null) {
+      throw new ResourceNotFoundException(getGenericSimpleName() + " not found at " + at);
+    }
+
+    return mapper.toDTO(resolveReferences(converter.read(Task.class, state)));
   }
 
   /**
    * Starts task.
    *
+   * <p>The status is checked and changed by a single conditional update, so concurrent requests
+   * cannot both start the task.
+   *
    * @param id the entity id
    * @return the saved details
    * @throws ResourceNotFoundException if the entity is not found
@@ -48,41 +150,405 @@ public class TaskController extends BaseController<Task, TaskDTO, TaskMapper> {
   @ResponseBody
   public TaskDTO startTask(@PathVariable String id)
       throws ResourceNotFoundException, TaskInvalidStatusException {
-    var entity = getEntityById(id);
-
-    if (entity.getStatus() != TaskStatus.NOT_STARTED) {
-      throw new TaskInvalidStatusException("Task has already been started or finished!");
-    }
+    return transition(id, Transition.START);
+  }
 
-    entity.setStatus(TaskStatus.STARTED);
-    entity.setStartDate(LocalDateTime.now());
-    entity = repository.save(entity);
+  /**
+   * Pauses task, closing the period being worked.
+   *
+   * <p>The period is appended to the intervals and its length added to the duration by the same
+   * conditional update that changes the status, and then added to the daily rollups and to the
+   * stored periods of the project and the contributors.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "STARTED"
+   */
+  @PostMapping("/{id}/pause")
+  @ResponseBody
+  public TaskDTO pauseTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.PAUSE);
+  }
 
-    return mapper.toDTO(entity);
+  /**
+   * Resumes task, starting a new period worked.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "PAUSED"
+   */
+  @PostMapping("/{id}/resume")
+  @ResponseBody
+  public TaskDTO resumeTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.RESUME);
   }
 
   /**
    * Finishes task.
    *
+   * <p>The status is checked and changed by a single conditional update, so concurrent requests
+   * cannot both finish the task. A started task gets its last period worked closed, which is then
+   * added to the daily rollups of the project and the contributors. A paused task only gets the
+   * status and the finish date, as its periods are already closed.
+   *
    * @param id the entity id
    * @return the saved details
    * @throws ResourceNotFoundException if the entity is not found
-   * @throws TaskInvalidStatusException if status is not "STARTED"
+   * @throws TaskInvalidStatusException if status is not "STARTED" nor "PAUSED"
    */
   @PostMapping("/{id}/finish")
   @ResponseBody
   public TaskDTO finishTask(@PathVariable String id)
       throws ResourceNotFoundException, TaskInvalidStatusException {
-    var entity = getEntityById(id);
+    return transition(id, Transition.FINISH, Transition.FINISH_PAUSED);
+  }
+
+  /**
+   * Starts the selected tasks with status "NOT_STARTED", with a single conditional update.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @return the ids of the tasks started and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   * @throws BulkSizeExceededException if more than {@value #MAX_BULK_SIZE} tasks are selected
+   */
+  @PostMapping("/start")
+  @ResponseBody
+  public BulkTransitionResultDTO startTasks(TaskTransitionQueryDTO transitionQuery)
+      throws InvalidFieldException, BulkSizeExceededException {
+    return transitionAll(transitionQuery, Transition.START);
+  }
+
+  /**
+   * Finishes the selected tasks with status "STARTED" or "PAUSED", with a conditional update for
+   * each status.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @return the ids of the tasks finished and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   * @throws BulkSizeExceededException if more than {@value #MAX_BULK_SIZE} tasks are selected
+   */
+  @PostMapping("/finish")
+  @ResponseBody
+  public BulkTransitionResultDTO finishTasks(TaskTransitionQueryDTO transitionQuery)
+      throws InvalidFieldException, BulkSizeExceededException {
+    return transitionAll(transitionQuery, Transition.FINISH, Transition.FINISH_PAUSED);
+  }
+
+  /**
+   * Changes the status of a task, only if it still has the expected status of one of the
+   * transitions, tried in order.
+   *
+   * @param id the entity id
+   * @param transitions the transitions, to the same status
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if the task does not have any expected status
+   */
+  private TaskDTO transition(String id, Transition... transitions)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    for (Transition transition : transitions) {
+      Task entity =
+          mongoTemplate.findAndModify(
+              TaskHelper.getTransitionQuery(id, transition),
+              TaskHelper.getTransitionUpdate(
+                  transition, TaskHelper.now(), mongoTemplate.getConverter()),
+              FindAndModifyOptions.options().returnNew(true),
+              Task.class);
+
+      if (entity != null) {
+        eventLog.append(
+            TaskEventHelper.getEventType(transition),
+            id,
+            TaskEventHelper.toState(entity, mongoTemplate.getConverter()));
+        addToRollups(
+            RollupHelper.getRollupUpdates(entity, transition, mongoTemplate.getConverter()));
+
+        if (transition.isClosingRun()) {
+          workPeriodLog.append(entity);
+        }
+
+        return mapper.toDTO(resolveReferences(entity));
+      }
+    }
+
+    if (!repository.existsById(id)) {
+      throw new ResourceNotFoundException(getGenericSimpleName() + " not found");
+    }
+
+    throw new TaskInvalidStatusException(transitions[0].getInvalidStatusReason());
+  }
+
+  /**
+   * Adds periods worked to the daily rollups of projects and people, with a single unordered bulk
+   * write of upserts.
+   *
+   * @param updates the rollup updates
+   */
+  private void addToRollups(List<WriteModel<Document>> updates) {
+    if (updates.isEmpty()) {
+      return;
+    }
+
+    mongoTemplate.execute(
+        TimeRollup.class,
+        collection -> collection.bulkWrite(updates, RollupHelper.WRITE_OPTIONS));
+  }
+
+  /**
+   * Changes the status of the selected tasks that have the expected status of one of the
+   * transitions, with a single "updateMany" for each transition, in order.
+   *
+   * <p>Every task changed by a transition is tagged with the id of its write, which tells them
+   * apart from the ones skipped, also from the ones changed meanwhile by other requests.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @param transitions the transitions, to the same status
+   * @return the ids of the tasks changed and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   * @throws BulkSizeExceededException if more than {@value #MAX_BULK_SIZE} tasks are selected
+   */
+  private BulkTransitionResultDTO transitionAll(
+      TaskTransitionQueryDTO transitionQuery, Transition... transitions)
+      throws InvalidFieldException, BulkSizeExceededException {
+    Set<String> distinctIds = new LinkedHashSet<>();
+
+    if (transitionQuery.getIds() != null && !transitionQuery.getIds().isEmpty()) {
+      distinctIds.addAll(transitionQuery.getIds());
+      distinctIds.remove("");
+    } else {
+      // Only the tasks with an expected status, the other ones are not reported
+      for (Transition transition : transitions) {
+        Query candidatesQuery =
+            TaskHelper.getTransitionCandidatesQuery(
+                transitionQuery, transition, MAX_BULK_SIZE, mongoTemplate.getConverter());
+        mongoTemplate.find(candidatesQuery, Task.class).stream()
+            .map(Task::getId)
+            .forEach(distinctIds::add);
+      }
+    }
+
+    List<String> ids = new ArrayList<>(distinctIds);
+    checkBulkSize(ids.size());
+
+    if (ids.isEmpty()) {
+      return BulkTransitionResultDTO.builder().build();
+    }
+
+    Set<String> changed = new HashSet<>();
+
+    for (Transition transition : transitions) {
+      String bulkWriteId = TaskHelper.newBulkWriteId();
+      mongoTemplate.updateMulti(
+          TaskHelper.getTransitionQuery(ids, transition),
+          TaskHelper.getTransitionUpdate(
+              transition, TaskHelper.now(), bulkWriteId, mongoTemplate.getConverter()),
+          Task.class);
+      List<Document> transitioned =
+          mongoTemplate
+              .aggregate(TaskHelper.getBulkWrittenAggregation(ids, bulkWriteId), Document.class)
+              .getMappedResults()
+              .stream()
+              .collect(Collectors.toList());
+      transitioned.forEach(
+          task -> {
+            changed.add(task.get("_id").toString());
+            eventLog.append(
+                TaskEventHelper.getEventType(transition), task.get("_id").toString(), task);
+          });
+      addToRollups(
+          transitioned.stream()
+              .flatMap(
+                  task ->
+                      RollupHelper.getRollupUpdates(task, transition, mongoTemplate.getConverter())
+                          .stream())
+              .collect(Collectors.toList()));
+
+      if (transition.isClosingRun()) {
+        transitioned.forEach(workPeriodLog::append);
+      }
+    }
+
+    return TaskHelper.getTransitionResult(ids, changed);
+  }
+
+  @Override
+  protected void afterSave(Task entity, boolean created) {
+    eventLog.append(
+        created ? TaskEventType.CREATED : TaskEventType.UPDATED,
+        entity.getId(),
+        TaskEventHelper.toState(entity, mongoTemplate.getConverter()));
+  }
+
+  /**
+   * Records the deletes in the event log, which drops the ones of tasks already recorded as
+   * deleted.
+   *
+   * @param ids the ids removed, or requested by a bulk delete
+   */
+  @Override
+  protected void afterRemove(Collection<String> ids) {
+    ids.forEach(id -> eventLog.append(TaskEventType.DELETED, id, null));
+  }
+
+  @Override
+  protected String getETag(Task entity) {
+    return TaskHelper.getETag(entity);
+  }
+
+  @Override
+  protected List<Criteria> getFilters(TaskListQueryDTO listQuery) {
+    return TaskHelper.getFilters(listQuery, mongoTemplate.getConverter());
+  }
+
+  /**
+   * Gets the fields that clients cannot write, including the ones only changed by the status
+   * transitions.
+   *
+   * @return the read only fields
+   */
+  @Override
+  protected Set<String> getReadOnlyFields() {
+    var readOnlyFields = new HashSet<>(super.getReadOnlyFields());
+    readOnlyFields.addAll(TaskHelper.STATUS_FIELDS);
+
+    return readOnlyFields;
+  }
+
+  /**
+   * Loads the contributors and the projects of the tasks saved, to store their summaries.
+   *
+   * @param entities the tasks to save, whose references only hold what the request sent
+   */
+  @Override
+  protected void beforeSave(List<Task> entities) {
+    loadReferences(entities, false);
+    TaskHelper.setSummaries(entities);
+  }
+
+  /**
+   * Loads the contributors or the project sent, to also update their summaries.
+   *
+   * @param details the DTO with the fields to update
+   * @param update the update, which also sets the summaries
+   */
+  @Override
+  protected void beforePatch(TaskDTO details, Update update) {
+    if (update.modifies("contributors") || update.modifies("project")) {
+      Task task = mapper.toEntity(details);
+      loadReferences(List.of(task), false);
+      TaskHelper.addSummaryUpdates(update, task);
+    }
+  }
+
+  /**
+   * Finds a page of tasks with a single aggregation that also joins their contributors and project
+   * with "$lookup", when set by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param query the query of the page
+   * @return the tasks, with contributors and project when joined, in query order
+   */
+  @Override
+  protected List<Task> findPage(Query query) {
+    if (referenceLoading != ReferenceLoading.LOOKUP) {
+      return super.findPage(query);
+    }
+
+    MongoConverter converter = mongoTemplate.getConverter();
+    List<Document> documents =
+        mongoTemplate
+            .aggregate(TaskHelper.getLookupAggregation(query, converter), Document.class)
+            .getMappedResults();
+
+    return TaskHelper.readJoinedTasks(documents, converter);
+  }
+
+  /**
+   * Reads the contributors and the project from the summaries of the tasks, or loads them as set
+   * by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param entities the tasks, whose references only hold the id
+   * @return the tasks with contributors and project, in the same order
+   */
+  @Override
+  protected List<Task> resolveReferences(List<Task> entities) {
+    loadReferences(
+        referenceLoading == ReferenceLoading.SUMMARY
+            ? TaskHelper.setReferencesFromSummaries(entities)
+            : entities,
+        false);
+
+    return entities;
+  }
+
+  /**
+   * Leaves a page joined by "$lookup" as it is, as its references are read with the page.
+   *
+   * @param entities the tasks of the page
+   * @param versionsOnly whether only the entity tag is built from the tasks
+   * @return the tasks with contributors and project, in the same order
+   */
+  @Override
+  protected List<Task> resolvePage(List<Task> entities, boolean versionsOnly) {
+    if (referenceLoading == ReferenceLoading.LOOKUP) {
+      return entities;
+    }
+
+    return super.resolvePage(entities, versionsOnly);
+  }
 
-    if (entity.getStatus() != TaskStatus.STARTED) {
-      throw new TaskInvalidStatusException("Task must have status \"STARTED\"!");
+  /**
+   * Reads the contributors and the project from the summaries of the tasks, or loads only their
+   * id and version, as set by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param entities the tasks, whose references only hold the id
+   * @return the tasks with the id and the version of contributors and project, in the same order
+   */
+  @Override
+  protected List<Task> resolveVersions(List<Task> entities) {
+    loadReferences(
+        referenceLoading == ReferenceLoading.SUMMARY
+            ? TaskHelper.setReferencesFromSummaries(entities)
+            : entities,
+        true);
+
+    return entities;
+  }
+
+  /**
+   * Loads the contributors of all the tasks with one query and their projects with another one,
+   * instead of one query per reference. Missing references are dropped, like the "@DBRef"
+   * resolution does.
+   *
+   * @param tasks the tasks, whose references only hold the id
+   * @param versionsOnly whether only the id and the version of the references are read
+   */
+  private void loadReferences(List<Task> tasks, boolean versionsOnly) {
+    if (tasks.isEmpty()) {
+      return;
     }
 
-    entity.setStatus(TaskStatus.FINISHED);
-    entity.setFinishDate(LocalDateTime.now());
-    entity = repository.save(entity);
+    TaskHelper.setReferences(
+        tasks,
+        findAllById(TaskHelper.getContributorIds(tasks), Person.class, versionsOnly),
+        findAllById(TaskHelper.getProjectIds(tasks), Project.class, versionsOnly));
+  }
+
+  private <R extends BaseDocument> Map<String, R> findAllById(
+      Set<String> ids, Class<R> entityClass, boolean versionsOnly) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+
+    var query = Query.query(Criteria.where("id").in(ids));
+    if (versionsOnly) {
+      query.fields().include("version");
+    }
 
-    return mapper.toDTO(entity);
+    return mongoTemplate.find(query, entityClass).stream()
+        .collect(Collectors.toMap(BaseDocument::getId, Function.identity()));
   }
 }
@@ -0,0 +1,132 @@
+package com.github.mavbraz.timemanager.controller;
+
+import com.github.mavbraz.timemanager.dto.RollupQueryDTO;
+import com.github.mavbraz.timemanager.dto.TimeRollupDTO;
+import com.github.mavbraz.timemanager.dto.WorkedTimeDTO;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import com.github.mavbraz.timemanager.entity.enums.RollupDimension;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.github.mavbraz.timemanager.mapper.TimeRollupMapper;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest Controller for path "/rollup", which reads the time worked per day.
+ *
+ * <p>Each day is a single document, kept up to date by the task transitions, so the reads never
+ * scan the tasks.
+ *
+ * @see RestController
+ * @see RequestMapping
+ */
+@RestController
+@RequestMapping("/rollup")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TimeRollupController {
+
+  private final MongoTemplate mongoTemplate;
+  private final TimeRollupMapper mapper;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param timeRollupMapper the mapper service
+   */
+  @Autowired
+  public TimeRollupController(MongoTemplate mongoTemplate, TimeRollupMapper timeRollupMapper) {
+    this.mongoTemplate = mongoTemplate;
+    this.mapper = timeRollupMapper;
+  }
+
+  /**
+   * Gets the time worked per day on a project.
+   *
+   * @param id the project id
+   * @param rollupQuery the range of days
+   * @return the days with time worked, sorted
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  @GetMapping("/project/{id}")
+  @ResponseBody
+  public List<TimeRollupDTO> getProjectRollups(@PathVariable String id, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    return getRollups(RollupDimension.PROJECT, id, rollupQuery);
+  }
+
+  /**
+   * Gets the time worked per day by a person.
+   *
+   * @param id the person id
+   * @param rollupQuery the range of days
+   * @return the days with time worked, sorted
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  @GetMapping("/person/{id}")
+  @ResponseBody
+  public List<TimeRollupDTO> getPersonRollups(@PathVariable String id, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    return getRollups(RollupDimension.PERSON, id, rollupQuery);
+  }
+
+  /**
+   * Gets the time worked in a range of days on a project, from the periods stored in the
+   * time-series collection. Periods count in the day they started.
+   *
+   * @param id the project id
+   * @param rollupQuery the range of days
+   * @return the time worked and the number of periods
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  @GetMapping("/project/{id}/worked")
+  @ResponseBody
+  public WorkedTimeDTO getProjectWorkedTime(@PathVariable String id, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    return getWorkedTime(RollupDimension.PROJECT, id, rollupQuery);
+  }
+
+  /**
+   * Gets the time worked in a range of days by a person, from the periods stored in the
+   * time-series collection. Periods count in the day they started.
+   *
+   * @param id the person id
+   * @param rollupQuery the range of days
+   * @return the time worked and the number of periods
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  @GetMapping("/person/{id}/worked")
+  @ResponseBody
+  public WorkedTimeDTO getPersonWorkedTime(@PathVariable String id, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    return getWorkedTime(RollupDimension.PERSON, id, rollupQuery);
+  }
+
+  private List<TimeRollupDTO> getRollups(
+      RollupDimension dimension, String reference, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    return mapper.mapToDTO(
+        mongoTemplate.find(
+            RollupHelper.getRollupQuery(dimension, reference, rollupQuery), TimeRollup.class));
+  }
+
+  private WorkedTimeDTO getWorkedTime(
+      RollupDimension dimension, String reference, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    WorkedTimeDTO workedTime =
+        mongoTemplate
+            .aggregate(
+                RollupHelper.getWorkedTimeAggregation(dimension, reference, rollupQuery),
+                WorkedTimeDTO.class)
+            .getUniqueMappedResult();
+
+    return workedTime == null ? WorkedTimeDTO.builder().build() : workedTime;
+  }
+}
@@ -0,0 +1,575 @@
+package com.github.mavbraz.timemanager.controller.reactive;
+
+import com.github.mavbraz.timemanager.configuration.JacksonConfig;
+import com.github.mavbraz.timemanager.controller.ControllerSupport;
+import com.github.mavbraz.timemanager.dto.BaseDTO;
+import com.github.mavbraz.timemanager.dto.BulkDeleteResultDTO;
+import com.github.mavbraz.timemanager.dto.BulkItemResultDTO;
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.exceptions.BulkSizeExceededException;
+import com.github.mavbraz.timemanager.exceptions.InvalidCursorException;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.exceptions.PreconditionFailedException;
+import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
+import com.github.mavbraz.timemanager.exceptions.UnindexedQueryException;
+import com.github.mavbraz.timemanager.exceptions.VersionConflictException;
+import com.github.mavbraz.timemanager.mapper.BaseMapper;
+import com.mongodb.client.result.DeleteResult;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.validation.Valid;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Base of reactive REST Controllers, with the same endpoints of {@link
+ * com.github.mavbraz.timemanager.controller.BaseController}.
+ *
+ * <p>Entities are read with their references holding only the id, see {@link
+ * #resolveReferences(Flux)}.
+ *
+ * @param <E> entity
+ * @param <D> DTO
+ * @param <M> mapper
+ * @param <Q> list query
+ */
+public abstract class ReactiveBaseController<
+        E extends BaseDocument,
+        D extends BaseDTO,
+        M extends BaseMapper<E, D>,
+        Q extends ListQueryDTO>
+    extends ControllerSupport<E, D, M, Q> {
+
+  /** Service for database operation. */
+  protected final ReactiveMongoRepository<E, String> repository;
+
+  /** Service for database operation that the repository does not expose. */
+  protected final ReactiveMongoTemplate mongoTemplate;
+
+  /**
+   * Instantiates with the services.
+   *
+   * @param repository the repository service
+   * @param mongoTemplate the template service
+   * @param mapper the mapper service
+   */
+  protected ReactiveBaseController(
+      ReactiveMongoRepository<E, String> repository,
+      ReactiveMongoTemplate mongoTemplate,
+      M mapper) {
+    super(mapper);
+    this.repository = repository;
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  protected MongoConverter getConverter() {
+    return mongoTemplate.getConverter();
+  }
+
+  /**
+   * Creates the entity by details into database.
+   *
+   * @param details the DTO with updates
+   * @return the created details
+   */
+  @PostMapping
+  @ResponseStatus(HttpStatus.CREATED)
+  public Mono<D> create(@RequestBody @Valid D details) {
+    E newEntity = mapper.toEntity(details);
+
+    return beforeSave(List.of(newEntity))
+        .then(Mono.defer(() -> repository.save(newEntity)))
+        .doOnNext(entity -> afterSave(entity, true))
+        .flatMap(this::resolveReferences)
+        .map(mapper::toDTO);
+  }
+
+  /**
+   * Creates the entities by details into database.
+   *
+   * <p>Each item is validated with the same rules of {@link #create(BaseDTO)}. Invalid items are
+   * reported and skipped, the valid ones are inserted concurrently.
+   *
+   * @param details the DTOs to create
+   * @return the result of each item, in request order
+   * @throws BulkSizeExceededException if there are more than {@value #MAX_BULK_SIZE} items
+   */
+  @PostMapping("/bulk")
+  public Mono<ResponseEntity<List<BulkItemResultDTO>>> createAll(@RequestBody List<D> details)
+      throws BulkSizeExceededException {
+    checkBulkSize(details.size());
+
+    return Flux.range(0, details.size())
+        .flatMapSequential(index -> insert(index, details.get(index)))
+        .collectList()
+        .map(
+            results -> {
+              boolean allCreated =
+                  results.stream()
+                      .allMatch(result -> result.getStatus() == HttpStatus.CREATED.value());
+
+              return ResponseEntity.status(
+                      allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                  .body(results);
+            });
+  }
+
+  /**
+   * Inserts one item of a bulk request.
+   *
+   * @param index the position of the item in the request
+   * @param dto the DTO to create
+   * @return the result of the item
+   */
+  private Mono<BulkItemResultDTO> insert(int index, D dto) {
+    List<String> errors = validate(dto);
+    var result = BulkItemResultDTO.builder().index(index).errors(new ArrayList<>(errors)).build();
+
+    if (!errors.isEmpty()) {
+      result.setStatus(HttpStatus.BAD_REQUEST.value());
+      return Mono.just(result);
+    }
+
+    E newEntity = mapper.toEntity(dto);
+
+    return beforeSave(List.of(newEntity))
+        .then(Mono.defer(() -> mongoTemplate.insert(newEntity)))
+        .map(
+            entity -> {
+              afterSave(entity, true);
+              result.setStatus(HttpStatus.CREATED.value());
+              result.setId(entity.getId());
+              return result;
+            })
+        .onErrorResume(
+            exception -> {
+              HttpStatus status =
+                  exception instanceof DuplicateKeyException
+                      ? HttpStatus.CONFLICT
+                      : HttpStatus.INTERNAL_SERVER_ERROR;
+              result.setStatus(status.value());
+              result.getErrors().add(exception.getMessage());
+              return Mono.just(result);
+            });
+  }
+
+  /**
+   * Gets a page of entities from database, filtered and ordered by the query.
+   *
+   * <p>Entities are ordered by the sort property and then by id. When there are more entities, the
+   * cursor of the next page is sent in the header {@value #NEXT_CURSOR_HEADER}. Queries that no
+   * declared index supports are rejected, instead of scanning the collection.
+   *
+   * <p>The page is tagged with a hash of the entity tag of each entity, and a request whose
+   * "If-None-Match" still matches gets "304 Not Modified" before the references are resolved and
+   * the entities mapped.
+   *
+   * @param listQuery the filters, the sort, the page size, the cursor of the page and the fields
+   * @param exchange the exchange, used for conditional reads
+   * @return the saved entities of the page, or empty when not modified
+   * @throws InvalidCursorException if the cursor is malformed or from another sort
+   * @throws InvalidFieldException if a field to read or to sort by is unknown
+   * @throws UnindexedQueryException if no declared index supports the query
+   */
+  @GetMapping
+  public Mono<ResponseEntity<Object>> getAll(@Valid Q listQuery, ServerWebExchange exchange)
+      throws InvalidCursorException, InvalidFieldException, UnindexedQueryException {
+    int limit = listQuery.getLimit();
+    Set<String> selectedFields = getSelectedFields(listQuery.getFields());
+    Query query = getListQuery(listQuery, selectedFields);
+
+    return findPage(query)
+        .collectList()
+        .flatMap(
+            entities -> {
+              var headers = new HttpHeaders();
+
+              // One extra entity is fetched only to know if there is a next page
+              if (entities.size() > limit) {
+                entities = entities.subList(0, limit);
+                headers.set(NEXT_CURSOR_HEADER, getNextCursor(entities.get(limit - 1), listQuery));
+              }
+
+              Flux<E> page = Flux.fromIterable(entities);
+
+              return resolvePage(page, true)
+                  .collectList()
+                  .map(this::getETag)
+                  .filter(eTag -> !exchange.checkNotModified(eTag))
+                  .flatMap(
+                      eTag ->
+                          resolvePage(page, false)
+                              .collectList()
+                              .map(
+                                  resolved ->
+                                      ResponseEntity.ok()
+                                          .headers(headers)
+                                          .eTag(eTag)
+                                          .body(
+                                              selectFields(
+                                                  mapper.mapToDTO(resolved), selectedFields))));
+            });
+  }
+
+  /**
+   * Exports all entities from database as newline-delimited JSON, ordered by id.
+   *
+   * <p>Entities are read from a MongoDB cursor and each DTO is written as soon as it is mapped, so
+   * the memory used does not grow with the collection.
+   *
+   * @return the stream of saved entities
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<D> export() {
+    var query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+    query.cursorBatchSize(EXPORT_BATCH_SIZE);
+
+    return resolveReferences(mongoTemplate.find(query, controllerClass)).map(mapper::toDTO);
+  }
+
+  /**
+   * Gets the entity by id from database.
+   *
+   * <p>The entity is tagged with its version, and a request whose "If-None-Match" still matches
+   * gets "304 Not Modified" before the references are resolved and the entity mapped.
+   *
+   * @param id the entity id
+   * @param fields the fields to read, all of them when absent
+   * @param exchange the exchange, used for conditional reads
+   * @return the saved details, or empty when not modified
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws InvalidFieldException if a field to read is unknown
+   */
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<Object>> get(
+      @PathVariable String id,
+      @RequestParam(required = false) List<String> fields,
+      ServerWebExchange exchange)
+      throws ResourceNotFoundException, InvalidFieldException {
+    Set<String> selectedFields = getSelectedFields(fields);
+    var query = Query.query(Criteria.where("id").is(id));
+    project(query, selectedFields);
+
+    return mongoTemplate
+        .findOne(query, controllerClass)
+        .switchIfEmpty(Mono.error(this::notFound))
+        .flatMap(this::resolveVersions)
+        .flatMap(
+            entity -> {
+              String eTag = getETag(entity);
+              if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+              }
+
+              return resolveReferences(entity)
+                  .map(
+                      resolved ->
+                          ResponseEntity.ok()
+                              .eTag(eTag)
+                              .body(selectFields(mapper.toDTO(resolved), selectedFields)));
+            });
+  }
+
+  /**
+   * Updates the entity by id from database.
+   *
+   * <p>When "If-Match" is sent, it must match the current version. A concurrent write between the
+   * read and the save is detected by the version and rejected, instead of being overwritten.
+   *
+   * @param id the entity id
+   * @param details the DTO with updates
+   * @param ifMatch the expected entity tag, optional
+   * @return the updated entity
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws PreconditionFailedException if "If-Match" does not match the current version
+   * @throws VersionConflictException if the entity was modified concurrently
+   */
+  @PutMapping("/{id}")
+  public Mono<ResponseEntity<D>> update(
+      @PathVariable String id,
+      @RequestBody @Valid D details,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+      throws ResourceNotFoundException, PreconditionFailedException, VersionConflictException {
+    return getEntityById(id)
+        .flatMap(
+            entity -> {
+              checkVersion(entity, ifMatch);
+              mapper.update(details, entity);
+
+              return beforeSave(List.of(entity)).then(Mono.defer(() -> repository.save(entity)));
+            })
+        .onErrorMap(
+            OptimisticLockingFailureException.class,
+            exception ->
+                new VersionConflictException(
+                    getGenericSimpleName() + " was modified concurrently", exception))
+        .doOnNext(entity -> afterSave(entity, false))
+        .flatMap(this::resolveReferences)
+        .map(entity -> ResponseEntity.ok().eTag(getETag(entity)).body(mapper.toDTO(entity)));
+  }
+
+  /**
+   * Partially updates the entity by id from database.
+   *
+   * <p>Only the fields sent (not null and, for collections, not empty) are written, with a single
+   * "$set" that also increments the version. When "If-Match" is sent, the update only applies to
+   * that version, so concurrent writers cannot silently overwrite each other.
+   *
+   * @param id the entity id
+   * @param details the DTO with the fields to update
+   * @param ifMatch the expected entity tag, optional
+   * @return the updated entity
+   * @throws InvalidFieldException if no field is sent or a sent field is invalid
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws PreconditionFailedException if "If-Match" does not match the current version
+   */
+  @PatchMapping("/{id}")
+  public Mono<ResponseEntity<D>> patch(
+      @PathVariable String id,
+      @RequestBody D details,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+      throws InvalidFieldException, ResourceNotFoundException, PreconditionFailedException {
+    Update update = getPatchUpdate(details);
+    Criteria criteria = getPatchCriteria(id, ifMatch);
+
+    return beforePatch(details, update)
+        .then(
+            Mono.defer(
+                () ->
+                    mongoTemplate.findAndModify(
+                        Query.query(criteria),
+                        update,
+                        FindAndModifyOptions.options().returnNew(true),
+                        controllerClass)))
+        .switchIfEmpty(
+            repository
+                .existsById(id)
+                .flatMap(
+                    exists ->
+                        Mono.error(
+                            exists
+                                ? new PreconditionFailedException(
+                                    getGenericSimpleName() + " version does not match")
+                                : notFound())))
+        .doOnNext(entity -> afterSave(entity, false))
+        .flatMap(this::resolveReferences)
+        .map(entity -> ResponseEntity.ok().eTag(getETag(entity)).body(mapper.toDTO(entity)));
+  }
+
+  /**
+   * Removes the entity by id from database.
+   *
+   * @param id the entity id
+   * @return the removed entity
+   * @throws ResourceNotFoundException if the entity is not found
+   */
+  @DeleteMapping("/{id}")
+  @ResponseStatus(HttpStatus.OK)
+  public Mono<D> remove(@PathVariable String id) throws ResourceNotFoundException {
+    return mongoTemplate
+        .findAndRemove(Query.query(Criteria.where("id").is(id)), controllerClass)
+        .switchIfEmpty(Mono.error(this::notFound))
+        .doOnNext(entity -> afterRemove(List.of(id)))
+        .flatMap(this::resolveReferences)
+        .map(mapper::toDTO);
+  }
+
+  /**
+   * Removes the entities by id from database with a single delete.
+   *
+   * <p>Ids not found are ignored, the result tells how many entities were removed. The delete does
+   * not tell which ones existed, so all the ids requested are handed to {@code afterRemove}, also
+   * the ones removed meanwhile by another request.
+   *
+   * @param ids the entities ids
+   * @return the number of entities requested and removed
+   * @throws BulkSizeExceededException if there are more than {@value #MAX_BULK_SIZE} ids
+   */
+  @DeleteMapping(params = "ids")
+  @ResponseStatus(HttpStatus.OK)
+  public Mono<BulkDeleteResultDTO> removeAll(@RequestParam List<String> ids)
+      throws BulkSizeExceededException {
+    Set<String> distinctIds = new LinkedHashSet<>(ids);
+    distinctIds.remove("");
+
+    checkBulkSize(distinctIds.size());
+
+    Mono<Long> deleted =
+        distinctIds.isEmpty()
+            ? Mono.just(0L)
+            : mongoTemplate
+                .remove(Query.query(Criteria.where("id").in(distinctIds)), controllerClass)
+                .map(DeleteResult::getDeletedCount)
+                .doOnNext(
+                    count -> {
+                      if (count > 0) {
+                        afterRemove(distinctIds);
+                      }
+                    });
+
+    return deleted.map(
+        count ->
+            BulkDeleteResultDTO.builder().requested(distinctIds.size()).deleted(count).build());
+  }
+
+  /**
+   * Gets the entity by id from database.
+   *
+   * @param id the entity id
+   * @return the saved entity, or an error if the entity is not found
+   */
+  protected Mono<E> getEntityById(String id) {
+    return repository.findById(id).switchIfEmpty(Mono.error(this::notFound));
+  }
+
+  /**
+   * Called before entities are created or updated, with the entities to save.
+   *
+   * <p>By default nothing is done.
+   *
+   * @param entities the entities to save, whose references only hold what the request sent
+   * @return the completion
+   */
+  protected Mono<Void> beforeSave(List<E> entities) {
+    return Mono.empty();
+  }
+
+  /**
+   * Called before an entity is partially updated, with the update of the fields sent.
+   *
+   * <p>By default nothing is done.
+   *
+   * @param details the DTO with the fields to update
+   * @param update the update, which can set more fields
+   * @return the completion
+   */
+  protected Mono<Void> beforePatch(D details, Update update) {
+    return Mono.empty();
+  }
+
+  /**
+   * Finds a page of entities.
+   *
+   * <p>By default the entities are found with the query, and their references are left to {@link
+   * #resolvePage(Flux, boolean)}.
+   *
+   * @param query the query of the page
+   * @return the entities, in query order
+   */
+  protected Flux<E> findPage(Query query) {
+    return mongoTemplate.find(query, controllerClass);
+  }
+
+  /**
+   * Resolves the references of a page of entities found by {@link #findPage(Query)}.
+   *
+   * <p>By default the page is resolved like any other read: only the versions of the references
+   * for the entity tag, all of them for the body.
+   *
+   * @param entities the entities of the page
+   * @param versionsOnly whether only the entity tag is built from the entities
+   * @return the entities with the references loaded from database, in the same order
+   */
+  protected Flux<E> resolvePage(Flux<E> entities, boolean versionsOnly) {
+    return versionsOnly ? resolveVersions(entities) : resolveReferences(entities);
+  }
+
+  /**
+   * Resolves the id and the version of the references of the entities, which is all their entity
+   * tag needs, so a read still tagged as not modified does not load the whole references.
+   *
+   * <p>By default there is nothing to resolve and the entities are returned as they are.
+   *
+   * @param entities the entities, whose references only hold the id
+   * @return the entities with the id and the version of the references, in the same order
+   */
+  protected Flux<E> resolveVersions(Flux<E> entities) {
+    return entities;
+  }
+
+  /**
+   * Resolves the id and the version of the references of an entity.
+   *
+   * @param entity the entity
+   * @return the entity with the id and the version of the references
+   * @see #resolveVersions(Flux)
+   */
+  protected Mono<E> resolveVersions(E entity) {
+    return resolveVersions(Flux.just(entity)).next();
+  }
+
+  /**
+   * Resolves the references of the entities, which only hold the id as read from database.
+   *
+   * <p>By default there is nothing to resolve and the entities are returned as they are.
+   *
+   * @param entities the entities
+   * @return the entities with the references loaded from database, in the same order
+   */
+  protected Flux<E> resolveReferences(Flux<E> entities) {
+    return entities;
+  }
+
+  /**
+   * Resolves the references of an entity.
+   *
+   * @param entity the entity
+   * @return the entity with the references loaded from database
+   * @see #resolveReferences(Flux)
+   */
+  protected Mono<E> resolveReferences(E entity) {
+    return resolveReferences(Flux.just(entity)).next();
+  }
+
+  /**
+   * Writes only the selected fields in the response.
+   *
+   * @param body the DTO or the DTOs
+   * @param selectedFields the selected fields, all of them when empty
+   * @return the body to write
+   */
+  private Object selectFields(Object body, Set<String> selectedFields) {
+    if (selectedFields.isEmpty()) {
+      return body;
+    }
+
+    var container = new MappingJacksonValue(body);
+    container.setFilters(JacksonConfig.fieldsFilter(dtoClass, selectedFields));
+
+    return container;
+  }
+
+  private ResourceNotFoundException notFound() {
+    return new ResourceNotFoundException(getGenericSimpleName() + " not found");
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.mavbraz.timemanager.controller.reactive;
+
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
+import com.github.mavbraz.timemanager.dto.PersonDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.mapper.PersonMapper;
+import com.github.mavbraz.timemanager.service.TaskReferenceCleaner;
+import com.github.mavbraz.timemanager.service.TaskSummaryUpdater;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reactive Rest Controller for path "/person".
+ *
+ * @see RestController
+ * @see RequestMapping
+ */
+@RestController
+@RequestMapping("/person")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonController
+    extends ReactiveBaseController<Person, PersonDTO, PersonMapper, ListQueryDTO> {
+
+  private final TaskSummaryUpdater summaryUpdater;
+  private final TaskReferenceCleaner referenceCleaner;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param repository the repository service
+   * @param mongoTemplate the template service
+   * @param personMapper the mapper service
+   * @param summaryUpdater the service of the summaries embedded in the tasks
+   * @param referenceCleaner the service that removes the deleted people from the tasks
+   */
+  @Autowired
+  public ReactivePersonController(
+      ReactiveMongoRepository<Person, String> repository,
+      ReactiveMongoTemplate mongoTemplate,
+      PersonMapper personMapper,
+      TaskSummaryUpdater summaryUpdater,
+      TaskReferenceCleaner referenceCleaner) {
+    super(repository, mongoTemplate, personMapper);
+    this.summaryUpdater = summaryUpdater;
+    this.referenceCleaner = referenceCleaner;
+  }
+
+  /**
+   * Updates the name of the person in the summaries embedded in its tasks, in background.
+   *
+   * @param entity the saved person
+   * @param created whether the person was created, so no task has it yet
+   */
+  @Override
+  protected void afterSave(Person entity, boolean created) {
+    if (!created) {
+      summaryUpdater.personRenamed(entity);
+    }
+  }
+
+  /**
+   * Removes the deleted people from their tasks, in background.
+   *
+   * @param ids the ids removed, or requested by a bulk delete, which are cleaned only if still
+   *     referenced
+   */
+  @Override
+  protected void afterRemove(Collection<String> ids) {
+    referenceCleaner.personsRemoved(ids);
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.mavbraz.timemanager.controller.reactive;
+
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
+import com.github.mavbraz.timemanager.dto.ProjectDTO;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.mapper.ProjectMapper;
+import com.github.mavbraz.timemanager.service.TaskReferenceCleaner;
+import com.github.mavbraz.timemanager.service.TaskSummaryUpdater;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reactive Rest Controller for path "/project".
+ *
+ * @see RestController
+ * @see RequestMapping
+ */
+@RestController
+@RequestMapping("/project")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProjectController
+    extends ReactiveBaseController<Project, ProjectDTO, ProjectMapper, ListQueryDTO> {
+
+  private final TaskSummaryUpdater summaryUpdater;
+  private final TaskReferenceCleaner referenceCleaner;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param repository the repository service
+   * @param mongoTemplate the template service
+   * @param projectMapper the mapper service
+   * @param summaryUpdater the service of the summaries embedded in the tasks
+   * @param referenceCleaner the service that removes the deleted projects from the tasks
+   */
+  @Autowired
+  public ReactiveProjectController(
+      ReactiveMongoRepository<Project, String> repository,
+      ReactiveMongoTemplate mongoTemplate,
+      ProjectMapper projectMapper,
+      TaskSummaryUpdater summaryUpdater,
+      TaskReferenceCleaner referenceCleaner) {
+    super(repository, mongoTemplate, projectMapper);
+    this.summaryUpdater = summaryUpdater;
+    this.referenceCleaner = referenceCleaner;
+  }
+
+  /**
+   * Updates the name of the project in the summaries embedded in its tasks, in background.
+   *
+   * @param entity the saved project
+   * @param created whether the project was created, so no task has it yet
+   */
+  @Override
+  protected void afterSave(Project entity, boolean created) {
+    if (!created) {
+      summaryUpdater.projectRenamed(entity);
+    }
+  }
+
+  /**
+   * Removes the deleted projects from their tasks, in background.
+   *
+   * @param ids the ids removed, or requested by a bulk delete, which are cleaned only if still
+   *     referenced
+   */
+  @Override
+  protected void afterRemove(Collection<String> ids) {
+    referenceCleaner.projectsRemoved(ids);
+  }
+}
@@ -0,0 +1,625 @@
+package com.github.mavbraz.timemanager.controller.reactive;
+
+import com.github.mavbraz.timemanager.configuration.ReferenceLoading;
+import com.github.mavbraz.timemanager.dto.BulkTransitionResultDTO;
+import com.github.mavbraz.timemanager.dto.TaskDTO;
+import com.github.mavbraz.timemanager.dto.TaskListQueryDTO;
+import com.github.mavbraz.timemanager.dto.TaskTransitionQueryDTO;
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.TaskEvent;
+import com.github.mavbraz.timemanager.entity.TaskSnapshot;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.exceptions.BulkSizeExceededException;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
+import com.github.mavbraz.timemanager.exceptions.TaskInvalidStatusException;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.github.mavbraz.timemanager.helper.TaskEventHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
+import com.github.mavbraz.timemanager.mapper.TaskMapper;
+import com.github.mavbraz.timemanager.service.TaskEventLog;
+import com.github.mavbraz.timemanager.service.WorkPeriodLog;
+import com.mongodb.client.model.WriteModel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+/**
+ * Reactive Rest Controller for path "/task".
+ *
+ * @see RestController
+ * @see RequestMapping
+ */
+@RestController
+@RequestMapping("/task")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskController
+    extends ReactiveBaseController<Task, TaskDTO, TaskMapper, TaskListQueryDTO> {
+
+  /** Tasks whose references are loaded together, with one query per referenced collection. */
+  private static final int REFERENCES_BATCH_SIZE = 100;
+
+  private final TaskEventLog eventLog;
+  private final WorkPeriodLog workPeriodLog;
+  private final ReferenceLoading referenceLoading;
+
+  /**
+   * Instantiates with the services and the properties autowired by Spring.
+   *
+   * @param repository the repository service
+   * @param mongoTemplate the template service
+   * @param taskMapper the mapper service
+   * @param eventLog the event log service
+   * @param workPeriodLog the work period log service
+   * @param referenceLoading how the references of the tasks read are loaded
+   */
+  @Autowired
+  public ReactiveTaskController(
+      ReactiveMongoRepository<Task, String> repository,
+      ReactiveMongoTemplate mongoTemplate,
+      TaskMapper taskMapper,
+      TaskEventLog eventLog,
+      WorkPeriodLog workPeriodLog,
+      @Value("${" + ReferenceLoading.PROPERTY + "}") ReferenceLoading referenceLoading) {
+    super(repository, mongoTemplate, taskMapper);
+    this.eventLog = eventLog;
+    this.workPeriodLog = workPeriodLog;
+    this.referenceLoading = referenceLoading;
+  }
+
+  /**
+   * Gets task as it was at a date, rebuilt from its last snapshot and the events after it.
+   *
+   * <p>Events are written in batches, so the latest writes may take a moment to show up. The
+   * contributors and the project are loaded as they are now, or with the names they had at the
+   * date when read from the summaries.
+   *
+   * @param id the entity id
+   * @param at the date
+   * @return the details at the date, or an error if the entity did not exist at the date
+   */
+  @GetMapping("/{id}/history")
+  @ResponseBody
+  public Mono<TaskDTO> getTaskAt(
+      @PathVariable String id,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+    MongoConverter converter = mongoTemplate.getConverter();
+
+    return mongoTemplate
+        .findOne(
+            TaskEventHelper.getSnapshotQuery(id, at, converter),
+            Document.class,
+            mongoTemplate.getCollectionName(TaskSnapshot.class))
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .flatMap(
+            snapshot ->
+                mongoTemplate
+                    .find(
+                        TaskEventHelper.getEventsQuery(
+                            id,
+                            snapshot.map(document -> document.getLong("version")).orElse(-1L),
+                            at,
+                            converter),
+                        Document.class,
+                        mongoTemplate.getCollectionName(TaskEvent.class))
+                    .collectList()
+                    .flatMap(
+                        events ->
+                            Mono.justOrEmpty(
+                                TaskEventHelper.replay(
+                                    snapshot
+                                        .map(document -> document.get("state", Document.class))
+                                        .orElse(null),
+                                    events))))
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new ResourceNotFoundException(getGenericSimpleName() + " not found at " + at)))
+        .map(state -> converter.read(Task.class, state))
+        .flatMap(this::resolveReferences)
+        .map(mapper::toDTO);
+  }
+
+  /**
+   * Starts task.
+   *
+   * <p>The status is checked and changed by a single conditional update, so concurrent requests
+   * cannot both start the task.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "NOT_STARTED"
+   */
+  @PostMapping("/{id}/start")
+  @ResponseBody
+  public Mono<TaskDTO> startTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.START);
+  }
+
+  /**
+   * Pauses task, closing the period being worked.
+   *
+   * <p>The period is appended to the intervals and its length added to the duration by the same
+   * conditional update that changes the status, and then added to the daily rollups and to the
+   * stored periods of the project and the contributors.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "STARTED"
+   */
+  @PostMapping("/{id}/pause")
+  @ResponseBody
+  public Mono<TaskDTO> pauseTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.PAUSE);
+  }
+
+  /**
+   * Resumes task, starting a new period worked.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "PAUSED"
+   */
+  @PostMapping("/{id}/resume")
+  @ResponseBody
+  public Mono<TaskDTO> resumeTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.RESUME);
+  }
+
+  /**
+   * Finishes task.
+   *
+   * <p>The status is checked and changed by a single conditional update, so concurrent requests
+   * cannot both finish the task. A started task gets its last period worked closed, which is then
+   * added to the daily rollups of the project and the contributors. A paused task only gets the
+   * status and the finish date, as its periods are already closed.
+   *
+   * @param id the entity id
+   * @return the saved details
+   * @throws ResourceNotFoundException if the entity is not found
+   * @throws TaskInvalidStatusException if status is not "STARTED" nor "PAUSED"
+   */
+  @PostMapping("/{id}/finish")
+  @ResponseBody
+  public Mono<TaskDTO> finishTask(@PathVariable String id)
+      throws ResourceNotFoundException, TaskInvalidStatusException {
+    return transition(id, Transition.FINISH, Transition.FINISH_PAUSED);
+  }
+
+  /**
+   * Starts the selected tasks with status "NOT_STARTED", with a single conditional update.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @return the ids of the tasks started and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   * @throws BulkSizeExceededException if more than {@value #MAX_BULK_SIZE} tasks are selected
+   */
+  @PostMapping("/start")
+  @ResponseBody
+  public Mono<BulkTransitionResultDTO> startTasks(TaskTransitionQueryDTO transitionQuery)
+      throws InvalidFieldException, BulkSizeExceededException {
+    return transitionAll(transitionQuery, Transition.START);
+  }
+
+  /**
+   * Finishes the selected tasks with status "STARTED" or "PAUSED", with a conditional update for
+   * each status.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @return the ids of the tasks finished and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   * @throws BulkSizeExceededException if more than {@value #MAX_BULK_SIZE} tasks are selected
+   */
+  @PostMapping("/finish")
+  @ResponseBody
+  public Mono<BulkTransitionResultDTO> finishTasks(TaskTransitionQueryDTO transitionQuery)
+      throws InvalidFieldException, BulkSizeExceededException {
+    return transitionAll(transitionQuery, Transition.FINISH, Transition.FINISH_PAUSED);
+  }
+
+  /**
+   * Changes the status of a task, only if it still has the expected status of one of the
+   * transitions, tried in order.
+   *
+   * @param id the entity id
+   * @param transitions the transitions, to the same status
+   * @return the saved details, or an error if the entity is not found or does not have any
+   *     expected status
+   */
+  private Mono<TaskDTO> transition(String id, Transition... transitions) {
+    return Flux.fromArray(transitions)
+        .concatMap(
+            transition ->
+                mongoTemplate
+                    .findAndModify(
+                        TaskHelper.getTransitionQuery(id, transition),
+                        TaskHelper.getTransitionUpdate(
+                            transition, TaskHelper.now(), mongoTemplate.getConverter()),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Task.class)
+                    .map(task -> Tuples.of(task, transition)))
+        .next()
+        .switchIfEmpty(
+            repository
+                .existsById(id)
+                .flatMap(
+                    exists ->
+                        Mono.error(
+                            exists
+                                ? new TaskInvalidStatusException(
+                                    transitions[0].getInvalidStatusReason())
+                                : new ResourceNotFoundException(
+                                    getGenericSimpleName() + " not found"))))
+        .flatMap(
+            transitioned -> {
+              Task task = transitioned.getT1();
+              Transition transition = transitioned.getT2();
+              eventLog.append(
+                  TaskEventHelper.getEventType(transition),
+                  id,
+                  TaskEventHelper.toState(task, mongoTemplate.getConverter()));
+
+              return addToRollups(
+                      RollupHelper.getRollupUpdates(
+                          task, transition, mongoTemplate.getConverter()))
+                  .doOnSuccess(
+                      written -> {
+                        if (transition.isClosingRun()) {
+                          workPeriodLog.append(task);
+                        }
+                      })
+                  .thenReturn(task);
+            })
+        .flatMap(this::resolveReferences)
+        .map(mapper::toDTO);
+  }
+
+  /**
+   * Changes the status of the selected tasks that have the expected status of one of the
+   * transitions, with a single "updateMany" for each transition, in order.
+   *
+   * <p>Every task changed by a transition is tagged with the id of its write, which tells them
+   * apart from the ones skipped, also from the ones changed meanwhile by other requests.
+   *
+   * @param transitionQuery the ids or the filters of the tasks
+   * @param transitions the transitions, to the same status
+   * @return the ids of the tasks changed and skipped
+   * @throws InvalidFieldException if neither ids nor filters are sent
+   */
+  private Mono<BulkTransitionResultDTO> transitionAll(
+      TaskTransitionQueryDTO transitionQuery, Transition... transitions)
+      throws InvalidFieldException {
+    Mono<List<String>> ids;
+
+    if (transitionQuery.getIds() != null && !transitionQuery.getIds().isEmpty()) {
+      Set<String> distinctIds = new LinkedHashSet<>(transitionQuery.getIds());
+      distinctIds.remove("");
+      ids = Mono.just(new ArrayList<>(distinctIds));
+    } else {
+      // Only the tasks with an expected status, the other ones are not reported
+      var candidatesQueries = new ArrayList<Query>();
+
+      for (Transition transition : transitions) {
+        candidatesQueries.add(
+            TaskHelper.getTransitionCandidatesQuery(
+                transitionQuery, transition, MAX_BULK_SIZE, mongoTemplate.getConverter()));
+      }
+
+      ids =
+          Flux.fromIterable(candidatesQueries)
+              .concatMap(candidatesQuery -> mongoTemplate.find(candidatesQuery, Task.class))
+              .map(Task::getId)
+              .distinct()
+              .collectList();
+    }
+
+    return ids.flatMap(
+        selectedIds -> {
+          checkBulkSize(selectedIds.size());
+
+          if (selectedIds.isEmpty()) {
+            return Mono.just(BulkTransitionResultDTO.builder().build());
+          }
+
+          Set<String> changed = new HashSet<>();
+
+          return Flux.fromArray(transitions)
+              .concatMap(transition -> transitionAll(selectedIds, transition, changed))
+              .then(Mono.fromSupplier(() -> TaskHelper.getTransitionResult(selectedIds, changed)));
+        });
+  }
+
+  /**
+   * Changes the status of the selected tasks that have the expected status, with a single
+   * "updateMany".
+   *
+   * @param ids the ids of the selected tasks
+   * @param transition the transition
+   * @param changed where the ids of the tasks changed are added
+   * @return completes when the tasks changed are recorded
+   */
+  private Mono<Void> transitionAll(List<String> ids, Transition transition, Set<String> changed) {
+    String bulkWriteId = TaskHelper.newBulkWriteId();
+
+    return mongoTemplate
+        .updateMulti(
+            TaskHelper.getTransitionQuery(ids, transition),
+            TaskHelper.getTransitionUpdate(
+                transition, TaskHelper.now(), bulkWriteId, mongoTemplate.getConverter()),
+            Task.class)
+        .thenMany(
+            mongoTemplate.aggregate(
+                TaskHelper.getBulkWrittenAggregation(ids, bulkWriteId), Document.class))
+        .doOnNext(task -> changed.add(task.get("_id").toString()))
+        .collectList()
+        .flatMap(
+            transitioned -> {
+              transitioned.forEach(
+                  task ->
+                      eventLog.append(
+                          TaskEventHelper.getEventType(transition),
+                          task.get("_id").toString(),
+                          task));
+
+              if (transition.isClosingRun()) {
+                transitioned.forEach(workPeriodLog::append);
+              }
+
+              return addToRollups(
+                  transitioned.stream()
+                      .flatMap(
+                          task ->
+                              RollupHelper.getRollupUpdates(
+                                  task, transition, mongoTemplate.getConverter())
+                                  .stream())
+                      .collect(Collectors.toList()));
+            });
+  }
+
+  /**
+   * Adds periods worked to the daily rollups of projects and people, with a single unordered bulk
+   * write of upserts.
+   *
+   * @param updates the rollup updates
+   * @return completes when written
+   */
+  private Mono<Void> addToRollups(List<WriteModel<Document>> updates) {
+    if (updates.isEmpty()) {
+      return Mono.empty();
+    }
+
+    return mongoTemplate
+        .execute(
+            TimeRollup.class,
+            collection -> collection.bulkWrite(updates, RollupHelper.WRITE_OPTIONS))
+        .then();
+  }
+
+  @Override
+  protected void afterSave(Task entity, boolean created) {
+    eventLog.append(
+        created ? TaskEventType.CREATED : TaskEventType.UPDATED,
+        entity.getId(),
+        TaskEventHelper.toState(entity, mongoTemplate.getConverter()));
+  }
+
+  /**
+   * Records the deletes in the event log, which drops the ones of tasks already recorded as
+   * deleted.
+   *
+   * @param ids the ids removed, or requested by a bulk delete
+   */
+  @Override
+  protected void afterRemove(Collection<String> ids) {
+    ids.forEach(id -> eventLog.append(TaskEventType.DELETED, id, null));
+  }
+
+  @Override
+  protected String getETag(Task entity) {
+    return TaskHelper.getETag(entity);
+  }
+
+  @Override
+  protected List<Criteria> getFilters(TaskListQueryDTO listQuery) {
+    return TaskHelper.getFilters(listQuery, mongoTemplate.getConverter());
+  }
+
+  /**
+   * Gets the fields that clients cannot write, including the ones only changed by the status
+   * transitions.
+   *
+   * @return the read only fields
+   */
+  @Override
+  protected Set<String> getReadOnlyFields() {
+    var readOnlyFields = new HashSet<>(super.getReadOnlyFields());
+    readOnlyFields.addAll(TaskHelper.STATUS_FIELDS);
+
+    return readOnlyFields;
+  }
+
+  /**
+   * Loads the contributors and the projects of the tasks saved, to store their summaries.
+   *
+   * @param entities the tasks to save, whose references only hold what the request sent
+   * @return the completion
+   */
+  @Override
+  protected Mono<Void> beforeSave(List<Task> entities) {
+    return loadReferences(entities, false)
+        .doOnSuccess(loaded -> TaskHelper.setSummaries(entities))
+        .then();
+  }
+
+  /**
+   * Loads the contributors or the project sent, to also update their summaries.
+   *
+   * @param details the DTO with the fields to update
+   * @param update the update, which also sets the summaries
+   * @return the completion
+   */
+  @Override
+  protected Mono<Void> beforePatch(TaskDTO details, Update update) {
+    if (!update.modifies("contributors") && !update.modifies("project")) {
+      return Mono.empty();
+    }
+
+    Task task = mapper.toEntity(details);
+
+    return loadReferences(List.of(task), false)
+        .doOnSuccess(loaded -> TaskHelper.addSummaryUpdates(update, task))
+        .then();
+  }
+
+  /**
+   * Finds a page of tasks with a single aggregation that also joins their contributors and project
+   * with "$lookup", when set by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param query the query of the page
+   * @return the tasks, with contributors and project when joined, in query order
+   */
+  @Override
+  protected Flux<Task> findPage(Query query) {
+    if (referenceLoading != ReferenceLoading.LOOKUP) {
+      return super.findPage(query);
+    }
+
+    MongoConverter converter = mongoTemplate.getConverter();
+
+    return mongoTemplate
+        .aggregate(TaskHelper.getLookupAggregation(query, converter), Document.class)
+        .collectList()
+        .flatMapIterable(documents -> TaskHelper.readJoinedTasks(documents, converter));
+  }
+
+  /**
+   * Reads the contributors and the project from the summaries of each batch of tasks, or loads
+   * them as set by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param entities the tasks, whose references only hold the id
+   * @return the tasks with contributors and project, in the same order
+   */
+  @Override
+  protected Flux<Task> resolveReferences(Flux<Task> entities) {
+    return entities
+        .buffer(REFERENCES_BATCH_SIZE)
+        .concatMap(batch -> resolveBatch(batch, false));
+  }
+
+  /**
+   * Leaves a page joined by "$lookup" as it is, as its references are read with the page.
+   *
+   * @param entities the tasks of the page
+   * @param versionsOnly whether only the entity tag is built from the tasks
+   * @return the tasks with contributors and project, in the same order
+   */
+  @Override
+  protected Flux<Task> resolvePage(Flux<Task> entities, boolean versionsOnly) {
+    if (referenceLoading == ReferenceLoading.LOOKUP) {
+      return entities;
+    }
+
+    return super.resolvePage(entities, versionsOnly);
+  }
+
+  /**
+   * Reads the contributors and the project from the summaries of each batch of tasks, or loads
+   * only their id and version, as set by the property {@value ReferenceLoading#PROPERTY}.
+   *
+   * @param entities the tasks, whose references only hold the id
+   * @return the tasks with the id and the version of contributors and project, in the same order
+   */
+  @Override
+  protected Flux<Task> resolveVersions(Flux<Task> entities) {
+    return entities.buffer(REFERENCES_BATCH_SIZE).concatMap(batch -> resolveBatch(batch, true));
+  }
+
+  private Flux<Task> resolveBatch(List<Task> tasks, boolean versionsOnly) {
+    List<Task> unresolved =
+        referenceLoading == ReferenceLoading.SUMMARY
+            ? TaskHelper.setReferencesFromSummaries(tasks)
+            : tasks;
+
+    return loadReferences(unresolved, versionsOnly).thenMany(Flux.fromIterable(tasks));
+  }
+
+  /**
+   * Loads the contributors and the projects of a batch of tasks with one query per collection,
+   * instead of one query per reference. Missing references are dropped, like the "@DBRef"
+   * resolution does.
+   *
+   * @param tasks the tasks, whose references only hold the id
+   * @param versionsOnly whether only the id and the version of the references are read
+   * @return the tasks with contributors and project loaded from database
+   */
+  private Mono<List<Task>> loadReferences(List<Task> tasks, boolean versionsOnly) {
+    if (tasks.isEmpty()) {
+      return Mono.just(tasks);
+    }
+
+    return Mono.zip(
+            findAllById(TaskHelper.getContributorIds(tasks), Person.class, versionsOnly),
+            findAllById(TaskHelper.getProjectIds(tasks), Project.class, versionsOnly))
+        .map(
+            references -> {
+              TaskHelper.setReferences(tasks, references.getT1(), references.getT2());
+
+              return tasks;
+            });
+  }
+
+  private <R extends BaseDocument> Mono<Map<String, R>> findAllById(
+      Set<String> ids, Class<R> entityClass, boolean versionsOnly) {
+    if (ids.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+
+    var query = Query.query(Criteria.where("id").in(ids));
+    if (versionsOnly) {
+      query.fields().include("version");
+    }
+
+    return mongoTemplate.find(query, entityClass).collectMap(BaseDocument::getId);
+  }
+}
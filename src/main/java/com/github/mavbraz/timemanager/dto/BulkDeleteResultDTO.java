@@ -0,0 +1,24 @@
+package com.github.mavbraz.timemanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for report the result of a bulk delete.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class BulkDeleteResultDTO {
+
+  /** Number of distinct ids in the request. */
+  private int requested;
+
+  /** Number of entities removed, ids not found are not counted. */
+  private long deleted;
+
+  public BulkDeleteResultDTO() {}
+}
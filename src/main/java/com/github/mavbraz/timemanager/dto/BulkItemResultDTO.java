@@ -0,0 +1,30 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class used for report the result of one item of a bulk operation.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResultDTO {
+
+  /** Position of the item in the request. */
+  private int index;
+
+  /** HTTP status code of the item. */
+  private int status;
+
+  private String id;
+
+  @Builder.Default private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class used for report the result of a bulk status transition.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkTransitionResultDTO {
+
+  /** Ids of the tasks changed by the transition. */
+  @Builder.Default private List<String> changed = new ArrayList<>();
+
+  /** Ids of the selected tasks not changed, as not found or with another status. */
+  @Builder.Default private List<String> skipped = new ArrayList<>();
+}
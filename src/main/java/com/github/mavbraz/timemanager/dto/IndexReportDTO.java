@@ -0,0 +1,36 @@
+package com.github.mavbraz.timemanager.dto;
+
+import com.github.mavbraz.timemanager.dto.enums.IndexUsageDTO;
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for report the usage of an index of a collection.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class IndexReportDTO {
+
+  private String collection;
+
+  private String name;
+
+  /** Fields of the index, in index order, with their direction or type. */
+  private Map<String, Object> keys;
+
+  private IndexUsageDTO usage;
+
+  /** Operations that used the index, none when missing. */
+  private Long accesses;
+
+  /** Date since the accesses are counted, when the index was built or the server started. */
+  private LocalDateTime since;
+
+  public IndexReportDTO() {}
+}
@@ -0,0 +1,38 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * DTO class used for bind the query parameters of list reads.
+ *
+ * <p>Pages are ordered by the sort property and then by "_id", and walked with an opaque cursor, so
+ * no read ever loads the whole collection.
+ *
+ * @see Data
+ */
+@Data
+public class ListQueryDTO {
+
+  /** Default page size when "limit" is absent. */
+  public static final int DEFAULT_LIMIT = 100;
+
+  /** Maximum page size accepted from clients. */
+  public static final int MAX_LIMIT = 1000;
+
+  @Min(1)
+  @Max(MAX_LIMIT)
+  private int limit = DEFAULT_LIMIT;
+
+  private String after;
+
+  /** Property to sort by, prefixed with "-" for descending order, "id" when absent. */
+  private String sort;
+
+  /** Fields of each entity to read and write, all of them when absent. */
+  private List<String> fields;
+
+  public ListQueryDTO() {}
+}
@@ -0,0 +1,36 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for report the progress of a migration.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class MigrationStatusDTO {
+
+  private int version;
+
+  private String description;
+
+  private String collection;
+
+  /** Documents migrated so far. */
+  private long migratedDocuments;
+
+  /** Date the first batch was migrated, none before. */
+  private LocalDateTime startedAt;
+
+  private LocalDateTime checkpointAt;
+
+  /** Date no document was left to migrate, none while pending. */
+  private LocalDateTime completedAt;
+
+  public MigrationStatusDTO() {}
+}
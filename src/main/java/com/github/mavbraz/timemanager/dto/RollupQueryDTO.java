@@ -0,0 +1,24 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.time.LocalDate;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * DTO class used for bind the query parameters of rollup reads.
+ *
+ * <p>The range of days includes the start and excludes the end, both are optional.
+ *
+ * @see Data
+ */
+@Data
+public class RollupQueryDTO {
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate from;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate to;
+
+  public RollupQueryDTO() {}
+}
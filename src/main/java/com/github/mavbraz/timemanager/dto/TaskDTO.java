@@ -10,8 +10,10 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PastOrPresent;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
 /**
@@ -23,6 +25,7 @@ import lombok.experimental.SuperBuilder;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder(toBuilder = true)
+@NoArgsConstructor
 public class TaskDTO extends BaseDTO {
 
   @NotBlank private String description;
@@ -36,8 +39,17 @@ public class TaskDTO extends BaseDTO {
   private LocalDateTime finishDate;
 
   @NotNull private TaskStatusDTO status;
+
+  /** Periods worked, each one closed by a pause or by the finish. */
+  @Builder.Default private List<WorkIntervalDTO> workIntervals = new ArrayList<>();
+
+  /** Time worked in the closed periods, in milliseconds. */
+  private long duration;
+
+  /** Start of the period being worked, only while the task has status "STARTED". */
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+  private LocalDateTime runStartDate;
+
   @NotEmpty @Valid private List<PersonDTO> contributors = new ArrayList<>();
   @NotNull @Valid private ProjectDTO project;
-
-  public TaskDTO() {}
 }
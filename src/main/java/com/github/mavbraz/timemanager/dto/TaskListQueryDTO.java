@@ -0,0 +1,42 @@
+package com.github.mavbraz.timemanager.dto;
+
+import com.github.mavbraz.timemanager.dto.enums.TaskStatusDTO;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * DTO class used for bind the query parameters of task list reads, including the filters.
+ *
+ * <p>Date ranges include the start and exclude the end.
+ *
+ * @see Data
+ * @see EqualsAndHashCode
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TaskListQueryDTO extends ListQueryDTO {
+
+  private TaskStatusDTO status;
+
+  /** Id of the project. */
+  private String project;
+
+  /** Id of one of the contributors. */
+  private String contributor;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime startDateFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime startDateTo;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime finishDateFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime finishDateTo;
+
+  public TaskListQueryDTO() {}
+}
@@ -0,0 +1,27 @@
+package com.github.mavbraz.timemanager.dto;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * DTO class used for bind the query parameters of bulk status transitions, which select the tasks
+ * by ids or by filters.
+ *
+ * <p>Only the selected tasks with the status expected by the transition are changed.
+ *
+ * @see Data
+ */
+@Data
+public class TaskTransitionQueryDTO {
+
+  /** Ids of the tasks. */
+  private List<String> ids;
+
+  /** Id of the project. */
+  private String project;
+
+  /** Id of one of the contributors. */
+  private String contributor;
+
+  public TaskTransitionQueryDTO() {}
+}
@@ -0,0 +1,29 @@
+package com.github.mavbraz.timemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for map the time worked in a day on a project or by a person.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class TimeRollupDTO {
+
+  @JsonFormat(pattern = "yyyy-MM-dd")
+  private LocalDate day;
+
+  /** Time worked in the day, in milliseconds. */
+  private long duration;
+
+  /** Tasks finished in the day. */
+  private long finishedTasks;
+
+  public TimeRollupDTO() {}
+}
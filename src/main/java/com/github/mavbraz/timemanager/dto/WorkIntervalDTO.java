@@ -0,0 +1,26 @@
+package com.github.mavbraz.timemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for map a period worked on a task.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkIntervalDTO {
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+  private LocalDateTime start;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+  private LocalDateTime finish;
+
+  public WorkIntervalDTO() {}
+}
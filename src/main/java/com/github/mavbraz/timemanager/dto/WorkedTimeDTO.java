@@ -0,0 +1,24 @@
+package com.github.mavbraz.timemanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO class used for report the time worked in a range of days on a project or by a person.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkedTimeDTO {
+
+  /** Time worked, in milliseconds. */
+  private long duration;
+
+  /** Periods worked. */
+  private long periods;
+
+  public WorkedTimeDTO() {}
+}
@@ -0,0 +1,16 @@
+package com.github.mavbraz.timemanager.dto.enums;
+
+/** Usage of an index, as counted by "$indexStats". */
+public enum IndexUsageDTO {
+  /** Declared and used since the accesses are counted. */
+  USED,
+
+  /** Declared but not used since the accesses are counted. */
+  UNUSED,
+
+  /** Declared but not in database, not built yet or failed. */
+  MISSING,
+
+  /** In database but not declared on the entity. */
+  UNDECLARED
+}
@@ -7,6 +7,7 @@ import lombok.Getter;
 public enum TaskStatusDTO {
   NOT_STARTED("NOT_STARTED"),
   STARTED("STARTED"),
+  PAUSED("PAUSED"),
   FINISHED("FINISHED");
 
   @JsonValue
@@ -0,0 +1,58 @@
+package com.github.mavbraz.timemanager.entity;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map the response of a write sent with an "Idempotency-Key", so a repeat
+ * of the request gets it again instead of redoing the write.
+ *
+ * <p>MongoDB removes the records {@value #EXPIRE_AFTER_SECONDS} seconds after they are created,
+ * with the TTL index on "createdAt".
+ *
+ * @see Document
+ * @see Indexed
+ * @see Data
+ */
+@Document("idempotency_keys")
+@Data
+@Builder
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+  /** Time a key is kept, clients must not repeat a request after it. */
+  public static final int EXPIRE_AFTER_SECONDS = 24 * 60 * 60;
+
+  /** The key sent by the client. */
+  @Id private String id;
+
+  /** Hash of the method, the path, the parameters and the body of the request. */
+  private String fingerprint;
+
+  /** Whether the response is stored, otherwise the request is still being processed. */
+  private boolean completed;
+
+  /**
+   * End of the lease of the request being processed, after it a repeat takes the key over if the
+   * response is not stored.
+   */
+  private LocalDateTime lockedUntil;
+
+  private int status;
+
+  /** Headers of the response that are replayed, such as "Content-Type" and "ETag". */
+  private Map<String, String> headers;
+
+  private byte[] body;
+
+  @Indexed(name = "createdAt_ttl", expireAfterSeconds = EXPIRE_AFTER_SECONDS)
+  private LocalDateTime createdAt;
+
+  public IdempotencyRecord() {}
+}
@@ -0,0 +1,48 @@
+package com.github.mavbraz.timemanager.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map the progress of a migration of the stored documents, one per version.
+ *
+ * <p>The documents are migrated in "_id" order, so a migration stopped continues after the last id
+ * recorded. The progress is recorded after each batch.
+ *
+ * @see Document
+ * @see Data
+ */
+@Document("migrations")
+@Data
+@Builder
+@AllArgsConstructor
+public class MigrationCheckpoint {
+
+  /** Version of the migration. */
+  @Id private int version;
+
+  private String description;
+
+  /** Collection migrated. */
+  private String collection;
+
+  /** Stored id of the last document of the last batch, none before the first batch of a pass. */
+  private Object lastId;
+
+  /** Documents migrated so far. */
+  private long migratedDocuments;
+
+  private LocalDateTime startedAt;
+
+  /** Date of the last batch migrated. */
+  private LocalDateTime checkpointAt;
+
+  /** Date no document was left to migrate, none while running. */
+  private LocalDateTime completedAt;
+
+  public MigrationCheckpoint() {}
+}
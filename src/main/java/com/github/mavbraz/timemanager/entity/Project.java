@@ -3,16 +3,19 @@ package com.github.mavbraz.timemanager.entity;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.SuperBuilder;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * Entity class used for map the Project.
  *
  * @see Document
+ * @see CompoundIndex
  * @see Data
  * @see EqualsAndHashCode
  */
 @Document
+@CompoundIndex(name = "name", def = "{'name': 1, '_id': 1}")
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder(toBuilder = true)
@@ -0,0 +1,43 @@
+package com.github.mavbraz.timemanager.entity;
+
+import com.github.mavbraz.timemanager.entity.enums.ReferenceType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map the removal of the references to a deleted person or project from the
+ * tasks, which is done in background and removed once no task has the reference.
+ *
+ * <p>Tasks cleaned no longer match, so the cleanup continues where it stopped when resumed. The
+ * progress is recorded after each batch.
+ *
+ * @see Document
+ * @see Data
+ */
+@Document("reference_cleanups")
+@Data
+@Builder
+@AllArgsConstructor
+public class ReferenceCleanup {
+
+  @Id private String id;
+
+  private ReferenceType type;
+
+  /** Id of the deleted person or project. */
+  private String reference;
+
+  /** Tasks cleaned so far. */
+  private long cleanedTasks;
+
+  private LocalDateTime createdAt;
+
+  /** Date of the last batch cleaned. */
+  private LocalDateTime checkpointAt;
+
+  public ReferenceCleanup() {}
+}
@@ -0,0 +1,27 @@
+package com.github.mavbraz.timemanager.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Class used for map the id and the name of a person or of a project referenced by a task, so the
+ * task can be read without loading them. Embedded in {@link Task}.
+ *
+ * <p>The id is stored as "id", as sent, instead of "_id".
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ReferenceSummary {
+
+  @Field("id")
+  private String id;
+
+  private String name;
+
+  public ReferenceSummary() {}
+}
@@ -4,32 +4,76 @@ import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
 import lombok.Singular;
 import lombok.experimental.SuperBuilder;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * Entity class used for map the Task.
  *
+ * <p>The indexes back the filters and sorts of task list reads, so that none of them scans the
+ * collection, and the updates of the summaries when a person or a project is renamed. The tasks
+ * changed by a bulk write are read back by its id, to record them in the event log.
+ *
  * @see Document
+ * @see CompoundIndex
  * @see Data
  * @see EqualsAndHashCode
  */
 @Document
+@CompoundIndex(name = "status_startDate", def = "{'status': 1, 'startDate': 1, '_id': 1}")
+@CompoundIndex(name = "status_finishDate", def = "{'status': 1, 'finishDate': 1, '_id': 1}")
+@CompoundIndex(name = "project_startDate", def = "{'project': 1, 'startDate': 1, '_id': 1}")
+@CompoundIndex(
+    name = "contributors_startDate",
+    def = "{'contributors': 1, 'startDate': 1, '_id': 1}")
+@CompoundIndex(name = "contributorSummaries_id", def = "{'contributorSummaries.id': 1}")
+@CompoundIndex(name = "projectSummary_id", def = "{'projectSummary.id': 1}")
+@CompoundIndex(name = "startDate", def = "{'startDate': 1, '_id': 1}")
+@CompoundIndex(name = "finishDate", def = "{'finishDate': 1, '_id': 1}")
+@CompoundIndex(name = "modifiedAt", def = "{'modifiedAt': 1, '_id': 1}")
+@CompoundIndex(name = "bulkWriteId", def = "{'bulkWriteId': 1}", sparse = true)
 @Data
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder(toBuilder = true)
+@NoArgsConstructor
 public class Task extends BaseDocument {
 
   private String description;
   private LocalDateTime startDate;
   private LocalDateTime finishDate;
   private TaskStatus status = TaskStatus.NOT_STARTED;
+
+  /** Periods worked, each one closed by a pause or by the finish. */
+  @Builder.Default private List<WorkInterval> workIntervals = new ArrayList<>();
+
+  /** Time worked in the closed periods, in milliseconds. */
+  private long duration;
+
+  /** Start of the period being worked, only while the task has status "STARTED". */
+  private LocalDateTime runStartDate;
+
+  /** Date of the last automatic finish of the task, none if never left started for too long. */
+  private LocalDateTime autoFinishDate;
+
+  /** Id of the last bulk write that changed the task, which tells the tasks it changed apart. */
+  private String bulkWriteId;
+
   @DBRef private List<Person> contributors = new ArrayList<>();
   @DBRef private Project project;
 
-  public Task() {}
+  /**
+   * Ids and names of the contributors, in the same order, none if written before they existed.
+   * The names follow the renames of the people, shortly after them.
+   */
+  private List<ReferenceSummary> contributorSummaries;
+
+  /** Id and name of the project, none if written before it existed or without project. */
+  private ReferenceSummary projectSummary;
 }
@@ -0,0 +1,50 @@
+package com.github.mavbraz.timemanager.entity;
+
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map a write of a task, in the append-only collection "task_events".
+ *
+ * <p>Events are only inserted, never updated nor removed, so they are not audited nor versioned.
+ * The index backs the replay of the events of a task after a snapshot, in version order.
+ *
+ * @see Document
+ * @see CompoundIndex
+ * @see Data
+ */
+@Document("task_events")
+@CompoundIndex(name = "taskId_version", def = "{'taskId': 1, 'version': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+public class TaskEvent {
+
+  @Id private String id;
+
+  /**
+   * Position of the event in the log, unique and increasing in the order the batches of events
+   * were written, across instances.
+   */
+  @Indexed(unique = true)
+  private long sequence;
+
+  private String taskId;
+  private TaskEventType type;
+  private LocalDateTime date;
+
+  /** Version of the task after the event, which orders its events, none after a delete. */
+  private Long version;
+
+  /** Fields written by the event as stored in the task, a null value is a removed field. */
+  private org.bson.Document changes;
+
+  public TaskEvent() {}
+}
@@ -0,0 +1,43 @@
+package com.github.mavbraz.timemanager.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map the whole state of a task after one of its events, in the collection
+ * "task_snapshots", so rebuilding a task only replays the events after it.
+ *
+ * <p>The index backs the read of the last snapshot of a task before a date, by version.
+ *
+ * @see Document
+ * @see CompoundIndex
+ * @see Data
+ */
+@Document("task_snapshots")
+@CompoundIndex(name = "taskId_version", def = "{'taskId': 1, 'version': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+public class TaskSnapshot {
+
+  @Id private String id;
+
+  /** Sequence of the event after which the snapshot was taken. */
+  private long sequence;
+
+  private String taskId;
+  private LocalDateTime date;
+
+  /** Version of the task in the snapshot, the events after it have a higher one. */
+  private long version;
+
+  /** Task as stored. */
+  private org.bson.Document state;
+
+  public TaskSnapshot() {}
+}
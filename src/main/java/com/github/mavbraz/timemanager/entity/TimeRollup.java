@@ -0,0 +1,48 @@
+package com.github.mavbraz.timemanager.entity;
+
+import com.github.mavbraz.timemanager.entity.enums.RollupDimension;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map the time worked in a day on a project or by a person.
+ *
+ * <p>Only incremented by the task transitions that close a period worked, with upserts, so it is
+ * not audited nor versioned. The unique index identifies the upserted document and backs the
+ * reads of a range of days.
+ *
+ * @see Document
+ * @see CompoundIndex
+ * @see Data
+ */
+@Document
+@CompoundIndex(
+    name = "dimension_reference_day",
+    def = "{'dimension': 1, 'reference': 1, 'day': 1}",
+    unique = true)
+@Data
+@Builder
+@AllArgsConstructor
+public class TimeRollup {
+
+  @Id private String id;
+  private RollupDimension dimension;
+
+  /** Id of the project or of the person. */
+  private String reference;
+
+  private LocalDate day;
+
+  /** Time worked in the day, in milliseconds. */
+  private long duration;
+
+  /** Tasks finished in the day. */
+  private long finishedTasks;
+
+  public TimeRollup() {}
+}
@@ -0,0 +1,23 @@
+package com.github.mavbraz.timemanager.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Class used for map a period worked on a task, from its start or resume until its pause or
+ * finish. Embedded in {@link Task}.
+ *
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkInterval {
+
+  private LocalDateTime start;
+  private LocalDateTime finish;
+
+  public WorkInterval() {}
+}
@@ -0,0 +1,46 @@
+package com.github.mavbraz.timemanager.entity;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entity class used for map a period worked on a project or by a person, stored in the time-series
+ * collection {@value #COLLECTION}.
+ *
+ * <p>A period closed by a task is stored once for its project and once for each contributor, with
+ * them as the metadata, so MongoDB stores the periods of each project and person together in
+ * compressed buckets by time. Only inserted, so it is not audited nor versioned.
+ *
+ * @see Document
+ * @see Data
+ */
+@Document(WorkPeriod.COLLECTION)
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkPeriod {
+
+  /** Name of the collection. */
+  public static final String COLLECTION = "work_periods";
+
+  @Id private String id;
+
+  /** Start of the period, the time field of the collection. */
+  private LocalDateTime start;
+
+  private LocalDateTime finish;
+
+  /** Time worked, in milliseconds. */
+  private long duration;
+
+  private String taskId;
+
+  /** Project or person of the period, the metadata field of the collection. */
+  private WorkPeriodMeta meta;
+
+  public WorkPeriod() {}
+}
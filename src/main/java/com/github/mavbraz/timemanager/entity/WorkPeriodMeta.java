@@ -0,0 +1,26 @@
+package com.github.mavbraz.timemanager.entity;
+
+import com.github.mavbraz.timemanager.entity.enums.RollupDimension;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Entity class used for map the project or the person a period was worked on or by, the metadata
+ * of the time-series collection of the periods.
+ *
+ * @see WorkPeriod
+ * @see Data
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class WorkPeriodMeta {
+
+  private RollupDimension dimension;
+
+  /** Id of the project or of the person. */
+  private String reference;
+
+  public WorkPeriodMeta() {}
+}
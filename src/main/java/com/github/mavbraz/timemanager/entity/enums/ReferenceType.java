@@ -0,0 +1,7 @@
+package com.github.mavbraz.timemanager.entity.enums;
+
+/** Kind of the entities referenced by the tasks. */
+public enum ReferenceType {
+  PERSON,
+  PROJECT
+}
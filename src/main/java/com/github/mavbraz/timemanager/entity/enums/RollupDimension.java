@@ -0,0 +1,7 @@
+package com.github.mavbraz.timemanager.entity.enums;
+
+/** What the time of a rollup is grouped by, besides the day. */
+public enum RollupDimension {
+  PROJECT,
+  PERSON
+}
@@ -0,0 +1,12 @@
+package com.github.mavbraz.timemanager.entity.enums;
+
+/** Writes of a task recorded in its event log. */
+public enum TaskEventType {
+  CREATED,
+  UPDATED,
+  STARTED,
+  PAUSED,
+  RESUMED,
+  FINISHED,
+  DELETED
+}
@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe a bulk request with more items than accepted.
+ *
+ * @see ResponseStatusException
+ */
+public class BulkSizeExceededException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.PAYLOAD_TOO_LARGE;
+
+  /** Instantiates a new Bulk size exceeded exception. */
+  public BulkSizeExceededException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Bulk size exceeded exception.
+   *
+   * @param reason the reason
+   */
+  public BulkSizeExceededException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Bulk size exceeded exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public BulkSizeExceededException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
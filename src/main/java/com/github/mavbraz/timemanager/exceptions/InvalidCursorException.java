@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe a pagination cursor that cannot be decoded.
+ *
+ * @see ResponseStatusException
+ */
+public class InvalidCursorException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.BAD_REQUEST;
+
+  /** Instantiates a new Invalid cursor exception. */
+  public InvalidCursorException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Invalid cursor exception.
+   *
+   * @param reason the reason
+   */
+  public InvalidCursorException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Invalid cursor exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public InvalidCursorException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
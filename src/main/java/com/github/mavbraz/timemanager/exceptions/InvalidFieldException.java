@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe request fields that are unknown or invalid.
+ *
+ * @see ResponseStatusException
+ */
+public class InvalidFieldException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.BAD_REQUEST;
+
+  /** Instantiates a new Invalid field exception. */
+  public InvalidFieldException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Invalid field exception.
+   *
+   * @param reason the reason
+   */
+  public InvalidFieldException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Invalid field exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public InvalidFieldException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe a request whose "If-Match" does not match the current version.
+ *
+ * @see ResponseStatusException
+ */
+public class PreconditionFailedException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.PRECONDITION_FAILED;
+
+  /** Instantiates a new Precondition failed exception. */
+  public PreconditionFailedException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Precondition failed exception.
+   *
+   * @param reason the reason
+   */
+  public PreconditionFailedException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Precondition failed exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public PreconditionFailedException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe list queries that no declared index supports.
+ *
+ * @see ResponseStatusException
+ */
+public class UnindexedQueryException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.BAD_REQUEST;
+
+  /** Instantiates a new Unindexed query exception. */
+  public UnindexedQueryException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Unindexed query exception.
+   *
+   * @param reason the reason
+   */
+  public UnindexedQueryException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Unindexed query exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public UnindexedQueryException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
@@ -0,0 +1,39 @@
+package com.github.mavbraz.timemanager.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception used for describe a write that lost a race against a concurrent one.
+ *
+ * @see ResponseStatusException
+ */
+public class VersionConflictException extends ResponseStatusException {
+
+  private static final HttpStatus HTTP_STATUS = HttpStatus.CONFLICT;
+
+  /** Instantiates a new Version conflict exception. */
+  public VersionConflictException() {
+    super(HTTP_STATUS);
+  }
+
+  /**
+   * Instantiates a new Version conflict exception.
+   *
+   * @param reason the reason
+   */
+  public VersionConflictException(String reason) {
+    super(HTTP_STATUS, reason);
+  }
+
+  /**
+   * Instantiates a new Version conflict exception.
+   *
+   * @param reason the reason
+   * @param cause the cause
+   * @see Throwable
+   */
+  public VersionConflictException(String reason, Throwable cause) {
+    super(HTTP_STATUS, reason, cause);
+  }
+}
@@ -0,0 +1,67 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.exceptions.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes and decodes the opaque cursors used by keyset pagination.
+ *
+ * <p>A cursor is the sort key of the last returned document, written as extended JSON (so BSON
+ * types such as {@link ObjectId} survive the round trip) and encoded as URL-safe Base64.
+ */
+public class CursorHelper {
+
+  /** Key of the document id inside a cursor. */
+  public static final String ID_KEY = "_id";
+
+  private CursorHelper() {}
+
+  /**
+   * Encodes the sort key into an opaque cursor.
+   *
+   * @param keys the sort key of the last returned document
+   * @return the cursor
+   */
+  public static String encode(Document keys) {
+    byte[] json = keys.toJson().getBytes(StandardCharsets.UTF_8);
+
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+  }
+
+  /**
+   * Decodes an opaque cursor into its sort key.
+   *
+   * @param cursor the cursor
+   * @return the sort key, always containing {@link #ID_KEY}
+   * @throws InvalidCursorException if the cursor is malformed
+   */
+  public static Document decode(String cursor) throws InvalidCursorException {
+    Document keys;
+
+    try {
+      byte[] json = Base64.getUrlDecoder().decode(cursor);
+      keys = Document.parse(new String(json, StandardCharsets.UTF_8));
+    } catch (RuntimeException exception) {
+      throw new InvalidCursorException("Invalid cursor", exception);
+    }
+
+    if (!keys.containsKey(ID_KEY)) {
+      throw new InvalidCursorException("Invalid cursor");
+    }
+
+    return keys;
+  }
+
+  /**
+   * Converts an entity id to the value MongoDB stores in "_id".
+   *
+   * @param id the entity id
+   * @return the {@link ObjectId} when the id is a valid one, otherwise the id itself
+   */
+  public static Object toStoredId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.exceptions.PreconditionFailedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Builds the entity tags sent in the header "ETag".
+ *
+ * <p>Values are returned unquoted, as expected by {@link
+ * org.springframework.web.context.request.WebRequest#checkNotModified(String)}. Tags of a single
+ * document always start with its version, so "If-Match" can be checked against the stored version
+ * without reading the document.
+ */
+public class ETagHelper {
+
+  private ETagHelper() {}
+
+  /**
+   * Builds the entity tag of a single document from its version.
+   *
+   * @param version the document version
+   * @return the entity tag
+   */
+  public static String of(long version) {
+    return String.valueOf(version);
+  }
+
+  /**
+   * Builds the entity tag of a single document from its version and the tags of what it embeds.
+   *
+   * @param version the document version
+   * @param parts the entity tag of each embedded part, in order
+   * @return the entity tag
+   */
+  public static String of(long version, Collection<String> parts) {
+    return of(version) + "-" + of(parts);
+  }
+
+  /**
+   * Reads the document version from the value of the header "If-Match".
+   *
+   * @param ifMatch the header value
+   * @return the version, or {@code null} if any version matches ("*")
+   * @throws PreconditionFailedException if the value is not a tag of a single document
+   */
+  public static Long toVersion(String ifMatch) throws PreconditionFailedException {
+    String eTag = ifMatch.trim();
+
+    if ("*".equals(eTag)) {
+      return null;
+    }
+
+    if (eTag.startsWith("W/")) {
+      eTag = eTag.substring(2);
+    }
+
+    eTag = eTag.replace("\"", "");
+    int separator = eTag.indexOf('-');
+
+    try {
+      return Long.parseLong(separator < 0 ? eTag : eTag.substring(0, separator));
+    } catch (NumberFormatException exception) {
+      throw new PreconditionFailedException("Invalid entity tag", exception);
+    }
+  }
+
+  /**
+   * Builds the entity tag of a representation made of many parts, like a list of documents.
+   *
+   * @param parts the entity tag of each part, in order
+   * @return the entity tag
+   */
+  public static String of(Collection<String> parts) {
+    String joined = String.join(";", parts);
+
+    return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,42 @@
+package com.github.mavbraz.timemanager.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Builds the fingerprint of a request sent with an "Idempotency-Key", which tells a repeat of the
+ * request apart from another request that reuses the key.
+ */
+public class IdempotencyHelper {
+
+  private IdempotencyHelper() {}
+
+  /**
+   * Builds the fingerprint of a request from its method, path, parameters and body. The order of
+   * the parameters does not matter.
+   *
+   * @param request the request
+   * @param body the body of the request, empty when its parameters are read from the body
+   * @return the fingerprint
+   */
+  public static String getFingerprint(HttpServletRequest request, byte[] body) {
+    var parameters = new TreeMap<String, String>();
+
+    for (Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+      parameters.put(parameter.getKey(), Arrays.toString(parameter.getValue()));
+    }
+
+    var content = new ByteArrayOutputStream();
+    content.writeBytes(
+        (request.getMethod() + "\n" + request.getRequestURI() + "\n" + parameters + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+    content.writeBytes(body);
+
+    return DigestUtils.md5DigestAsHex(content.toByteArray());
+  }
+}
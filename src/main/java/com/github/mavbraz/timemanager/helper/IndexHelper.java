@@ -0,0 +1,208 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.dto.IndexReportDTO;
+import com.github.mavbraz.timemanager.dto.enums.IndexUsageDTO;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Checks list queries against the indexes declared on entities, and reports the usage of the
+ * indexes.
+ *
+ * <p>A query is supported when it cannot turn into a collection scan or into a sort in memory of
+ * the whole collection:
+ *
+ * <ul>
+ *   <li>sorted by "_id", a declared index starts with one of its filters, unless it has no filter
+ *   <li>sorted by another field, a declared index has the field, followed by "_id", right after
+ *       fields with equality filters, and the index is bounded by a filter unless it has no filter
+ * </ul>
+ */
+public class IndexHelper {
+
+  /** Name of the document id field, which is always indexed. */
+  public static final String ID_FIELD = "_id";
+
+  /** Keys of the index of the document id, which is not declared. */
+  private static final String ID_KEYS = new Document(ID_FIELD, 1).toJson();
+
+  private IndexHelper() {}
+
+  /**
+   * Gets the keys of the indexes declared on an entity, in index order.
+   *
+   * <p>Includes the "_id" index, the compound indexes and the single field indexes.
+   *
+   * @param entityClass the entity class
+   * @return the keys of each index
+   */
+  public static List<List<String>> getIndexes(Class<?> entityClass) {
+    List<List<String>> indexes = new ArrayList<>();
+    indexes.add(List.of(ID_FIELD));
+
+    for (CompoundIndex index : entityClass.getAnnotationsByType(CompoundIndex.class)) {
+      indexes.add(new ArrayList<>(Document.parse(index.def()).keySet()));
+    }
+
+    ReflectionUtils.doWithFields(
+        entityClass,
+        field -> indexes.add(List.of(field.getName())),
+        field -> field.isAnnotationPresent(Indexed.class));
+
+    return indexes;
+  }
+
+  /**
+   * Checks if a query is supported by the indexes.
+   *
+   * @param indexes the keys of each index
+   * @param equalityFields the fields filtered by equality
+   * @param rangeFields the fields filtered by range
+   * @param sortField the field sorted by, before "_id"
+   * @return {@code true} if the query is supported
+   */
+  public static boolean isSupported(
+      List<List<String>> indexes,
+      Collection<String> equalityFields,
+      Collection<String> rangeFields,
+      String sortField) {
+    boolean filtered = !equalityFields.isEmpty() || !rangeFields.isEmpty();
+
+    if (ID_FIELD.equals(sortField)) {
+      return !filtered
+          || indexes.stream()
+              .map(index -> index.get(0))
+              .anyMatch(key -> equalityFields.contains(key) || rangeFields.contains(key));
+    }
+
+    return indexes.stream()
+        .anyMatch(index -> sorts(index, equalityFields, rangeFields, filtered, sortField));
+  }
+
+  /**
+   * Builds the usage report of the indexes of a collection, comparing the indexes declared on its
+   * entity with the ones in database. Indexes are matched by their keys, as names may differ.
+   *
+   * @param collection the collection
+   * @param declared the indexes declared on the entity
+   * @param stats the result of "$indexStats" on the collection
+   * @return the report of each index in database, followed by the declared ones missing
+   */
+  public static List<IndexReportDTO> getIndexReport(
+      String collection, Collection<? extends IndexDefinition> declared, List<Document> stats) {
+    var missing = new LinkedHashMap<String, IndexDefinition>();
+    declared.forEach(index -> missing.put(normalize(index.getIndexKeys()).toJson(), index));
+    var report = new ArrayList<IndexReportDTO>();
+
+    for (Document stat : stats) {
+      Document keys = normalize(stat.get("key", Document.class));
+      Document accesses = stat.get("accesses", Document.class);
+      long operations = ((Number) accesses.get("ops")).longValue();
+      boolean isDeclared = missing.remove(keys.toJson()) != null || ID_KEYS.equals(keys.toJson());
+
+      report.add(
+          IndexReportDTO.builder()
+              .collection(collection)
+              .name(stat.getString("name"))
+              .keys(keys)
+              .usage(
+                  !isDeclared
+                      ? IndexUsageDTO.UNDECLARED
+                      : operations > 0 ? IndexUsageDTO.USED : IndexUsageDTO.UNUSED)
+              .accesses(operations)
+              .since(
+                  LocalDateTime.ofInstant(
+                      accesses.getDate("since").toInstant(), ZoneId.systemDefault()))
+              .build());
+    }
+
+    missing.forEach(
+        (keys, index) ->
+            report.add(
+                IndexReportDTO.builder()
+                    .collection(collection)
+                    .name(index.getIndexOptions().getString("name"))
+                    .keys(Document.parse(keys))
+                    .usage(IndexUsageDTO.MISSING)
+                    .build()));
+
+    return report;
+  }
+
+  /**
+   * Tells if the writes depend on an index to be correct, and not only fast: the unique indexes,
+   * which reject duplicates, and the TTL ones, which remove the expired documents.
+   *
+   * @param index the index
+   * @return whether the index is required
+   */
+  public static boolean isRequired(IndexDefinition index) {
+    Document options = index.getIndexOptions();
+
+    return Boolean.TRUE.equals(options.get("unique")) || options.containsKey("expireAfterSeconds");
+  }
+
+  /**
+   * Gets an index to build in background, so servers before MongoDB 4.2 do not lock the collection
+   * while building it. Later servers ignore the option, as they only lock it briefly.
+   *
+   * @param index the index
+   * @return the index with the option "background"
+   */
+  public static IndexDefinition inBackground(IndexDefinition index) {
+    Document options = new Document(index.getIndexOptions()).append("background", true);
+
+    return new IndexDefinition() {
+      @Override
+      public Document getIndexKeys() {
+        return index.getIndexKeys();
+      }
+
+      @Override
+      public Document getIndexOptions() {
+        return options;
+      }
+    };
+  }
+
+  /** Writes the directions as integers, which the server may return as doubles. */
+  private static Document normalize(Document keys) {
+    var normalized = new Document();
+    keys.forEach(
+        (field, value) ->
+            normalized.append(
+                field, value instanceof Number ? ((Number) value).intValue() : value));
+
+    return normalized;
+  }
+
+  private static boolean sorts(
+      List<String> index,
+      Collection<String> equalityFields,
+      Collection<String> rangeFields,
+      boolean filtered,
+      String sortField) {
+    for (int i = 0; i < index.size() - 1; i++) {
+      if (index.get(i).equals(sortField)) {
+        boolean bounded = !filtered || i > 0 || rangeFields.contains(sortField);
+
+        return bounded && ID_FIELD.equals(index.get(i + 1));
+      }
+
+      if (!equalityFields.contains(index.get(i))) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+}
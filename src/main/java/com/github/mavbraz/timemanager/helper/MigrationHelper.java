@@ -0,0 +1,136 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Migration logic of the stored documents, which does not access the database.
+ *
+ * <p>Documents are read and written without mapping, so each migration sees the stored shape, old
+ * or new. Each write only matches the document if it did not change since read, so the writes of
+ * the requests always win, and a document skipped that way is migrated by a later pass if still
+ * pending.
+ */
+public class MigrationHelper {
+
+  /** Options of the migration writes, which are independent of each other. */
+  public static final BulkWriteOptions WRITE_OPTIONS = new BulkWriteOptions().ordered(false);
+
+  private MigrationHelper() {}
+
+  /**
+   * Builds the query of the next batch of documents to migrate, in "_id" order.
+   *
+   * @param pending the criteria of the documents still in the old shape, with stored field names
+   * @param lastId the stored id of the last document of the previous batch, or none for the first
+   * @param batchSize the documents of the batch
+   * @return the query
+   */
+  public static Query getBatchQuery(Criteria pending, Object lastId, int batchSize) {
+    var query = Query.query(pending).with(Sort.by("_id")).limit(batchSize);
+
+    if (lastId != null) {
+      query.addCriteria(Criteria.where("_id").gt(lastId));
+    }
+
+    return query;
+  }
+
+  /**
+   * Builds the filter of a migration write, which only matches the document if its version did
+   * not change since read.
+   *
+   * @param document the stored document, as read
+   * @return the filter
+   */
+  public static Document getGuard(Document document) {
+    var filter = new Document("_id", document.get("_id"));
+
+    // Documents written before the versions existed only match while they still have none
+    return document.containsKey("version")
+        ? filter.append("version", document.get("version"))
+        : filter.append("version", new Document("$exists", false));
+  }
+
+  /**
+   * Gets the pause after a batch, so the migration runs at most half the time when the requests
+   * slow the database down.
+   *
+   * @param batchDelay the minimum pause
+   * @param batchTime the time the batch took
+   * @return the longer of both
+   */
+  public static Duration getPause(Duration batchDelay, Duration batchTime) {
+    return batchTime.compareTo(batchDelay) > 0 ? batchTime : batchDelay;
+  }
+
+  /**
+   * Builds the update of a task written before the periods worked existed, which only has the
+   * start and the finish dates. A finished task gets a single period, from the start to the
+   * finish, and a started one its start date as the start of the period being worked.
+   *
+   * <p>The version is incremented, as the time worked read changes, and the task is tagged with
+   * the bulk write, so it is read back to be recorded in the event log.
+   *
+   * @param task the stored task, without "workIntervals"
+   * @param bulkWriteId the id of the bulk write
+   * @return the update
+   */
+  public static WriteModel<Document> getWorkIntervalsUpdate(Document task, String bulkWriteId) {
+    Date start = task.getDate("startDate");
+    Date finish = task.getDate("finishDate");
+    String status = task.getString("status");
+    var values = new Document(TaskHelper.BULK_WRITE_FIELD, bulkWriteId);
+
+    if (TaskStatus.FINISHED.name().equals(status) && start != null && finish != null) {
+      values
+          .append("workIntervals", List.of(new Document("start", start).append("finish", finish)))
+          .append("duration", finish.getTime() - start.getTime());
+    } else {
+      values.append("workIntervals", List.of()).append("duration", 0L);
+    }
+
+    if (TaskStatus.STARTED.name().equals(status)
+        && start != null
+        && task.get("runStartDate") == null) {
+      values.append("runStartDate", start);
+    }
+
+    return new UpdateOneModel<>(
+        getGuard(task), new Document("$set", values).append("$inc", new Document("version", 1L)));
+  }
+
+  /**
+   * Builds the update of a task written before the summaries existed, which sets them.
+   *
+   * <p>The version is not incremented, as the task read does not change.
+   *
+   * @param document the stored task, without "contributorSummaries"
+   * @param task the task read from it, with its summaries set
+   * @param converter the converter, which writes the summaries as a save does
+   * @return the update
+   */
+  public static WriteModel<Document> getSummariesUpdate(
+      Document document, Task task, MongoConverter converter) {
+    var values =
+        new Document(
+            "contributorSummaries", converter.convertToMongoType(task.getContributorSummaries()));
+
+    if (task.getProjectSummary() != null) {
+      values.append("projectSummary", converter.convertToMongoType(task.getProjectSummary()));
+    }
+
+    return new UpdateOneModel<>(getGuard(document), new Document("$set", values));
+  }
+}
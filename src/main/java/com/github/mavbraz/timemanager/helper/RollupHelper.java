@@ -0,0 +1,410 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.dto.RollupQueryDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.WorkInterval;
+import com.github.mavbraz.timemanager.entity.WorkPeriod;
+import com.github.mavbraz.timemanager.entity.WorkPeriodMeta;
+import com.github.mavbraz.timemanager.entity.enums.RollupDimension;
+import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Rollup logic shared by the servlet and the reactive controllers, which does not access the
+ * database.
+ *
+ * <p>A period worked is split by day, and each day is added to the rollup of the project and of
+ * each contributor of the task. The finish day also counts the task as finished. The period is
+ * also stored whole, once for the project and once for each contributor, in the time-series
+ * collection of the periods.
+ */
+public class RollupHelper {
+
+  /** Options of the rollup writes, which are independent of each other. */
+  public static final BulkWriteOptions WRITE_OPTIONS = new BulkWriteOptions().ordered(false);
+
+  private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+  private RollupHelper() {}
+
+  /**
+   * Builds the rollup updates of the last period worked of a task.
+   *
+   * @param task the task, whose references hold at least the id
+   * @param finished whether the period was closed by the finish of the task
+   * @param converter the converter, which writes the day as a save does
+   * @return the updates, empty if the task has no period worked
+   */
+  public static List<WriteModel<Document>> getRollupUpdates(
+      Task task, boolean finished, MongoConverter converter) {
+    if (task.getWorkIntervals() == null || task.getWorkIntervals().isEmpty()) {
+      return List.of();
+    }
+
+    return getRollupUpdates(
+        task.getProject() == null ? null : task.getProject().getId(),
+        getContributorIds(task),
+        task.getWorkIntervals().get(task.getWorkIntervals().size() - 1),
+        finished,
+        converter);
+  }
+
+  /**
+   * Builds the rollup updates of the last period worked of a task read without mapping, so its
+   * references are not loaded.
+   *
+   * @param task the stored task, with the project, the contributors and the intervals
+   * @param finished whether the period was closed by the finish of the task
+   * @param converter the converter, which reads the interval and writes the day as a save does
+   * @return the updates, empty if the task has no period worked
+   */
+  public static List<WriteModel<Document>> getRollupUpdates(
+      Document task, boolean finished, MongoConverter converter) {
+    List<Document> intervals = task.getList("workIntervals", Document.class, List.of());
+
+    if (intervals.isEmpty()) {
+      return List.of();
+    }
+
+    return getRollupUpdates(
+        getProjectId(task),
+        getContributorIds(task),
+        converter.read(WorkInterval.class, intervals.get(intervals.size() - 1)),
+        finished,
+        converter);
+  }
+
+  /**
+   * Builds the rollup updates of a status transition of a task: the last period worked when the
+   * transition closed it, or only the count of the finished task on its finish day when it
+   * finished a paused task.
+   *
+   * @param task the task after the transition, whose references hold at least the id
+   * @param transition the transition
+   * @param converter the converter, which writes the day as a save does
+   * @return the updates, empty if the transition does not change the rollups
+   */
+  public static List<WriteModel<Document>> getRollupUpdates(
+      Task task, Transition transition, MongoConverter converter) {
+    if (transition.isClosingRun()) {
+      return getRollupUpdates(task, transition.getTo() == TaskStatus.FINISHED, converter);
+    }
+
+    if (transition.getTo() != TaskStatus.FINISHED || task.getFinishDate() == null) {
+      return List.of();
+    }
+
+    return getFinishedUpdates(
+        task.getProject() == null ? null : task.getProject().getId(),
+        getContributorIds(task),
+        task.getFinishDate().toLocalDate(),
+        converter);
+  }
+
+  /**
+   * Builds the rollup updates of a status transition of a task read without mapping, so its
+   * references are not loaded.
+   *
+   * @param task the stored task after the transition
+   * @param transition the transition
+   * @param converter the converter, which reads the dates and writes the day as a save does
+   * @return the updates, empty if the transition does not change the rollups
+   * @see #getRollupUpdates(Task, Transition, MongoConverter)
+   */
+  public static List<WriteModel<Document>> getRollupUpdates(
+      Document task, Transition transition, MongoConverter converter) {
+    if (transition.isClosingRun()) {
+      return getRollupUpdates(task, transition.getTo() == TaskStatus.FINISHED, converter);
+    }
+
+    if (transition.getTo() != TaskStatus.FINISHED || task.getDate("finishDate") == null) {
+      return List.of();
+    }
+
+    return getFinishedUpdates(
+        getProjectId(task),
+        getContributorIds(task),
+        converter
+            .getConversionService()
+            .convert(task.getDate("finishDate"), LocalDateTime.class)
+            .toLocalDate(),
+        converter);
+  }
+
+  /**
+   * Builds the periods stored for the last period worked of a task, one for the project and one
+   * for each contributor.
+   *
+   * @param task the task, whose references hold at least the id
+   * @return the periods, empty if the task has no period worked
+   */
+  public static List<WorkPeriod> getWorkPeriods(Task task) {
+    if (task.getWorkIntervals() == null || task.getWorkIntervals().isEmpty()) {
+      return List.of();
+    }
+
+    return getWorkPeriods(
+        task.getId(),
+        task.getProject() == null ? null : task.getProject().getId(),
+        getContributorIds(task),
+        task.getWorkIntervals().get(task.getWorkIntervals().size() - 1));
+  }
+
+  /**
+   * Builds the periods stored for the last period worked of a task read without mapping, one for
+   * the project and one for each contributor.
+   *
+   * @param task the stored task, with the id, the project, the contributors and the intervals
+   * @param converter the converter, which reads the interval
+   * @return the periods, empty if the task has no period worked
+   */
+  public static List<WorkPeriod> getWorkPeriods(Document task, MongoConverter converter) {
+    List<Document> intervals = task.getList("workIntervals", Document.class, List.of());
+
+    if (intervals.isEmpty()) {
+      return List.of();
+    }
+
+    return getWorkPeriods(
+        task.get("_id").toString(),
+        getProjectId(task),
+        getContributorIds(task),
+        converter.read(WorkInterval.class, intervals.get(intervals.size() - 1)));
+  }
+
+  /**
+   * Builds the aggregation of the time worked on a project or by a person in a range of days, from
+   * the periods stored. Periods count in the day they started.
+   *
+   * @param dimension the dimension
+   * @param reference the id of the project or of the person
+   * @param rollupQuery the range of days
+   * @return the aggregation, with a single result unless no period matches
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  public static TypedAggregation<WorkPeriod> getWorkedTimeAggregation(
+      RollupDimension dimension, String reference, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    checkRange(rollupQuery);
+
+    var criteria =
+        Criteria.where("meta.dimension").is(dimension).and("meta.reference").is(reference);
+
+    if (rollupQuery.getFrom() != null || rollupQuery.getTo() != null) {
+      var start = criteria.and("start");
+
+      if (rollupQuery.getFrom() != null) {
+        start.gte(rollupQuery.getFrom().atStartOfDay());
+      }
+
+      if (rollupQuery.getTo() != null) {
+        start.lt(rollupQuery.getTo().atStartOfDay());
+      }
+    }
+
+    return Aggregation.newAggregation(
+        WorkPeriod.class,
+        Aggregation.match(criteria),
+        Aggregation.group().sum("duration").as("duration").count().as("periods"));
+  }
+
+  /**
+   * Builds the query of the rollups of a project or of a person, sorted by day.
+   *
+   * @param dimension the dimension
+   * @param reference the id of the project or of the person
+   * @param rollupQuery the range of days
+   * @return the query
+   * @throws InvalidFieldException if the range ends before it starts
+   */
+  public static Query getRollupQuery(
+      RollupDimension dimension, String reference, RollupQueryDTO rollupQuery)
+      throws InvalidFieldException {
+    checkRange(rollupQuery);
+
+    var criteria = Criteria.where("dimension").is(dimension).and("reference").is(reference);
+
+    if (rollupQuery.getFrom() != null || rollupQuery.getTo() != null) {
+      var day = criteria.and("day");
+
+      if (rollupQuery.getFrom() != null) {
+        day.gte(rollupQuery.getFrom());
+      }
+
+      if (rollupQuery.getTo() != null) {
+        day.lt(rollupQuery.getTo());
+      }
+    }
+
+    return Query.query(criteria).with(Sort.by("day"));
+  }
+
+  /**
+   * Splits a period worked by day.
+   *
+   * @param interval the period worked
+   * @return the milliseconds worked in each day, in order
+   */
+  public static Map<LocalDate, Long> getDurationsByDay(WorkInterval interval) {
+    var durations = new LinkedHashMap<LocalDate, Long>();
+    LocalDateTime start = interval.getStart();
+
+    while (start.toLocalDate().isBefore(interval.getFinish().toLocalDate())) {
+      LocalDateTime nextDay = start.toLocalDate().plusDays(1).atStartOfDay();
+      durations.put(start.toLocalDate(), Duration.between(start, nextDay).toMillis());
+      start = nextDay;
+    }
+
+    durations.put(start.toLocalDate(), Duration.between(start, interval.getFinish()).toMillis());
+
+    return durations;
+  }
+
+  private static void checkRange(RollupQueryDTO rollupQuery) throws InvalidFieldException {
+    if (rollupQuery.getFrom() != null
+        && rollupQuery.getTo() != null
+        && rollupQuery.getTo().isBefore(rollupQuery.getFrom())) {
+      throw new InvalidFieldException("\"to\" must not be before \"from\"");
+    }
+  }
+
+  private static List<String> getContributorIds(Task task) {
+    return task.getContributors().stream()
+        .filter(Objects::nonNull)
+        .map(Person::getId)
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> getContributorIds(Document task) {
+    return task.getList("contributors", DBRef.class, List.of()).stream()
+        .filter(Objects::nonNull)
+        .map(reference -> reference.getId().toString())
+        .collect(Collectors.toList());
+  }
+
+  private static String getProjectId(Document task) {
+    DBRef project = task.get("project", DBRef.class);
+
+    return project == null ? null : project.getId().toString();
+  }
+
+  private static List<WorkPeriod> getWorkPeriods(
+      String taskId, String project, Collection<String> contributors, WorkInterval interval) {
+    if (interval.getStart() == null || interval.getFinish() == null) {
+      return List.of();
+    }
+
+    var periods = new ArrayList<WorkPeriod>();
+
+    if (project != null) {
+      periods.add(getWorkPeriod(taskId, RollupDimension.PROJECT, project, interval));
+    }
+
+    for (String person : new LinkedHashSet<>(contributors)) {
+      periods.add(getWorkPeriod(taskId, RollupDimension.PERSON, person, interval));
+    }
+
+    return periods;
+  }
+
+  private static WorkPeriod getWorkPeriod(
+      String taskId, RollupDimension dimension, String reference, WorkInterval interval) {
+    return WorkPeriod.builder()
+        .start(interval.getStart())
+        .finish(interval.getFinish())
+        .duration(Duration.between(interval.getStart(), interval.getFinish()).toMillis())
+        .taskId(taskId)
+        .meta(WorkPeriodMeta.builder().dimension(dimension).reference(reference).build())
+        .build();
+  }
+
+  private static List<WriteModel<Document>> getRollupUpdates(
+      String project,
+      Collection<String> contributors,
+      WorkInterval interval,
+      boolean finished,
+      MongoConverter converter) {
+    if (interval.getStart() == null || interval.getFinish() == null) {
+      return List.of();
+    }
+
+    Map<LocalDate, Long> durations = getDurationsByDay(interval);
+    LocalDate finishDay = finished ? interval.getFinish().toLocalDate() : null;
+    var updates = new ArrayList<WriteModel<Document>>();
+
+    if (project != null) {
+      addUpdates(updates, RollupDimension.PROJECT, project, durations, finishDay, converter);
+    }
+
+    for (String person : new LinkedHashSet<>(contributors)) {
+      addUpdates(updates, RollupDimension.PERSON, person, durations, finishDay, converter);
+    }
+
+    return updates;
+  }
+
+  /** Only counts the task as finished, as its periods worked are already in the rollups. */
+  private static List<WriteModel<Document>> getFinishedUpdates(
+      String project, Collection<String> contributors, LocalDate day, MongoConverter converter) {
+    Map<LocalDate, Long> durations = Map.of(day, 0L);
+    var updates = new ArrayList<WriteModel<Document>>();
+
+    if (project != null) {
+      addUpdates(updates, RollupDimension.PROJECT, project, durations, day, converter);
+    }
+
+    for (String person : new LinkedHashSet<>(contributors)) {
+      addUpdates(updates, RollupDimension.PERSON, person, durations, day, converter);
+    }
+
+    return updates;
+  }
+
+  private static void addUpdates(
+      List<WriteModel<Document>> updates,
+      RollupDimension dimension,
+      String reference,
+      Map<LocalDate, Long> durations,
+      LocalDate finishDay,
+      MongoConverter converter) {
+    durations.forEach(
+        (day, duration) -> {
+          var filter =
+              new Document("dimension", dimension.name())
+                  .append("reference", reference)
+                  .append("day", converter.convertToMongoType(day));
+          var increments = new Document("duration", duration);
+
+          if (day.equals(finishDay)) {
+            increments.append("finishedTasks", 1L);
+          }
+
+          updates.add(new UpdateOneModel<>(filter, new Document("$inc", increments), UPSERT));
+        });
+  }
+}
@@ -0,0 +1,184 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Task event logic shared by the servlet and the reactive controllers, which does not access the
+ * database.
+ *
+ * <p>Creates and updates record the whole task, the status transitions only the fields they
+ * write. A task is rebuilt from its last snapshot, replaying the events after it. Events and
+ * snapshots are read without mapping, so the references stay as stored.
+ *
+ * <p>The events of a task are replayed in the order of the version of the task they wrote, as
+ * each write increments it, which is the order the writes were applied even when the events were
+ * queued by different instances.
+ */
+public class TaskEventHelper {
+
+  /** Versions of a task between two of its snapshots. */
+  public static final int SNAPSHOT_INTERVAL = 20;
+
+  /** Fields written by the status transitions. */
+  private static final List<String> TRANSITION_FIELDS = getTransitionFields();
+
+  private TaskEventHelper() {}
+
+  /**
+   * Converts a task to its stored document.
+   *
+   * @param task the task, whose references hold at least the id
+   * @param converter the converter
+   * @return the document
+   */
+  public static Document toState(Task task, MongoConverter converter) {
+    var state = new Document();
+    converter.write(task, state);
+    state.remove("_class");
+
+    return state;
+  }
+
+  /**
+   * Gets the event recorded by a status transition.
+   *
+   * @param transition the transition
+   * @return the event type
+   */
+  public static TaskEventType getEventType(Transition transition) {
+    switch (transition) {
+      case START:
+        return TaskEventType.STARTED;
+      case PAUSE:
+        return TaskEventType.PAUSED;
+      case RESUME:
+        return TaskEventType.RESUMED;
+      default:
+        return TaskEventType.FINISHED;
+    }
+  }
+
+  /**
+   * Gets the fields written by an event.
+   *
+   * @param type the event type
+   * @param state the stored task after the event, none after a delete
+   * @return the fields, with null values for the removed ones, or none after a delete
+   */
+  public static Document getChanges(TaskEventType type, Document state) {
+    if (state == null) {
+      return null;
+    }
+
+    if (type == TaskEventType.CREATED || type == TaskEventType.UPDATED) {
+      return state;
+    }
+
+    var changes = new Document();
+    TRANSITION_FIELDS.forEach(field -> changes.append(field, state.get(field)));
+
+    return changes;
+  }
+
+  /**
+   * Tells if a snapshot is taken after an event, every {@value #SNAPSHOT_INTERVAL} versions.
+   *
+   * @param state the stored task after the event, none after a delete
+   * @return whether a snapshot is taken
+   */
+  public static boolean isSnapshot(Document state) {
+    return state != null
+        && state.get("version") instanceof Number
+        && ((Number) state.get("version")).longValue() % SNAPSHOT_INTERVAL == 0;
+  }
+
+  /**
+   * Builds the query of the last snapshot of a task at a date, the one of its highest version.
+   *
+   * @param taskId the task id
+   * @param date the date
+   * @param converter the converter, which writes the date as a save does
+   * @return the query
+   */
+  public static Query getSnapshotQuery(
+      String taskId, LocalDateTime date, MongoConverter converter) {
+    return Query.query(
+            Criteria.where("taskId").is(taskId).and("date").lte(converter.convertToMongoType(date)))
+        .with(Sort.by(Sort.Direction.DESC, "version"))
+        .limit(1);
+  }
+
+  /**
+   * Builds the query of the events of a task after a snapshot until a date, in version order.
+   * The delete has no version, so it is read after the snapshot and before the other events.
+   *
+   * @param taskId the task id
+   * @param afterVersion the version of the snapshot, or a negative one for all the events
+   * @param date the date
+   * @param converter the converter, which writes the date as a save does
+   * @return the query
+   */
+  public static Query getEventsQuery(
+      String taskId, long afterVersion, LocalDateTime date, MongoConverter converter) {
+    return Query.query(
+            Criteria.where("taskId")
+                .is(taskId)
+                .and("date")
+                .lte(converter.convertToMongoType(date))
+                .orOperator(
+                    Criteria.where("version").gt(afterVersion),
+                    Criteria.where("version").is(null)))
+        .with(Sort.by("version"));
+  }
+
+  /**
+   * Rebuilds a stored task, applying events to a snapshot. A delete ends the task wherever it is
+   * read, as it is the last write of the task.
+   *
+   * @param snapshotState the task of the snapshot, or none to start from nothing
+   * @param events the stored events after the snapshot, in version order
+   * @return the stored task after the events, or none if it did not exist
+   */
+  public static Document replay(Document snapshotState, List<Document> events) {
+    Document state = snapshotState == null ? null : new Document(snapshotState);
+
+    for (Document event : events) {
+      var type = TaskEventType.valueOf(event.getString("type"));
+      Document changes = event.get("changes", Document.class);
+
+      if (type == TaskEventType.DELETED) {
+        return null;
+      } else if (type == TaskEventType.CREATED || type == TaskEventType.UPDATED) {
+        state = new Document(changes);
+      } else if (state != null) {
+        for (var change : changes.entrySet()) {
+          if (change.getValue() == null) {
+            state.remove(change.getKey());
+          } else {
+            state.put(change.getKey(), change.getValue());
+          }
+        }
+      }
+    }
+
+    return state;
+  }
+
+  private static List<String> getTransitionFields() {
+    var fields = new ArrayList<>(TaskHelper.STATUS_FIELDS);
+    fields.add("version");
+    fields.add("modifiedAt");
+
+    return List.copyOf(fields);
+  }
+}
@@ -0,0 +1,888 @@
+package com.github.mavbraz.timemanager.helper;
+
+import com.github.mavbraz.timemanager.dto.BulkTransitionResultDTO;
+import com.github.mavbraz.timemanager.dto.TaskListQueryDTO;
+import com.github.mavbraz.timemanager.dto.TaskTransitionQueryDTO;
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.ReferenceSummary;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.ReferenceType;
+import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.mongodb.DBRef;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.aggregation.UnsetOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+/**
+ * Task logic shared by the servlet and the reactive controllers, which does not access the
+ * database.
+ */
+public class TaskHelper {
+
+  /** Fields only changed by the status transitions. */
+  public static final Set<String> STATUS_FIELDS =
+      Set.of(
+          "status",
+          "startDate",
+          "finishDate",
+          "workIntervals",
+          "duration",
+          "runStartDate",
+          "autoFinishDate");
+
+  /** Field with the id of the last bulk write that changed a task. */
+  public static final String BULK_WRITE_FIELD = "bulkWriteId";
+
+  /** Start of the period being worked, tasks started before the intervals only have the start. */
+  private static final Document RUN_START =
+      new Document("$ifNull", List.of("$runStartDate", "$startDate"));
+
+  /** Field with the contributors joined by the list aggregation. */
+  private static final String JOINED_CONTRIBUTORS = "joinedContributors";
+
+  /** Field with the project joined by the list aggregation. */
+  private static final String JOINED_PROJECT = "joinedProject";
+
+  private TaskHelper() {}
+
+  /**
+   * Builds the entity tag of a task from its version and the versions of its references, as the
+   * task details also show the contributors and the project.
+   *
+   * @param task the task
+   * @return the entity tag
+   */
+  public static String getETag(Task task) {
+    var parts = new ArrayList<String>();
+    task.getContributors().stream()
+        .filter(Objects::nonNull)
+        .forEach(person -> parts.add(person.getId() + ":" + person.getVersion()));
+
+    if (task.getProject() != null) {
+      parts.add(task.getProject().getId() + ":" + task.getProject().getVersion());
+    }
+
+    return ETagHelper.of(task.getVersion(), parts);
+  }
+
+  /**
+   * Gets the filters of a task list query, each one backed by an index declared on {@link Task}.
+   *
+   * @param listQuery the list query
+   * @param converter the converter, which knows the collection of each reference
+   * @return the filters, all of them must match
+   */
+  public static List<Criteria> getFilters(TaskListQueryDTO listQuery, MongoConverter converter) {
+    var filters = new ArrayList<Criteria>();
+
+    if (listQuery.getStatus() != null) {
+      filters.add(
+          Criteria.where("status").is(TaskStatus.from(listQuery.getStatus().getDescription())));
+    }
+
+    if (listQuery.getProject() != null) {
+      filters.add(
+          Criteria.where("project")
+              .is(toReference(converter, Project.class, listQuery.getProject())));
+    }
+
+    if (listQuery.getContributor() != null) {
+      filters.add(
+          Criteria.where("contributors")
+              .is(toReference(converter, Person.class, listQuery.getContributor())));
+    }
+
+    addRange(filters, "startDate", listQuery.getStartDateFrom(), listQuery.getStartDateTo());
+    addRange(filters, "finishDate", listQuery.getFinishDateFrom(), listQuery.getFinishDateTo());
+
+    return filters;
+  }
+
+  /**
+   * Builds the query of a status transition, which only matches the task while it has the
+   * expected status, so concurrent transitions cannot both apply.
+   *
+   * @param id the task id
+   * @param transition the transition
+   * @return the query
+   */
+  public static Query getTransitionQuery(String id, Transition transition) {
+    return Query.query(Criteria.where("id").is(id).and("status").is(transition.getFrom()));
+  }
+
+  /**
+   * Builds the query of a bulk status transition, which only matches the selected tasks while they
+   * have the expected status.
+   *
+   * @param ids the ids of the selected tasks
+   * @param transition the transition
+   * @return the query
+   */
+  public static Query getTransitionQuery(Collection<String> ids, Transition transition) {
+    return Query.query(Criteria.where("id").in(ids).and("status").is(transition.getFrom()));
+  }
+
+  /**
+   * Builds the query of the ids of the tasks selected by filters that a bulk status transition
+   * could change, at most one more than the limit.
+   *
+   * @param transitionQuery the filters, at least one of them is required
+   * @param transition the transition
+   * @param limit the maximum tasks changed by a single request
+   * @param converter the converter, which knows the collection of each reference
+   * @return the query
+   * @throws InvalidFieldException if no filter is sent
+   */
+  public static Query getTransitionCandidatesQuery(
+      TaskTransitionQueryDTO transitionQuery,
+      Transition transition,
+      int limit,
+      MongoConverter converter)
+      throws InvalidFieldException {
+    if (transitionQuery.getProject() == null && transitionQuery.getContributor() == null) {
+      throw new InvalidFieldException("Either ids, project or contributor is required");
+    }
+
+    var criteria = Criteria.where("status").is(transition.getFrom());
+
+    if (transitionQuery.getProject() != null) {
+      criteria
+          .and("project")
+          .is(toReference(converter, Project.class, transitionQuery.getProject()));
+    }
+
+    if (transitionQuery.getContributor() != null) {
+      criteria
+          .and("contributors")
+          .is(toReference(converter, Person.class, transitionQuery.getContributor()));
+    }
+
+    var query = Query.query(criteria).limit(limit + 1);
+    query.fields().include("id");
+
+    return query;
+  }
+
+  /**
+   * Builds the result of a bulk status transition.
+   *
+   * @param ids the ids of the selected tasks, in request order
+   * @param changed the ids of the tasks changed
+   * @return the result
+   */
+  public static BulkTransitionResultDTO getTransitionResult(
+      List<String> ids, Set<String> changed) {
+    var result = BulkTransitionResultDTO.builder().build();
+    ids.forEach(id -> (changed.contains(id) ? result.getChanged() : result.getSkipped()).add(id));
+
+    return result;
+  }
+
+  /**
+   * Builds the update of a status transition, which sets the status and the date of the transition
+   * and, like a save, increments the version and sets the modification date.
+   *
+   * <p>A transition that starts a period worked stores its start, and the finish of a paused task
+   * only sets the status and the finish date. A transition that closes a period appends it to the
+   * intervals and adds its length to the duration. The length depends on the stored start, so that
+   * update is an aggregation pipeline, which still changes the task with a single write.
+   *
+   * @param transition the transition
+   * @param date the date of the transition, truncated to milliseconds as stored by MongoDB
+   * @param converter the converter, which writes the date inside the pipeline as a save does
+   * @return the update
+   */
+  public static UpdateDefinition getTransitionUpdate(
+      Transition transition, LocalDateTime date, MongoConverter converter) {
+    return getTransitionUpdate(transition, date, null, converter);
+  }
+
+  /**
+   * Builds the update of a bulk status transition, which also tags the tasks with the bulk write,
+   * so the ones it changed are told apart from the ones changed meanwhile by other requests.
+   *
+   * @param transition the transition
+   * @param date the date of the transition, truncated to milliseconds as stored by MongoDB
+   * @param bulkWriteId the id of the bulk write, none for the transition of a single task
+   * @param converter the converter, which writes the date inside the pipeline as a save does
+   * @return the update
+   * @see #getTransitionUpdate(Transition, LocalDateTime, MongoConverter)
+   */
+  public static UpdateDefinition getTransitionUpdate(
+      Transition transition, LocalDateTime date, String bulkWriteId, MongoConverter converter) {
+    if (!transition.isClosingRun()) {
+      var update = new Update().set("status", transition.getTo());
+
+      if (transition.getTo() == TaskStatus.STARTED) {
+        update.set("runStartDate", date);
+      }
+
+      if (transition.getDateField() != null) {
+        update.set(transition.getDateField(), date);
+      }
+
+      if (bulkWriteId != null) {
+        update.set(BULK_WRITE_FIELD, bulkWriteId);
+      }
+
+      return update.inc("version", 1).set("modifiedAt", date);
+    }
+
+    Object storedDate = converter.convertToMongoType(date);
+    Document values = getClosingRunValues(transition, storedDate, storedDate);
+
+    if (bulkWriteId != null) {
+      values.append(BULK_WRITE_FIELD, bulkWriteId);
+    }
+
+    return getClosingRunUpdate(values);
+  }
+
+  /**
+   * Builds the query of the tasks left with status "STARTED" since before a date, the oldest
+   * first. It reads the index on status and start date, as a task is never worked since before it
+   * started.
+   *
+   * @param cutoff the date
+   * @param limit the maximum tasks read
+   * @return the query of the ids
+   */
+  public static Query getStaleQuery(LocalDateTime cutoff, int limit) {
+    var query = Query.query(getStaleCriteria(cutoff)).with(Sort.by("startDate")).limit(limit);
+    query.fields().include("id");
+
+    return query;
+  }
+
+  /**
+   * Builds the query of the selected tasks that are still left with status "STARTED" since before
+   * a date, so a task paused or finished meanwhile is not changed.
+   *
+   * @param ids the ids of the selected tasks
+   * @param cutoff the date
+   * @return the query
+   */
+  public static Query getStaleQuery(Collection<String> ids, LocalDateTime cutoff) {
+    return Query.query(getStaleCriteria(cutoff).and("id").in(ids));
+  }
+
+  /**
+   * Builds the update that finishes a task left with status "STARTED", like the transition
+   * "FINISH", with the finish date capped to the end of the longest period allowed. The task is
+   * tagged with the date of the update, which tells it apart from the ones skipped.
+   *
+   * @param date the date of the update, truncated to milliseconds as stored by MongoDB
+   * @param maxRun the longest period worked allowed
+   * @param converter the converter, which writes the date inside the pipeline as a save does
+   * @return the update
+   */
+  public static UpdateDefinition getAutoFinishUpdate(
+      LocalDateTime date, Duration maxRun, MongoConverter converter) {
+    Object storedDate = converter.convertToMongoType(date);
+    var finish =
+        new Document(
+            "$min",
+            List.of(storedDate, new Document("$add", List.of(RUN_START, maxRun.toMillis()))));
+
+    return getClosingRunUpdate(
+        getClosingRunValues(Transition.FINISH, finish, storedDate)
+            .append("autoFinishDate", storedDate));
+  }
+
+  /**
+   * Builds the aggregation of the tasks finished by an automatic finish, the ones tagged with its
+   * date, which clients cannot write. It reads the tasks as stored, so their references are not
+   * loaded one by one.
+   *
+   * @param ids the ids of the selected tasks
+   * @param date the date of the update
+   * @return the aggregation
+   */
+  public static TypedAggregation<Task> getAutoFinishedAggregation(
+      Collection<String> ids, LocalDateTime date) {
+    return Aggregation.newAggregation(
+        Task.class,
+        Aggregation.match(
+            Criteria.where("id")
+                .in(ids)
+                .and("status")
+                .is(TaskStatus.FINISHED)
+                .and("autoFinishDate")
+                .is(date)));
+  }
+
+  /**
+   * Gets the ids of the contributors of tasks, whose references only hold the id.
+   *
+   * @param tasks the tasks
+   * @return the ids, each one once
+   */
+  public static Set<String> getContributorIds(Collection<Task> tasks) {
+    return tasks.stream()
+        .filter(task -> task.getContributors() != null)
+        .flatMap(task -> task.getContributors().stream())
+        .filter(Objects::nonNull)
+        .map(Person::getId)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Gets the ids of the projects of tasks, whose references only hold the id.
+   *
+   * @param tasks the tasks
+   * @return the ids, each one once
+   */
+  public static Set<String> getProjectIds(Collection<Task> tasks) {
+    return tasks.stream()
+        .map(Task::getProject)
+        .filter(Objects::nonNull)
+        .map(Project::getId)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Replaces the references of tasks, which only hold the id, with the ones loaded from database.
+   * Tasks that share a reference get the same instance. Missing references are dropped, like the
+   * "@DBRef" resolution does.
+   *
+   * @param tasks the tasks
+   * @param contributors the contributors loaded, by id
+   * @param projects the projects loaded, by id
+   */
+  public static void setReferences(
+      Collection<Task> tasks, Map<String, Person> contributors, Map<String, Project> projects) {
+    for (Task task : tasks) {
+      if (task.getContributors() != null) {
+        task.setContributors(
+            task.getContributors().stream()
+                .filter(Objects::nonNull)
+                .map(person -> contributors.get(person.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+      }
+
+      if (task.getProject() != null) {
+        task.setProject(projects.get(task.getProject().getId()));
+      }
+    }
+  }
+
+  /**
+   * Builds the aggregation of a page of tasks that also joins their contributors and project with
+   * "$lookup", so the page and its references are read with a single command.
+   *
+   * <p>The filters, the sort, the limit and the fields of the query are mapped like a find does.
+   * The references are joined after the limit, only for the tasks of the page.
+   *
+   * @param query the query of the page
+   * @param converter the converter, which tells the collections of the references
+   * @return the aggregation
+   */
+  public static TypedAggregation<Task> getLookupAggregation(
+      Query query, MongoConverter converter) {
+    var operations = new ArrayList<AggregationOperation>();
+    operations.add(
+        context -> new Document("$match", context.getMappedObject(query.getQueryObject())));
+
+    if (!query.getSortObject().isEmpty()) {
+      operations.add(
+          context -> new Document("$sort", context.getMappedObject(query.getSortObject())));
+    }
+
+    if (query.getLimit() > 0) {
+      operations.add(Aggregation.limit(query.getLimit()));
+    }
+
+    if (!query.getFieldsObject().isEmpty()) {
+      operations.add(
+          context -> new Document("$project", context.getMappedObject(query.getFieldsObject())));
+    }
+
+    operations.add(
+        getLookup(getCollection(converter, Person.class), "contributors", JOINED_CONTRIBUTORS));
+    operations.add(getLookup(getCollection(converter, Project.class), "project", JOINED_PROJECT));
+
+    return Aggregation.newAggregation(Task.class, operations);
+  }
+
+  /**
+   * Reads the tasks of the list aggregation, with the contributors and the project it joined.
+   * Contributors keep the stored order, tasks that share a reference get the same instance and
+   * missing references are dropped, like the "@DBRef" resolution does.
+   *
+   * @param documents the documents of the aggregation, which are changed
+   * @param converter the converter
+   * @return the tasks with contributors and project, in the same order
+   * @see #getLookupAggregation(Query, MongoConverter)
+   */
+  public static List<Task> readJoinedTasks(List<Document> documents, MongoConverter converter) {
+    var tasks = new ArrayList<Task>(documents.size());
+    var contributors = new HashMap<String, Person>();
+    var projects = new HashMap<String, Project>();
+
+    for (Document document : documents) {
+      readJoined(document.remove(JOINED_CONTRIBUTORS), Person.class, converter, contributors);
+      readJoined(document.remove(JOINED_PROJECT), Project.class, converter, projects);
+
+      // The references are set from the joined documents, so they are not read as "@DBRef"
+      List<DBRef> contributorReferences = document.getList("contributors", DBRef.class);
+      DBRef projectReference = document.get("project", DBRef.class);
+      document.remove("contributors");
+      document.remove("project");
+
+      Task task = converter.read(Task.class, document);
+
+      if (contributorReferences != null) {
+        task.setContributors(
+            contributorReferences.stream()
+                .filter(Objects::nonNull)
+                .map(reference -> Person.builder().id(reference.getId().toString()).build())
+                .collect(Collectors.toList()));
+      }
+
+      if (projectReference != null) {
+        task.setProject(Project.builder().id(projectReference.getId().toString()).build());
+      }
+
+      tasks.add(task);
+    }
+
+    setReferences(tasks, contributors, projects);
+
+    return tasks;
+  }
+
+  /**
+   * Sets the summaries of tasks from their references.
+   *
+   * @param tasks the tasks, whose references are loaded from database
+   */
+  public static void setSummaries(Collection<Task> tasks) {
+    for (Task task : tasks) {
+      task.setContributorSummaries(
+          task.getContributors() == null
+              ? new ArrayList<>()
+              : task.getContributors().stream()
+                  .filter(Objects::nonNull)
+                  .map(person -> new ReferenceSummary(person.getId(), person.getName()))
+                  .collect(Collectors.toList()));
+      task.setProjectSummary(
+          task.getProject() == null
+              ? null
+              : new ReferenceSummary(task.getProject().getId(), task.getProject().getName()));
+    }
+  }
+
+  /**
+   * Replaces the references of tasks with their summaries, so they have only the id and the name.
+   * Tasks that share a reference get the same instance.
+   *
+   * @param tasks the tasks, whose references only hold the id
+   * @return the tasks written before the summaries existed, whose references must be loaded
+   */
+  public static List<Task> setReferencesFromSummaries(Collection<Task> tasks) {
+    var unsummarized = new ArrayList<Task>();
+    var contributors = new HashMap<String, Person>();
+    var projects = new HashMap<String, Project>();
+
+    for (Task task : tasks) {
+      boolean hasContributors =
+          task.getContributors() != null && !task.getContributors().isEmpty();
+
+      if ((hasContributors && task.getContributorSummaries() == null)
+          || (task.getProject() != null && task.getProjectSummary() == null)) {
+        unsummarized.add(task);
+        continue;
+      }
+
+      if (task.getContributorSummaries() != null) {
+        task.setContributors(
+            task.getContributorSummaries().stream()
+                .map(
+                    summary ->
+                        contributors.computeIfAbsent(
+                            summary.getId(),
+                            id -> Person.builder().id(id).name(summary.getName()).build()))
+                .collect(Collectors.toList()));
+      }
+
+      if (task.getProjectSummary() != null) {
+        ReferenceSummary summary = task.getProjectSummary();
+        task.setProject(
+            projects.computeIfAbsent(
+                summary.getId(), id -> Project.builder().id(id).name(summary.getName()).build()));
+      }
+    }
+
+    return unsummarized;
+  }
+
+  /**
+   * Adds to a partial update the summaries of the references it sets.
+   *
+   * @param update the partial update
+   * @param task the task with the fields sent, whose references are loaded from database
+   */
+  public static void addSummaryUpdates(Update update, Task task) {
+    setSummaries(List.of(task));
+
+    if (update.modifies("contributors")) {
+      update.set("contributorSummaries", task.getContributorSummaries());
+    }
+
+    if (update.modifies("project")) {
+      update.set("projectSummary", task.getProjectSummary());
+    }
+  }
+
+  /**
+   * Builds the query of the tasks whose summary of a contributor still has another name.
+   *
+   * @param person the renamed person
+   * @return the query
+   */
+  public static Query getContributorRenameQuery(Person person) {
+    return Query.query(
+        Criteria.where("contributorSummaries")
+            .elemMatch(Criteria.where("id").is(person.getId()).and("name").ne(person.getName())));
+  }
+
+  /**
+   * Builds the update of the summaries of a renamed contributor, which also increments the version
+   * of the tasks, as their details change, and tags them with the bulk write.
+   *
+   * @param person the renamed person
+   * @param bulkWriteId the id of the bulk write
+   * @return the update
+   */
+  public static Update getContributorRenameUpdate(Person person, String bulkWriteId) {
+    return new Update()
+        .set("contributorSummaries.$[summary].name", person.getName())
+        .filterArray(Criteria.where("summary.id").is(person.getId()))
+        .set(BULK_WRITE_FIELD, bulkWriteId)
+        .inc("version", 1);
+  }
+
+  /**
+   * Builds the query of the tasks whose summary of the project still has another name.
+   *
+   * @param project the renamed project
+   * @return the query
+   */
+  public static Query getProjectRenameQuery(Project project) {
+    return Query.query(
+        Criteria.where("projectSummary.id")
+            .is(project.getId())
+            .and("projectSummary.name")
+            .ne(project.getName()));
+  }
+
+  /**
+   * Builds the update of the summary of a renamed project, which also increments the version of
+   * the tasks, as their details change, and tags them with the bulk write.
+   *
+   * @param project the renamed project
+   * @param bulkWriteId the id of the bulk write
+   * @return the update
+   */
+  public static Update getProjectRenameUpdate(Project project, String bulkWriteId) {
+    return new Update()
+        .set("projectSummary.name", project.getName())
+        .set(BULK_WRITE_FIELD, bulkWriteId)
+        .inc("version", 1);
+  }
+
+  /**
+   * Builds the query of a batch of tasks that still reference a deleted person or project, which
+   * only reads the id.
+   *
+   * @param type the kind of the deleted entity
+   * @param reference the id of the deleted entity
+   * @param limit the maximum number of tasks
+   * @param converter the converter, which tells the collection of the reference
+   * @return the query
+   */
+  public static Query getReferencingQuery(
+      ReferenceType type, String reference, int limit, MongoConverter converter) {
+    var query = Query.query(getReferencingCriteria(type, reference, converter)).limit(limit);
+    query.fields().include("id");
+
+    return query;
+  }
+
+  /**
+   * Builds the query of the tasks of a batch that still reference a deleted person or project.
+   *
+   * @param ids the ids of the tasks of the batch
+   * @param type the kind of the deleted entity
+   * @param reference the id of the deleted entity
+   * @param converter the converter, which tells the collection of the reference
+   * @return the query
+   */
+  public static Query getReferencingQuery(
+      Collection<String> ids, ReferenceType type, String reference, MongoConverter converter) {
+    return Query.query(
+        new Criteria()
+            .andOperator(
+                Criteria.where("id").in(ids), getReferencingCriteria(type, reference, converter)));
+  }
+
+  /**
+   * Builds the update that removes a deleted person from the contributors of the tasks, or unsets
+   * a deleted project, along with their summaries. It also increments the version of the tasks, as
+   * their details change, and tags them with the bulk write.
+   *
+   * @param type the kind of the deleted entity
+   * @param reference the id of the deleted entity
+   * @param bulkWriteId the id of the bulk write
+   * @param converter the converter, which tells the collection of the reference
+   * @return the update
+   */
+  public static Update getReferenceRemovalUpdate(
+      ReferenceType type, String reference, String bulkWriteId, MongoConverter converter) {
+    var update =
+        type == ReferenceType.PERSON
+            ? new Update()
+                .pull("contributors", toReference(converter, Person.class, reference))
+                .pull("contributorSummaries", new Document("id", reference))
+            : new Update().unset("project").unset("projectSummary");
+
+    return update.set(BULK_WRITE_FIELD, bulkWriteId).inc("version", 1);
+  }
+
+  /**
+   * Creates the id of a bulk write, which tags the tasks it changes.
+   *
+   * @return the id, unique
+   */
+  public static String newBulkWriteId() {
+    return UUID.randomUUID().toString();
+  }
+
+  /**
+   * Builds the aggregation of the tasks changed by a bulk write, the ones tagged with its id, which
+   * clients cannot write. It reads the tasks as stored, so their references are not loaded one by
+   * one.
+   *
+   * @param bulkWriteId the id of the bulk write
+   * @return the aggregation
+   */
+  public static TypedAggregation<Task> getBulkWrittenAggregation(String bulkWriteId) {
+    return Aggregation.newAggregation(
+        Task.class, Aggregation.match(Criteria.where(BULK_WRITE_FIELD).is(bulkWriteId)));
+  }
+
+  /**
+   * Builds the aggregation of the selected tasks changed by a bulk write.
+   *
+   * @param ids the ids of the selected tasks
+   * @param bulkWriteId the id of the bulk write
+   * @return the aggregation
+   * @see #getBulkWrittenAggregation(String)
+   */
+  public static TypedAggregation<Task> getBulkWrittenAggregation(
+      Collection<String> ids, String bulkWriteId) {
+    return Aggregation.newAggregation(
+        Task.class,
+        Aggregation.match(Criteria.where("id").in(ids).and(BULK_WRITE_FIELD).is(bulkWriteId)));
+  }
+
+  /**
+   * Gets the current date, truncated to milliseconds as stored by MongoDB, so it can be matched
+   * after written.
+   *
+   * @return the current date
+   */
+  public static LocalDateTime now() {
+    return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+  }
+
+  private static Criteria getStaleCriteria(LocalDateTime cutoff) {
+    return Criteria.where("status")
+        .is(TaskStatus.STARTED)
+        .and("startDate")
+        .lte(cutoff)
+        .orOperator(
+            Criteria.where("runStartDate").lte(cutoff), Criteria.where("runStartDate").is(null));
+  }
+
+  private static Document getClosingRunValues(
+      Transition transition, Object finish, Object storedDate) {
+    var values =
+        new Document("status", transition.getTo().name())
+            .append(
+                "workIntervals",
+                new Document(
+                    "$concatArrays",
+                    List.of(
+                        new Document("$ifNull", List.of("$workIntervals", List.of())),
+                        List.of(new Document("start", RUN_START).append("finish", finish)))))
+            .append(
+                "duration",
+                new Document(
+                    "$add",
+                    List.of(
+                        new Document("$ifNull", List.of("$duration", 0L)),
+                        new Document("$subtract", List.of(finish, RUN_START)))))
+            .append("modifiedAt", storedDate);
+
+    if (transition.getDateField() != null) {
+      values.append(transition.getDateField(), finish);
+    }
+
+    return values;
+  }
+
+  private static UpdateDefinition getClosingRunUpdate(Document values) {
+    AggregationOperation closeRun = context -> new Document("$set", values);
+
+    return AggregationUpdate.from(
+        List.of(
+            closeRun,
+            new SetOperation("version", ArithmeticOperators.valueOf("version").add(1)),
+            UnsetOperation.unset("runStartDate")));
+  }
+
+  private static DBRef toReference(
+      MongoConverter converter, Class<? extends BaseDocument> entityClass, String id) {
+    return new DBRef(getCollection(converter, entityClass), CursorHelper.toStoredId(id));
+  }
+
+  private static Criteria getReferencingCriteria(
+      ReferenceType type, String reference, MongoConverter converter) {
+    return type == ReferenceType.PERSON
+        ? Criteria.where("contributors").is(toReference(converter, Person.class, reference))
+        : Criteria.where("project").is(toReference(converter, Project.class, reference));
+  }
+
+  private static String getCollection(
+      MongoConverter converter, Class<? extends BaseDocument> entityClass) {
+    return converter.getMappingContext().getRequiredPersistentEntity(entityClass).getCollection();
+  }
+
+  private static AggregationOperation getLookup(String from, String reference, String as) {
+    // Written as is, as the fields of the aggregation framework drop the "$id" of the "@DBRef"
+    var lookup =
+        new Document("from", from)
+            .append("localField", reference + ".$id")
+            .append("foreignField", "_id")
+            .append("as", as);
+
+    return context -> new Document("$lookup", lookup);
+  }
+
+  private static <R extends BaseDocument> void readJoined(
+      Object joined, Class<R> entityClass, MongoConverter converter, Map<String, R> references) {
+    if (joined instanceof List) {
+      for (Object document : (List<?>) joined) {
+        R reference = converter.read(entityClass, (Document) document);
+        references.putIfAbsent(reference.getId(), reference);
+      }
+    }
+  }
+
+  private static void addRange(
+      List<Criteria> filters, String property, LocalDateTime from, LocalDateTime to) {
+    if (from == null && to == null) {
+      return;
+    }
+
+    var range = Criteria.where(property);
+
+    if (from != null) {
+      range.gte(from);
+    }
+
+    if (to != null) {
+      range.lt(to);
+    }
+
+    filters.add(range);
+  }
+
+  /** Status transitions of a task. */
+  @Getter
+  public enum Transition {
+    START(
+        TaskStatus.NOT_STARTED,
+        TaskStatus.STARTED,
+        "startDate",
+        false,
+        "Task has already been started or finished!"),
+    PAUSE(
+        TaskStatus.STARTED, TaskStatus.PAUSED, null, true, "Task must have status \"STARTED\"!"),
+    RESUME(
+        TaskStatus.PAUSED, TaskStatus.STARTED, null, false, "Task must have status \"PAUSED\"!"),
+    FINISH(
+        TaskStatus.STARTED,
+        TaskStatus.FINISHED,
+        "finishDate",
+        true,
+        "Task must have status \"STARTED\" or \"PAUSED\"!"),
+    /** Finish of a paused task, whose periods worked are already closed. */
+    FINISH_PAUSED(
+        TaskStatus.PAUSED,
+        TaskStatus.FINISHED,
+        "finishDate",
+        false,
+        "Task must have status \"STARTED\" or \"PAUSED\"!");
+
+    /** Status expected before the transition. */
+    private final TaskStatus from;
+
+    /** Status after the transition. */
+    private final TaskStatus to;
+
+    /** Field with the date of the transition, if it has one. */
+    private final String dateField;
+
+    /**
+     * Whether the transition closes the period being worked, otherwise it starts one, or leaves
+     * the periods as they are when it finishes a paused task.
+     */
+    private final boolean closingRun;
+
+    /** Reason sent when the task does not have the expected status. */
+    private final String invalidStatusReason;
+
+    Transition(
+        TaskStatus from,
+        TaskStatus to,
+        String dateField,
+        boolean closingRun,
+        String invalidStatusReason) {
+      this.from = from;
+      this.to = to;
+      this.dateField = dateField;
+      this.closingRun = closingRun;
+      this.invalidStatusReason = invalidStatusReason;
+    }
+  }
+}
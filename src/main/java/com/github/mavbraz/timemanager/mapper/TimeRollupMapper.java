@@ -0,0 +1,32 @@
+package com.github.mavbraz.timemanager.mapper;
+
+import com.github.mavbraz.timemanager.dto.TimeRollupDTO;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import java.util.List;
+import org.mapstruct.Mapper;
+
+/**
+ * Mapper for convert "TimeRollup" to "TimeRollupDTO". Rollups are only written by the task
+ * transitions, so there is no conversion back.
+ *
+ * @see Mapper
+ */
+@Mapper(config = BaseConfig.class)
+public interface TimeRollupMapper {
+
+  /**
+   * Converts entity to DTO.
+   *
+   * @param entity the entity
+   * @return the DTO
+   */
+  TimeRollupDTO toDTO(TimeRollup entity);
+
+  /**
+   * Convert all entities to DTOs.
+   *
+   * @param entities the entities
+   * @return the DTOs
+   */
+  List<TimeRollupDTO> mapToDTO(List<TimeRollup> entities);
+}
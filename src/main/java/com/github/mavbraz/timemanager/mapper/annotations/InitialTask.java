@@ -20,4 +20,11 @@ import org.mapstruct.Mapping;
 @Mapping(target = "startDate", ignore = true)
 @Mapping(target = "finishDate", ignore = true)
 @Mapping(target = "status", ignore = true)
+@Mapping(target = "workIntervals", ignore = true)
+@Mapping(target = "duration", ignore = true)
+@Mapping(target = "runStartDate", ignore = true)
+@Mapping(target = "autoFinishDate", ignore = true)
+@Mapping(target = "bulkWriteId", ignore = true)
+@Mapping(target = "contributorSummaries", ignore = true)
+@Mapping(target = "projectSummary", ignore = true)
 public @interface InitialTask {}
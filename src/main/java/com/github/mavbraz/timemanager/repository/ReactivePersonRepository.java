@@ -0,0 +1,11 @@
+package com.github.mavbraz.timemanager.repository;
+
+import com.github.mavbraz.timemanager.entity.Person;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Reactive repository for operate the entity "Person" in MongoDB.
+ *
+ * @see ReactiveMongoRepository
+ */
+public interface ReactivePersonRepository extends ReactiveMongoRepository<Person, String> {}
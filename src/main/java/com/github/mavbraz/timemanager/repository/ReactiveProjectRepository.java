@@ -0,0 +1,11 @@
+package com.github.mavbraz.timemanager.repository;
+
+import com.github.mavbraz.timemanager.entity.Project;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Reactive repository for operate the entity "Project" in MongoDB.
+ *
+ * @see ReactiveMongoRepository
+ */
+public interface ReactiveProjectRepository extends ReactiveMongoRepository<Project, String> {}
@@ -0,0 +1,11 @@
+package com.github.mavbraz.timemanager.repository;
+
+import com.github.mavbraz.timemanager.entity.Task;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Reactive repository for operate the entity "Task" in MongoDB.
+ *
+ * @see ReactiveMongoRepository
+ */
+public interface ReactiveTaskRepository extends ReactiveMongoRepository<Task, String> {}
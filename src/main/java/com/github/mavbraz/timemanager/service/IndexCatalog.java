@@ -0,0 +1,144 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.dto.IndexReportDTO;
+import com.github.mavbraz.timemanager.helper.IndexHelper;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Catalog of the indexes declared on the entities, with "@CompoundIndex" and "@Indexed".
+ *
+ * <p>The indexes are resolved like the automatic index creation of Spring Data does, which is
+ * disabled so the startup does not wait for all of them. The unique and the TTL indexes are built
+ * on startup, before the application serves requests, as the writes rely on them, and the startup
+ * fails if one cannot be built. Once the application is ready, a single thread builds the other
+ * ones in background. Until one of them is built, the queries it backs scan the collection.
+ */
+@Slf4j
+@Service
+public class IndexCatalog {
+
+  private final MongoTemplate mongoTemplate;
+  private final IndexResolver indexResolver;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   */
+  @Autowired
+  public IndexCatalog(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+    this.indexResolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+  }
+
+  /**
+   * Builds the declared unique and TTL indexes, before the application serves requests.
+   *
+   * @throws org.springframework.dao.DataAccessException if an index cannot be built, such as a
+   *     unique index on a collection with duplicates, which stops the startup
+   */
+  @PostConstruct
+  public void buildRequiredIndexes() {
+    for (MongoPersistentEntity<?> entity : getEntities()) {
+      for (IndexDefinition index : getIndexes(entity)) {
+        if (IndexHelper.isRequired(index)) {
+          mongoTemplate.indexOps(entity.getCollection()).ensureIndex(index);
+        }
+      }
+    }
+
+    log.info("Declared unique and TTL indexes built");
+  }
+
+  /** Builds the other declared indexes in background, once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildIndexes() {
+    var thread = new Thread(this::ensureIndexes, "index-builder");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Reports the usage of the indexes of each entity, with "$indexStats", and the declared indexes
+   * missing.
+   *
+   * <p>The accesses are counted since the index was built or the server started, and only by the
+   * server that answers.
+   *
+   * @return the report of each index, by collection
+   */
+  public List<IndexReportDTO> getReport() {
+    var report = new ArrayList<IndexReportDTO>();
+
+    for (MongoPersistentEntity<?> entity : getEntities()) {
+      List<Document> stats =
+          mongoTemplate
+              .getCollection(entity.getCollection())
+              .aggregate(List.of(new Document("$indexStats", new Document())))
+              .into(new ArrayList<>());
+      report.addAll(IndexHelper.getIndexReport(entity.getCollection(), getIndexes(entity), stats));
+    }
+
+    return report;
+  }
+
+  /** Builds the declared indexes not required, which does nothing for the ones already built. */
+  private void ensureIndexes() {
+    int failed = 0;
+
+    for (MongoPersistentEntity<?> entity : getEntities()) {
+      for (IndexDefinition index : getIndexes(entity)) {
+        if (IndexHelper.isRequired(index)) {
+          continue;
+        }
+
+        try {
+          mongoTemplate
+              .indexOps(entity.getCollection())
+              .ensureIndex(IndexHelper.inBackground(index));
+        } catch (RuntimeException exception) {
+          failed++;
+          log.error(
+              "Index {} of {} not built",
+              index.getIndexOptions().get("name"),
+              entity.getCollection(),
+              exception);
+        }
+      }
+    }
+
+    log.info("Declared indexes built, {} failed", failed);
+  }
+
+  private List<IndexDefinition> getIndexes(MongoPersistentEntity<?> entity) {
+    var indexes = new ArrayList<IndexDefinition>();
+    indexResolver.resolveIndexFor(entity.getType()).forEach(indexes::add);
+
+    return indexes;
+  }
+
+  /** Gets the entities stored in their own collection, by collection. */
+  private List<MongoPersistentEntity<?>> getEntities() {
+    return mongoTemplate.getConverter().getMappingContext().getPersistentEntities().stream()
+        .filter(
+            entity ->
+                entity.isAnnotationPresent(
+                    org.springframework.data.mongodb.core.mapping.Document.class))
+        .sorted(Comparator.comparing(MongoPersistentEntity::getCollection))
+        .collect(Collectors.toList());
+  }
+}
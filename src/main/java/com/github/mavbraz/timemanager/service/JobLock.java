@@ -0,0 +1,93 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Leases of the background jobs, stored in the collection "locks", so only one instance of the
+ * application runs a job at a time.
+ *
+ * <p>A lease ends when released or when its time runs out, so the job is taken over by another
+ * instance if the one running it stops abruptly. A job must not run longer than its lease.
+ */
+@Service
+public class JobLock {
+
+  private static final String LOCKS_COLLECTION = "locks";
+
+  /** Owner of the leases taken by this instance. */
+  private final String owner =
+      ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   */
+  @Autowired
+  public JobLock(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Takes the lease of a job, if no other instance holds it.
+   *
+   * @param name the job name
+   * @param lease the time the lease lasts
+   * @return whether the lease was taken
+   */
+  public boolean acquire(String name, Duration lease) {
+    LocalDateTime now = TaskHelper.now();
+
+    try {
+      // A lease held by another instance is not matched, so the upsert conflicts on the id
+      mongoTemplate.findAndModify(
+          Query.query(
+              Criteria.where("_id")
+                  .is(name)
+                  .orOperator(
+                      Criteria.where("lockedUntil")
+                          .lte(mongoTemplate.getConverter().convertToMongoType(now)),
+                      Criteria.where("owner").is(owner))),
+          new Update()
+              .set("owner", owner)
+              .set(
+                  "lockedUntil",
+                  mongoTemplate.getConverter().convertToMongoType(now.plus(lease))),
+          FindAndModifyOptions.options().upsert(true).returnNew(true),
+          Document.class,
+          LOCKS_COLLECTION);
+    } catch (DuplicateKeyException exception) {
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Ends the lease of a job, if this instance holds it.
+   *
+   * @param name the job name
+   */
+  public void release(String name) {
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("_id").is(name).and("owner").is(owner)),
+        new Update()
+            .set("lockedUntil", mongoTemplate.getConverter().convertToMongoType(TaskHelper.now())),
+        LOCKS_COLLECTION);
+  }
+}
@@ -0,0 +1,67 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.mongodb.client.model.WriteModel;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Migration of the stored documents of a collection to a new shape, run in background by {@link
+ * MigrationRunner} in version order.
+ *
+ * <p>While it runs, the documents in the old shape and in the new one coexist, so the application
+ * must read both until it completes. A migration must change every document it selects as pending,
+ * and only write the ones that did not change since read, with {@link
+ * com.github.mavbraz.timemanager.helper.MigrationHelper#getGuard(Document)}.
+ */
+public interface Migration {
+
+  /**
+   * Gets the version, unique and greater than the ones of the migrations it depends on.
+   *
+   * @return the version
+   */
+  int getVersion();
+
+  /**
+   * Gets what the migration changes, recorded with its progress.
+   *
+   * @return the description
+   */
+  String getDescription();
+
+  /**
+   * Gets the entity of the collection migrated.
+   *
+   * @return the entity class
+   */
+  Class<? extends BaseDocument> getEntityClass();
+
+  /**
+   * Gets the criteria of the documents still in the old shape, with the stored field names.
+   *
+   * @return the criteria
+   */
+  Criteria getPendingCriteria();
+
+  /**
+   * Builds the writes that migrate a batch of documents.
+   *
+   * @param documents the stored documents, in "_id" order
+   * @param bulkWriteId the id of the writes of the batch, which tags the documents changed when
+   *     they are recorded
+   * @return the writes
+   */
+  List<WriteModel<Document>> migrate(List<Document> documents, String bulkWriteId);
+
+  /**
+   * Called after the writes of a batch changed some of its documents.
+   *
+   * <p>By default nothing is done, for the migrations that do not change the entities read.
+   *
+   * @param documents the stored documents of the batch, as read
+   * @param bulkWriteId the id of the writes of the batch
+   */
+  default void afterWrite(List<Document> documents, String bulkWriteId) {}
+}
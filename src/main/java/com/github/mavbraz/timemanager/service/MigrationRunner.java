@@ -0,0 +1,258 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.dto.MigrationStatusDTO;
+import com.github.mavbraz.timemanager.entity.MigrationCheckpoint;
+import com.github.mavbraz.timemanager.helper.MigrationHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.mongodb.client.model.WriteModel;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the migrations of the stored documents in background, in version order, while the
+ * application serves the requests.
+ *
+ * <p>Every {@value #INTERVAL_PROPERTY}, with the lease of the job, the pending documents of the
+ * first migration not completed are read in "_id" order, in batches of {@value
+ * #BATCH_SIZE_PROPERTY}, and written with one unordered "bulkWrite" each. The last id of each
+ * batch is recorded in the collection "migrations", so a migration stopped, also by another
+ * instance, continues where it stopped. It pauses at least {@value #BATCH_DELAY_PROPERTY} between
+ * the batches, and as long as the last batch took when the requests slow the database down, and
+ * it stops after half the lease.
+ *
+ * <p>A migration completes when a pass reaches the last document and none is left pending.
+ * Documents written by the requests meanwhile are skipped, and a new pass starts on the next run
+ * if they are still pending. Each migration records the documents changed by a batch, read back
+ * by the id of its writes.
+ */
+@Slf4j
+@Service
+public class MigrationRunner {
+
+  /** Property with the time between the runs, and the lease of each run. */
+  public static final String INTERVAL_PROPERTY = "migration.interval";
+
+  /** Property with the documents migrated by each "bulkWrite". */
+  public static final String BATCH_SIZE_PROPERTY = "migration.batch-size";
+
+  /** Property with the minimum pause between the batches. */
+  public static final String BATCH_DELAY_PROPERTY = "migration.batch-delay";
+
+  private static final String LOCK_NAME = "migration";
+
+  private final MongoTemplate mongoTemplate;
+  private final JobLock jobLock;
+  private final List<Migration> migrations;
+  private final Duration interval;
+  private final int batchSize;
+  private final Duration batchDelay;
+
+  /**
+   * Instantiates with the services and the properties autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param jobLock the lease service
+   * @param migrations the migrations
+   * @param interval the time between the runs
+   * @param batchSize the documents migrated by each "bulkWrite"
+   * @param batchDelay the minimum pause between the batches
+   * @throws IllegalStateException if two migrations have the same version
+   */
+  @Autowired
+  public MigrationRunner(
+      MongoTemplate mongoTemplate,
+      JobLock jobLock,
+      List<Migration> migrations,
+      @Value("${" + INTERVAL_PROPERTY + "}") Duration interval,
+      @Value("${" + BATCH_SIZE_PROPERTY + "}") int batchSize,
+      @Value("${" + BATCH_DELAY_PROPERTY + "}") Duration batchDelay) {
+    this.mongoTemplate = mongoTemplate;
+    this.jobLock = jobLock;
+    this.migrations =
+        migrations.stream()
+            .sorted(Comparator.comparingInt(Migration::getVersion))
+            .collect(Collectors.toList());
+    this.interval = interval;
+    this.batchSize = batchSize;
+    this.batchDelay = batchDelay;
+
+    for (int index = 1; index < this.migrations.size(); index++) {
+      if (this.migrations.get(index).getVersion() == this.migrations.get(index - 1).getVersion()) {
+        throw new IllegalStateException(
+            "Migration version " + this.migrations.get(index).getVersion() + " duplicated");
+      }
+    }
+  }
+
+  /** Runs the migrations not completed, if no other instance is running them. */
+  @Scheduled(
+      initialDelayString = "${" + INTERVAL_PROPERTY + "}",
+      fixedDelayString = "${" + INTERVAL_PROPERTY + "}")
+  public void run() {
+    try {
+      if (!jobLock.acquire(LOCK_NAME, interval)) {
+        return;
+      }
+    } catch (RuntimeException exception) {
+      log.warn("Lease of the migrations not taken", exception);
+      return;
+    }
+
+    long deadline = System.nanoTime() + interval.toNanos() / 2;
+
+    try {
+      for (Migration migration : migrations) {
+        MigrationCheckpoint checkpoint =
+            mongoTemplate.findById(migration.getVersion(), MigrationCheckpoint.class);
+
+        if (checkpoint == null) {
+          checkpoint =
+              MigrationCheckpoint.builder()
+                  .version(migration.getVersion())
+                  .description(migration.getDescription())
+                  .collection(getCollection(migration))
+                  .startedAt(TaskHelper.now())
+                  .build();
+        }
+
+        // Later versions wait until the previous ones complete
+        if (checkpoint.getCompletedAt() == null && !migrate(migration, checkpoint, deadline)) {
+          break;
+        }
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException exception) {
+      log.error("Migrations stopped", exception);
+    } finally {
+      jobLock.release(LOCK_NAME);
+    }
+  }
+
+  /**
+   * Reports the progress of each migration.
+   *
+   * @return the progress of each migration, in version order
+   */
+  public List<MigrationStatusDTO> getStatus() {
+    Map<Integer, MigrationCheckpoint> checkpoints =
+        mongoTemplate.findAll(MigrationCheckpoint.class).stream()
+            .collect(Collectors.toMap(MigrationCheckpoint::getVersion, Function.identity()));
+
+    return migrations.stream()
+        .map(
+            migration -> {
+              MigrationCheckpoint checkpoint = checkpoints.get(migration.getVersion());
+
+              return MigrationStatusDTO.builder()
+                  .version(migration.getVersion())
+                  .description(migration.getDescription())
+                  .collection(getCollection(migration))
+                  .migratedDocuments(checkpoint == null ? 0 : checkpoint.getMigratedDocuments())
+                  .startedAt(checkpoint == null ? null : checkpoint.getStartedAt())
+                  .checkpointAt(checkpoint == null ? null : checkpoint.getCheckpointAt())
+                  .completedAt(checkpoint == null ? null : checkpoint.getCompletedAt())
+                  .build();
+            })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Migrates the documents in batches, from the last id recorded.
+   *
+   * @param migration the migration
+   * @param checkpoint the progress
+   * @param deadline the time to stop, from {@link System#nanoTime()}
+   * @return whether the migration completed
+   * @throws InterruptedException if interrupted while pausing between the batches
+   */
+  private boolean migrate(Migration migration, MigrationCheckpoint checkpoint, long deadline)
+      throws InterruptedException {
+    String collection = checkpoint.getCollection();
+
+    while (System.nanoTime() < deadline) {
+      long batchStart = System.nanoTime();
+      List<Document> documents =
+          mongoTemplate.find(
+              MigrationHelper.getBatchQuery(
+                  migration.getPendingCriteria(), checkpoint.getLastId(), batchSize),
+              Document.class,
+              collection);
+
+      if (documents.isEmpty()) {
+        return endPass(migration, checkpoint);
+      }
+
+      String bulkWriteId = TaskHelper.newBulkWriteId();
+      List<WriteModel<Document>> writes = migration.migrate(documents, bulkWriteId);
+
+      if (!writes.isEmpty()) {
+        int migrated =
+            mongoTemplate
+                .getCollection(collection)
+                .bulkWrite(writes, MigrationHelper.WRITE_OPTIONS)
+                .getModifiedCount();
+        checkpoint.setMigratedDocuments(checkpoint.getMigratedDocuments() + migrated);
+
+        if (migrated > 0) {
+          migration.afterWrite(documents, bulkWriteId);
+        }
+      }
+
+      checkpoint.setLastId(documents.get(documents.size() - 1).get("_id"));
+      checkpoint.setCheckpointAt(TaskHelper.now());
+      mongoTemplate.save(checkpoint);
+
+      Thread.sleep(
+          MigrationHelper.getPause(batchDelay, Duration.ofNanos(System.nanoTime() - batchStart))
+              .toMillis());
+    }
+
+    return false;
+  }
+
+  /**
+   * Completes a migration once a pass left no document pending, or starts a new pass.
+   *
+   * @param migration the migration
+   * @param checkpoint the progress
+   * @return whether the migration completed
+   */
+  private boolean endPass(Migration migration, MigrationCheckpoint checkpoint) {
+    checkpoint.setLastId(null);
+    checkpoint.setCheckpointAt(TaskHelper.now());
+
+    if (mongoTemplate.exists(
+        Query.query(migration.getPendingCriteria()), checkpoint.getCollection())) {
+      // Documents written meanwhile were skipped, they are migrated by the next pass
+      mongoTemplate.save(checkpoint);
+
+      return false;
+    }
+
+    checkpoint.setCompletedAt(checkpoint.getCheckpointAt());
+    mongoTemplate.save(checkpoint);
+    log.info(
+        "Migration {} completed, {} documents migrated",
+        migration.getVersion(),
+        checkpoint.getMigratedDocuments());
+
+    return true;
+  }
+
+  private String getCollection(Migration migration) {
+    return mongoTemplate.getCollectionName(migration.getEntityClass());
+  }
+}
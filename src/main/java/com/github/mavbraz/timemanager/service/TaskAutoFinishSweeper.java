@@ -0,0 +1,184 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.mongodb.client.model.WriteModel;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finishes the tasks left with status "STARTED" longer than the property {@value
+ * #THRESHOLD_PROPERTY}, when the property {@value #ENABLED_PROPERTY} is "true".
+ *
+ * <p>Every {@value #INTERVAL_PROPERTY}, one instance of the application takes the lease of the
+ * job and finishes the tasks in batches of {@value #BATCH_SIZE_PROPERTY}, with one "updateMany"
+ * each. It pauses {@value #BATCH_DELAY_PROPERTY} between the batches, so it does not compete with
+ * the requests, and it stops after half the interval, leaving the other tasks to the next run.
+ *
+ * <p>The period being worked is closed at most the threshold after it started, so a forgotten
+ * task does not add the whole time it was left to the rollups. The tasks finished are recorded in
+ * the event log, like the transition "FINISH".
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = TaskAutoFinishSweeper.ENABLED_PROPERTY, havingValue = "true")
+public class TaskAutoFinishSweeper {
+
+  /** Property that enables the job. */
+  public static final String ENABLED_PROPERTY = "task.auto-finish.enabled";
+
+  /** Property with the time after which a task with status "STARTED" is finished. */
+  public static final String THRESHOLD_PROPERTY = "task.auto-finish.threshold";
+
+  /** Property with the time between the runs, and the lease of each run. */
+  public static final String INTERVAL_PROPERTY = "task.auto-finish.interval";
+
+  /** Property with the tasks finished by each "updateMany". */
+  public static final String BATCH_SIZE_PROPERTY = "task.auto-finish.batch-size";
+
+  /** Property with the pause between the batches. */
+  public static final String BATCH_DELAY_PROPERTY = "task.auto-finish.batch-delay";
+
+  private static final String LOCK_NAME = "task-auto-finish";
+
+  private final MongoTemplate mongoTemplate;
+  private final JobLock jobLock;
+  private final TaskEventLog eventLog;
+  private final WorkPeriodLog workPeriodLog;
+  private final Duration threshold;
+  private final Duration interval;
+  private final int batchSize;
+  private final Duration batchDelay;
+
+  /**
+   * Instantiates with the services and the properties autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param jobLock the lease service
+   * @param eventLog the event log service
+   * @param workPeriodLog the work period log service
+   * @param threshold the time after which a task with status "STARTED" is finished
+   * @param interval the time between the runs
+   * @param batchSize the tasks finished by each "updateMany"
+   * @param batchDelay the pause between the batches
+   */
+  @Autowired
+  public TaskAutoFinishSweeper(
+      MongoTemplate mongoTemplate,
+      JobLock jobLock,
+      TaskEventLog eventLog,
+      WorkPeriodLog workPeriodLog,
+      @Value("${" + THRESHOLD_PROPERTY + "}") Duration threshold,
+      @Value("${" + INTERVAL_PROPERTY + "}") Duration interval,
+      @Value("${" + BATCH_SIZE_PROPERTY + "}") int batchSize,
+      @Value("${" + BATCH_DELAY_PROPERTY + "}") Duration batchDelay) {
+    this.mongoTemplate = mongoTemplate;
+    this.jobLock = jobLock;
+    this.eventLog = eventLog;
+    this.workPeriodLog = workPeriodLog;
+    this.threshold = threshold;
+    this.interval = interval;
+    this.batchSize = batchSize;
+    this.batchDelay = batchDelay;
+  }
+
+  /** Finishes the tasks left with status "STARTED", if no other instance is doing it. */
+  @Scheduled(
+      initialDelayString = "${" + INTERVAL_PROPERTY + "}",
+      fixedDelayString = "${" + INTERVAL_PROPERTY + "}")
+  public void sweep() {
+    try {
+      if (!jobLock.acquire(LOCK_NAME, interval)) {
+        return;
+      }
+    } catch (RuntimeException exception) {
+      log.warn("Lease of the automatic finish not taken", exception);
+      return;
+    }
+
+    long deadline = System.nanoTime() + interval.toNanos() / 2;
+    int finished = 0;
+
+    try {
+      int selected;
+
+      do {
+        selected = finishBatch();
+        finished += selected;
+
+        if (selected == batchSize) {
+          Thread.sleep(batchDelay.toMillis());
+        }
+      } while (selected == batchSize && System.nanoTime() < deadline);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException exception) {
+      log.error("Automatic finish stopped", exception);
+    } finally {
+      jobLock.release(LOCK_NAME);
+    }
+
+    if (finished > 0) {
+      log.info("{} tasks left started finished automatically", finished);
+    }
+  }
+
+  /**
+   * Finishes the oldest batch of tasks left with status "STARTED".
+   *
+   * @return the tasks selected, some of them may have changed meanwhile and were skipped
+   */
+  private int finishBatch() {
+    LocalDateTime date = TaskHelper.now();
+    LocalDateTime cutoff = date.minus(threshold);
+    List<String> ids =
+        mongoTemplate.find(TaskHelper.getStaleQuery(cutoff, batchSize), Task.class).stream()
+            .map(Task::getId)
+            .collect(Collectors.toList());
+
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    mongoTemplate.updateMulti(
+        TaskHelper.getStaleQuery(ids, cutoff),
+        TaskHelper.getAutoFinishUpdate(date, threshold, mongoTemplate.getConverter()),
+        Task.class);
+    List<Document> finished =
+        mongoTemplate
+            .aggregate(TaskHelper.getAutoFinishedAggregation(ids, date), Document.class)
+            .getMappedResults();
+    finished.forEach(
+        task -> eventLog.append(TaskEventType.FINISHED, task.get("_id").toString(), task));
+    finished.forEach(workPeriodLog::append);
+
+    List<WriteModel<Document>> rollupUpdates =
+        finished.stream()
+            .flatMap(
+                task ->
+                    RollupHelper.getRollupUpdates(task, true, mongoTemplate.getConverter())
+                        .stream())
+            .collect(Collectors.toList());
+
+    if (!rollupUpdates.isEmpty()) {
+      mongoTemplate.execute(
+          TimeRollup.class,
+          collection -> collection.bulkWrite(rollupUpdates, RollupHelper.WRITE_OPTIONS));
+    }
+
+    return ids.size();
+  }
+}
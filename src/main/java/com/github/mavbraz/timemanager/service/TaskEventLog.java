@@ -0,0 +1,226 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.TaskEvent;
+import com.github.mavbraz.timemanager.entity.TaskSnapshot;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.TaskEventHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Appends the writes of tasks to the collection "task_events", in batches.
+ *
+ * <p>The controllers only queue the events, so recording them does not add a round trip to the
+ * writes. A single thread inserts the queued events every {@value #FLUSH_INTERVAL_MILLIS}
+ * milliseconds, with one "insertMany" per batch, and the snapshots due with another one. Queued
+ * events are written on shutdown, but they are lost if the application stops abruptly.
+ *
+ * <p>Each event gets the next sequence of the log when inserted, in the order queued. The
+ * sequences of a batch are reserved from the collection "counters" with a single "$inc" right
+ * before its insert, so they increase in the order the batches are written, across instances.
+ *
+ * <p>A task is recorded as deleted once: the deletes of a task already recorded as deleted, also
+ * earlier in the same batch, are dropped before the insert. A bulk delete hands all the ids
+ * requested, and concurrent deletes may hand the same ones.
+ */
+@Slf4j
+@Service
+public class TaskEventLog {
+
+  /** Events inserted together. */
+  public static final int BATCH_SIZE = 500;
+
+  /** Time between the writes of the queued events. */
+  public static final long FLUSH_INTERVAL_MILLIS = 100;
+
+  /** Events queued at most, after that the writes wait for room. */
+  private static final int QUEUE_CAPACITY = 100_000;
+
+  private static final String COUNTERS_COLLECTION = "counters";
+
+  /** Counter of the sequences of the log. */
+  private static final String COUNTER_ID = "task_events";
+
+  private final MongoTemplate mongoTemplate;
+  private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "task-event-log");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Instantiates with the services autowired by Spring and starts the periodic writes.
+   *
+   * @param mongoTemplate the template service
+   */
+  @Autowired
+  public TaskEventLog(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+    executor.scheduleWithFixedDelay(
+        this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queues an event of a task.
+   *
+   * @param type the event type
+   * @param taskId the task id
+   * @param state the stored task after the event, none after a delete
+   */
+  public void append(TaskEventType type, String taskId, Document state) {
+    var event =
+        TaskEvent.builder()
+            .taskId(taskId)
+            .type(type)
+            .date(TaskHelper.now())
+            .version(state == null ? null : ((Number) state.get("version")).longValue())
+            .changes(TaskEventHelper.getChanges(type, state))
+            .build();
+
+    try {
+      // The whole task is only kept until written, if a snapshot is due
+      queue.put(new PendingEvent(event, TaskEventHelper.isSnapshot(state) ? state : null));
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted, event {} of task {} not recorded", type, taskId);
+    }
+  }
+
+  /** Writes the queued events on shutdown. */
+  @PreDestroy
+  public void close() {
+    executor.shutdown();
+
+    try {
+      executor.awaitTermination(FLUSH_INTERVAL_MILLIS * 10, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    flush();
+  }
+
+  /** Writes the queued events, a batch at a time. */
+  private synchronized void flush() {
+    var events = new ArrayList<PendingEvent>(BATCH_SIZE);
+
+    while (queue.drainTo(events, BATCH_SIZE) > 0) {
+      try {
+        write(events);
+      } catch (RuntimeException exception) {
+        log.error("{} task events not recorded", events.size(), exception);
+      }
+
+      events.clear();
+    }
+  }
+
+  private void write(List<PendingEvent> pendingEvents) {
+    Set<String> deletedTaskIds = findDeletedTaskIds(pendingEvents);
+    List<PendingEvent> newEvents =
+        pendingEvents.stream()
+            .filter(
+                pendingEvent ->
+                    pendingEvent.event.getType() != TaskEventType.DELETED
+                        || deletedTaskIds.add(pendingEvent.event.getTaskId()))
+            .collect(Collectors.toList());
+
+    if (newEvents.isEmpty()) {
+      return;
+    }
+
+    var events = new ArrayList<TaskEvent>(newEvents.size());
+    var snapshots = new ArrayList<TaskSnapshot>();
+    long nextSequence = reserveSequences(newEvents.size());
+
+    for (PendingEvent pendingEvent : newEvents) {
+      TaskEvent event = pendingEvent.event;
+      event.setSequence(nextSequence++);
+      events.add(event);
+
+      if (pendingEvent.snapshotState != null) {
+        snapshots.add(
+            TaskSnapshot.builder()
+                .sequence(event.getSequence())
+                .taskId(event.getTaskId())
+                .date(event.getDate())
+                .version(event.getVersion())
+                .state(pendingEvent.snapshotState)
+                .build());
+      }
+    }
+
+    mongoTemplate.insert(events, TaskEvent.class);
+
+    if (!snapshots.isEmpty()) {
+      mongoTemplate.insert(snapshots, TaskSnapshot.class);
+    }
+  }
+
+  private Set<String> findDeletedTaskIds(List<PendingEvent> pendingEvents) {
+    Set<String> taskIds =
+        pendingEvents.stream()
+            .map(pendingEvent -> pendingEvent.event)
+            .filter(event -> event.getType() == TaskEventType.DELETED)
+            .map(TaskEvent::getTaskId)
+            .collect(Collectors.toSet());
+
+    if (taskIds.isEmpty()) {
+      return new HashSet<>();
+    }
+
+    var query =
+        Query.query(Criteria.where("taskId").in(taskIds).and("type").is(TaskEventType.DELETED));
+    query.fields().include("taskId");
+
+    return mongoTemplate.find(query, TaskEvent.class).stream()
+        .map(TaskEvent::getTaskId)
+        .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  private long reserveSequences(int count) {
+    Document counter =
+        mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(COUNTER_ID)),
+            new Update().inc("sequence", (long) count),
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            Document.class,
+            COUNTERS_COLLECTION);
+
+    return ((Number) counter.get("sequence")).longValue() - count + 1;
+  }
+
+  /** Event queued, with the task of its snapshot if one is due. */
+  private static class PendingEvent {
+
+    private final TaskEvent event;
+    private final Document snapshotState;
+
+    PendingEvent(TaskEvent event, Document snapshotState) {
+      this.event = event;
+      this.snapshotState = snapshotState;
+    }
+  }
+}
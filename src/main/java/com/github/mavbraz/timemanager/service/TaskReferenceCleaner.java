@@ -0,0 +1,291 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.ReferenceCleanup;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.ReferenceType;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Removes the references to the deleted people and projects from the tasks, so they do not keep
+ * references that are dropped on every read.
+ *
+ * <p>The controllers only queue the deletes. A single thread stores a cleanup for each one in the
+ * collection "reference_cleanups" and runs them, with the lease of the job, in batches of
+ * {@value #BATCH_SIZE_PROPERTY} tasks, with one "updateMany" each. It pauses {@value
+ * #BATCH_DELAY_PROPERTY} between the batches, so deleting a large project does not compete with
+ * the requests, and it stops after half the lease.
+ *
+ * <p>Every {@value #INTERVAL_PROPERTY}, the cleanups left are resumed, also the ones of an instance
+ * that stopped. Queued deletes are lost if the application stops abruptly before they are stored.
+ * The tasks cleaned by each batch are read back by the id of its write and recorded in the event
+ * log.
+ *
+ * <p>The cleanup of a reference no task has, also of an id that did not exist or was already
+ * cleaned, finds no task on its first batch and is removed, so the same delete may be queued more
+ * than once.
+ */
+@Slf4j
+@Service
+public class TaskReferenceCleaner {
+
+  /** Property with the time between the runs, and the lease of each run. */
+  public static final String INTERVAL_PROPERTY = "task.reference-cleanup.interval";
+
+  /** Property with the tasks cleaned by each "updateMany". */
+  public static final String BATCH_SIZE_PROPERTY = "task.reference-cleanup.batch-size";
+
+  /** Property with the pause between the batches. */
+  public static final String BATCH_DELAY_PROPERTY = "task.reference-cleanup.batch-delay";
+
+  private static final String LOCK_NAME = "task-reference-cleanup";
+
+  /** Time the queued deletes have to be stored on shutdown. */
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final MongoTemplate mongoTemplate;
+  private final JobLock jobLock;
+  private final TaskEventLog eventLog;
+  private final Duration interval;
+  private final int batchSize;
+  private final Duration batchDelay;
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "task-reference-cleaner");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Instantiates with the services and the properties autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param jobLock the lease service
+   * @param eventLog the event log service
+   * @param interval the time between the runs
+   * @param batchSize the tasks cleaned by each "updateMany"
+   * @param batchDelay the pause between the batches
+   */
+  @Autowired
+  public TaskReferenceCleaner(
+      MongoTemplate mongoTemplate,
+      JobLock jobLock,
+      TaskEventLog eventLog,
+      @Value("${" + INTERVAL_PROPERTY + "}") Duration interval,
+      @Value("${" + BATCH_SIZE_PROPERTY + "}") int batchSize,
+      @Value("${" + BATCH_DELAY_PROPERTY + "}") Duration batchDelay) {
+    this.mongoTemplate = mongoTemplate;
+    this.jobLock = jobLock;
+    this.eventLog = eventLog;
+    this.interval = interval;
+    this.batchSize = batchSize;
+    this.batchDelay = batchDelay;
+  }
+
+  /**
+   * Queues the removal of deleted people from the contributors of the tasks.
+   *
+   * @param ids the ids of the deleted people, or requested by a bulk delete
+   */
+  public void personsRemoved(Collection<String> ids) {
+    removed(ReferenceType.PERSON, ids);
+  }
+
+  /**
+   * Queues the removal of deleted projects from the tasks.
+   *
+   * @param ids the ids of the deleted projects, or requested by a bulk delete
+   */
+  public void projectsRemoved(Collection<String> ids) {
+    removed(ReferenceType.PROJECT, ids);
+  }
+
+  /** Resumes the cleanups left, if no other instance is running them. */
+  @Scheduled(
+      initialDelayString = "${" + INTERVAL_PROPERTY + "}",
+      fixedDelayString = "${" + INTERVAL_PROPERTY + "}")
+  public void resume() {
+    executor.execute(this::clean);
+  }
+
+  /**
+   * Stores the queued deletes on shutdown. The cleanups that do not finish in time are resumed on
+   * the next start.
+   */
+  @PreDestroy
+  public void close() {
+    executor.shutdown();
+
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void removed(ReferenceType type, Collection<String> ids) {
+    List<ReferenceCleanup> cleanups =
+        ids.stream()
+            .map(
+                id ->
+                    ReferenceCleanup.builder()
+                        .type(type)
+                        .reference(id)
+                        .createdAt(TaskHelper.now())
+                        .build())
+            .collect(Collectors.toList());
+
+    executor.execute(
+        () -> {
+          try {
+            mongoTemplate.insert(cleanups, ReferenceCleanup.class);
+          } catch (RuntimeException exception) {
+            log.error("References to {} {} not removed from the tasks", type, ids, exception);
+            return;
+          }
+
+          clean();
+        });
+  }
+
+  /** Runs the cleanups in the order created, until none is left or half the lease passed. */
+  private void clean() {
+    try {
+      if (!jobLock.acquire(LOCK_NAME, interval)) {
+        return;
+      }
+    } catch (RuntimeException exception) {
+      log.warn("Lease of the reference cleanup not taken", exception);
+      return;
+    }
+
+    long deadline = System.nanoTime() + interval.toNanos() / 2;
+
+    try {
+      while (System.nanoTime() < deadline) {
+        ReferenceCleanup cleanup =
+            mongoTemplate.findOne(new Query().with(Sort.by("createdAt")), ReferenceCleanup.class);
+
+        if (cleanup == null) {
+          break;
+        }
+
+        clean(cleanup, deadline);
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException exception) {
+      log.error("Reference cleanup stopped", exception);
+    } finally {
+      jobLock.release(LOCK_NAME);
+    }
+  }
+
+  /**
+   * Cleans the tasks of a cleanup in batches, and removes it once no task is left.
+   *
+   * @param cleanup the cleanup
+   * @param deadline the time to stop, from {@link System#nanoTime()}
+   * @throws InterruptedException if interrupted while pausing between the batches
+   */
+  private void clean(ReferenceCleanup cleanup, long deadline) throws InterruptedException {
+    int selected;
+
+    do {
+      selected = cleanBatch(cleanup);
+
+      if (selected == batchSize) {
+        Thread.sleep(batchDelay.toMillis());
+      }
+    } while (selected == batchSize && System.nanoTime() < deadline);
+
+    if (selected < batchSize) {
+      mongoTemplate.remove(cleanup);
+    }
+
+    if (selected < batchSize && cleanup.getCleanedTasks() > 0) {
+      log.info(
+          "References to {} {} removed from {} tasks",
+          cleanup.getType(),
+          cleanup.getReference(),
+          cleanup.getCleanedTasks());
+    }
+  }
+
+  /**
+   * Cleans a batch of the tasks that still have the reference, and records the progress.
+   *
+   * @param cleanup the cleanup
+   * @return the tasks selected, some of them may have changed meanwhile and were skipped
+   */
+  private int cleanBatch(ReferenceCleanup cleanup) {
+    List<String> ids =
+        mongoTemplate
+            .find(
+                TaskHelper.getReferencingQuery(
+                    cleanup.getType(),
+                    cleanup.getReference(),
+                    batchSize,
+                    mongoTemplate.getConverter()),
+                Task.class)
+            .stream()
+            .map(Task::getId)
+            .collect(Collectors.toList());
+
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    String bulkWriteId = TaskHelper.newBulkWriteId();
+    long cleaned =
+        mongoTemplate
+            .updateMulti(
+                TaskHelper.getReferencingQuery(
+                    ids, cleanup.getType(), cleanup.getReference(), mongoTemplate.getConverter()),
+                TaskHelper.getReferenceRemovalUpdate(
+                    cleanup.getType(),
+                    cleanup.getReference(),
+                    bulkWriteId,
+                    mongoTemplate.getConverter()),
+                Task.class)
+            .getModifiedCount();
+
+    if (cleaned > 0) {
+      mongoTemplate
+          .aggregate(TaskHelper.getBulkWrittenAggregation(ids, bulkWriteId), Document.class)
+          .forEach(
+              task -> eventLog.append(TaskEventType.UPDATED, task.get("_id").toString(), task));
+    }
+
+    cleanup.setCleanedTasks(cleanup.getCleanedTasks() + cleaned);
+    cleanup.setCheckpointAt(TaskHelper.now());
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("id").is(cleanup.getId())),
+        new Update()
+            .set("cleanedTasks", cleanup.getCleanedTasks())
+            .set("checkpointAt", cleanup.getCheckpointAt()),
+        ReferenceCleanup.class);
+
+    return ids.size();
+  }
+}
@@ -0,0 +1,102 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.helper.MigrationHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embeds the summaries of the contributors and of the project in the tasks written before they
+ * existed, which are read meanwhile by loading their references.
+ *
+ * <p>The references of a batch are loaded with one query for the people and another one for the
+ * projects.
+ *
+ * @see MigrationHelper#getSummariesUpdate(Document, Task, MongoConverter)
+ */
+@Component
+public class TaskSummariesMigration implements Migration {
+
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   */
+  @Autowired
+  public TaskSummariesMigration(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Embed the summaries of the contributors and of the project in the tasks";
+  }
+
+  @Override
+  public Class<? extends BaseDocument> getEntityClass() {
+    return Task.class;
+  }
+
+  @Override
+  public Criteria getPendingCriteria() {
+    return Criteria.where("contributorSummaries").exists(false);
+  }
+
+  @Override
+  public List<WriteModel<Document>> migrate(List<Document> documents, String bulkWriteId) {
+    MongoConverter converter = mongoTemplate.getConverter();
+    // The references are read with only the id
+    List<Task> tasks =
+        documents.stream()
+            .map(document -> converter.read(Task.class, document))
+            .collect(Collectors.toList());
+
+    TaskHelper.setReferences(
+        tasks,
+        findAllById(TaskHelper.getContributorIds(tasks), Person.class),
+        findAllById(TaskHelper.getProjectIds(tasks), Project.class));
+    TaskHelper.setSummaries(tasks);
+
+    var writes = new ArrayList<WriteModel<Document>>(documents.size());
+
+    for (int index = 0; index < documents.size(); index++) {
+      writes.add(
+          MigrationHelper.getSummariesUpdate(documents.get(index), tasks.get(index), converter));
+    }
+
+    return writes;
+  }
+
+  private <R extends BaseDocument> Map<String, R> findAllById(
+      Set<String> ids, Class<R> entityClass) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+
+    return mongoTemplate.find(Query.query(Criteria.where("id").in(ids)), entityClass).stream()
+        .collect(Collectors.toMap(BaseDocument::getId, Function.identity()));
+  }
+}
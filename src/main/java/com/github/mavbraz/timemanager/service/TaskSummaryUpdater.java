@@ -0,0 +1,122 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Updates the names in the summaries embedded in the tasks when a person or a project is renamed.
+ *
+ * <p>The controllers only queue the renames, so the write of a person or of a project does not
+ * wait for its tasks. A single thread applies them in the order queued, with one "updateMany" each
+ * that only matches the tasks that still have another name. The tasks changed are then read back
+ * by the id of the write and recorded in the event log. Queued renames are applied on shutdown,
+ * but they are lost if the application stops abruptly, until the next rename.
+ */
+@Slf4j
+@Service
+public class TaskSummaryUpdater {
+
+  /** Time the queued renames have to finish on shutdown. */
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final MongoTemplate mongoTemplate;
+  private final TaskEventLog eventLog;
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "task-summary-updater");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param eventLog the event log service
+   */
+  @Autowired
+  public TaskSummaryUpdater(MongoTemplate mongoTemplate, TaskEventLog eventLog) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventLog = eventLog;
+  }
+
+  /**
+   * Queues the update of the summaries of a person, after it is saved.
+   *
+   * @param person the saved person
+   */
+  public void personRenamed(Person person) {
+    String bulkWriteId = TaskHelper.newBulkWriteId();
+    update(
+        TaskHelper.getContributorRenameQuery(person),
+        TaskHelper.getContributorRenameUpdate(person, bulkWriteId),
+        bulkWriteId,
+        "person " + person.getId());
+  }
+
+  /**
+   * Queues the update of the summaries of a project, after it is saved.
+   *
+   * @param project the saved project
+   */
+  public void projectRenamed(Project project) {
+    String bulkWriteId = TaskHelper.newBulkWriteId();
+    update(
+        TaskHelper.getProjectRenameQuery(project),
+        TaskHelper.getProjectRenameUpdate(project, bulkWriteId),
+        bulkWriteId,
+        "project " + project.getId());
+  }
+
+  /** Applies the queued renames on shutdown. */
+  @PreDestroy
+  public void close() {
+    executor.shutdown();
+
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void update(Query query, Update update, String bulkWriteId, String reference) {
+    executor.execute(
+        () -> {
+          try {
+            long modified = mongoTemplate.updateMulti(query, update, Task.class).getModifiedCount();
+
+            if (modified > 0) {
+              try (CloseableIterator<Document> tasks =
+                  mongoTemplate.aggregateStream(
+                      TaskHelper.getBulkWrittenAggregation(bulkWriteId), Document.class)) {
+                tasks.forEachRemaining(
+                    task ->
+                        eventLog.append(
+                            TaskEventType.UPDATED, task.get("_id").toString(), task));
+              }
+            }
+
+            log.debug("Summaries of {} updated in {} tasks", reference, modified);
+          } catch (RuntimeException exception) {
+            log.error("Summaries of {} not updated", reference, exception);
+          }
+        });
+  }
+}
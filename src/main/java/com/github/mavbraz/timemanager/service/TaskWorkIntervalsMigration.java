@@ -0,0 +1,85 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.BaseDocument;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.MigrationHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.mongodb.client.model.WriteModel;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives the periods worked and the time worked to the tasks written before they existed, which
+ * are read meanwhile with no period and no time worked.
+ *
+ * @see MigrationHelper#getWorkIntervalsUpdate(Document, String)
+ */
+@Component
+public class TaskWorkIntervalsMigration implements Migration {
+
+  private final MongoTemplate mongoTemplate;
+  private final TaskEventLog eventLog;
+
+  /**
+   * Instantiates with the services autowired by Spring.
+   *
+   * @param mongoTemplate the template service
+   * @param eventLog the event log service
+   */
+  @Autowired
+  public TaskWorkIntervalsMigration(MongoTemplate mongoTemplate, TaskEventLog eventLog) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventLog = eventLog;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Set the periods worked and the duration of the tasks from their start and finish";
+  }
+
+  @Override
+  public Class<? extends BaseDocument> getEntityClass() {
+    return Task.class;
+  }
+
+  @Override
+  public Criteria getPendingCriteria() {
+    return Criteria.where("workIntervals").exists(false);
+  }
+
+  @Override
+  public List<WriteModel<Document>> migrate(List<Document> documents, String bulkWriteId) {
+    return documents.stream()
+        .map(document -> MigrationHelper.getWorkIntervalsUpdate(document, bulkWriteId))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Records the tasks migrated in the event log, as their version was incremented.
+   *
+   * @param documents the stored tasks of the batch, as read
+   * @param bulkWriteId the id of the writes of the batch
+   */
+  @Override
+  public void afterWrite(List<Document> documents, String bulkWriteId) {
+    List<String> ids =
+        documents.stream()
+            .map(document -> document.get("_id").toString())
+            .collect(Collectors.toList());
+
+    mongoTemplate
+        .aggregate(TaskHelper.getBulkWrittenAggregation(ids, bulkWriteId), Document.class)
+        .forEach(task -> eventLog.append(TaskEventType.UPDATED, task.get("_id").toString(), task));
+  }
+}
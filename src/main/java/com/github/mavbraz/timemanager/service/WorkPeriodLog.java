@@ -0,0 +1,178 @@
+package com.github.mavbraz.timemanager.service;
+
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.WorkPeriod;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.mongodb.MongoCommandException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores the periods worked on the tasks in the time-series collection {@value
+ * WorkPeriod#COLLECTION}, in batches.
+ *
+ * <p>The controllers only queue the periods, so storing them does not add a round trip to the
+ * transitions. A single thread inserts the queued periods every {@value #FLUSH_INTERVAL_MILLIS}
+ * milliseconds, with one "insertMany" per batch. Queued periods are written on shutdown, but they
+ * are lost if the application stops abruptly, or dropped if the queue is full, and the daily
+ * rollups stay the reference of the time worked.
+ *
+ * <p>The collection is created before the first write, as MongoDB only creates time-series
+ * collections explicitly. Servers before MongoDB 5.0 refuse it, and the periods are then stored in
+ * a regular collection.
+ */
+@Slf4j
+@Service
+public class WorkPeriodLog {
+
+  /** Periods inserted together. */
+  public static final int BATCH_SIZE = 1000;
+
+  /** Time between the writes of the queued periods. */
+  public static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+  /** Periods queued at most, after that new ones are dropped. */
+  private static final int QUEUE_CAPACITY = 100_000;
+
+  /** Error code of MongoDB for a collection that already exists. */
+  private static final int NAMESPACE_EXISTS_ERROR_CODE = 48;
+
+  /** Periods are grouped by project or person, and read by ranges of days. */
+  private static final Document CREATE_COMMAND =
+      new Document("create", WorkPeriod.COLLECTION)
+          .append(
+              "timeseries",
+              new Document("timeField", "start")
+                  .append("metaField", "meta")
+                  .append("granularity", "hours"));
+
+  private final MongoTemplate mongoTemplate;
+  private final BlockingQueue<WorkPeriod> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "work-period-log");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** Whether the collection exists, only used while writing. */
+  private boolean collectionCreated;
+
+  /**
+   * Instantiates with the services autowired by Spring and starts the periodic writes.
+   *
+   * @param mongoTemplate the template service
+   */
+  @Autowired
+  public WorkPeriodLog(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+    executor.scheduleWithFixedDelay(
+        this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queues the last period worked of a task, after a transition closed it.
+   *
+   * @param task the saved task, whose references hold at least the id
+   */
+  public void append(Task task) {
+    queue(RollupHelper.getWorkPeriods(task));
+  }
+
+  /**
+   * Queues the last period worked of a task read without mapping, after a transition closed it.
+   *
+   * @param task the stored task
+   */
+  public void append(Document task) {
+    queue(RollupHelper.getWorkPeriods(task, mongoTemplate.getConverter()));
+  }
+
+  /** Writes the queued periods on shutdown. */
+  @PreDestroy
+  public void close() {
+    executor.shutdown();
+
+    try {
+      executor.awaitTermination(FLUSH_INTERVAL_MILLIS * 2, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    flush();
+  }
+
+  private void queue(List<WorkPeriod> periods) {
+    for (WorkPeriod period : periods) {
+      if (!queue.offer(period)) {
+        log.warn("Queue full, period of task {} not stored", period.getTaskId());
+      }
+    }
+  }
+
+  /** Writes the queued periods, a batch at a time. */
+  private synchronized void flush() {
+    if (queue.isEmpty()) {
+      return;
+    }
+
+    try {
+      createCollection();
+    } catch (RuntimeException exception) {
+      // The periods stay queued until the next write
+      log.error("Collection {} not created", WorkPeriod.COLLECTION, exception);
+      return;
+    }
+
+    var periods = new ArrayList<WorkPeriod>(BATCH_SIZE);
+
+    while (queue.drainTo(periods, BATCH_SIZE) > 0) {
+      try {
+        mongoTemplate.insert(periods, WorkPeriod.class);
+      } catch (RuntimeException exception) {
+        log.error("{} work periods not stored", periods.size(), exception);
+      }
+
+      periods.clear();
+    }
+  }
+
+  private void createCollection() {
+    if (collectionCreated) {
+      return;
+    }
+
+    try {
+      if (!mongoTemplate.collectionExists(WorkPeriod.class)) {
+        mongoTemplate.executeCommand(CREATE_COMMAND);
+      }
+    } catch (DataAccessException exception) {
+      if (!(exception.getCause() instanceof MongoCommandException)) {
+        throw exception;
+      }
+
+      if (((MongoCommandException) exception.getCause()).getErrorCode()
+          != NAMESPACE_EXISTS_ERROR_CODE) {
+        log.warn(
+            "Time-series collection {} not created, periods are stored in a regular collection",
+            WorkPeriod.COLLECTION,
+            exception);
+      }
+    }
+
+    collectionCreated = true;
+  }
+}
@@ -0,0 +1,130 @@
+package com.github.mavbraz.timemanager.benchmark;
+
+import com.github.mavbraz.timemanager.controller.TaskController;
+import com.github.mavbraz.timemanager.dto.ListQueryDTO;
+import com.github.mavbraz.timemanager.dto.TaskListQueryDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.helper.BenchmarkHelper;
+import com.github.mavbraz.timemanager.mapper.TaskMapper;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import com.github.mavbraz.timemanager.repository.ProjectRepository;
+import com.github.mavbraz.timemanager.repository.TaskRepository;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Compares a page of tasks whose references are resolved by the converter, one query per task and
+ * reference, with the one whose references are loaded for the whole page.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+public class ReferenceLoadingBenchmarkTest {
+
+  private static final int WARM_UP = 20;
+  private static final int ITERATIONS = 200;
+  private static final int TASKS = ListQueryDTO.MAX_LIMIT;
+  private static final int CONTRIBUTORS = 3;
+  private static final int PEOPLE = 100;
+  private static final int PROJECTS = 10;
+
+  @Autowired private TaskController taskController;
+  @Autowired private TaskMapper taskMapper;
+  @Autowired private MongoDatabaseFactory databaseFactory;
+  @Autowired private MongoMappingContext mappingContext;
+  @Autowired private MongoCustomConversions conversions;
+  @Autowired private PersonRepository personRepository;
+  @Autowired private ProjectRepository projectRepository;
+  @Autowired private TaskRepository taskRepository;
+
+  @AfterEach
+  public void reset() {
+    personRepository.deleteAll();
+    projectRepository.deleteAll();
+    taskRepository.deleteAll();
+  }
+
+  @Test
+  public void Given_TasksWithReferences_When_GettingPage_Then_CompareResolvedWithBatched() {
+    List<Person> people =
+        personRepository.saveAll(
+            IntStream.range(0, PEOPLE)
+                .mapToObj(i -> Person.builder().name("Person " + i).build())
+                .collect(Collectors.toList()));
+    List<Project> projects =
+        projectRepository.saveAll(
+            IntStream.range(0, PROJECTS)
+                .mapToObj(i -> Project.builder().name("Project " + i).build())
+                .collect(Collectors.toList()));
+    taskRepository.saveAll(
+        IntStream.range(0, TASKS)
+            .mapToObj(
+                i ->
+                    Task.builder()
+                        .description("Task " + i)
+                        .contributors(
+                            IntStream.range(0, CONTRIBUTORS)
+                                .mapToObj(j -> people.get((i + j) % PEOPLE))
+                                .collect(Collectors.toList()))
+                        .project(projects.get(i % PROJECTS))
+                        .build())
+            .collect(Collectors.toList()));
+
+    MongoTemplate resolvingTemplate = createResolvingTemplate();
+    var query = new Query().with(Sort.by("id")).limit(TASKS);
+    var listQuery = new TaskListQueryDTO();
+    listQuery.setLimit(TASKS);
+
+    var resolved =
+        BenchmarkHelper.measure(
+            "tasks page: @DBRef resolution",
+            WARM_UP,
+            ITERATIONS,
+            () -> taskMapper.mapToDTO(resolvingTemplate.find(query, Task.class)));
+    var batched =
+        BenchmarkHelper.measure(
+            "tasks page: batched references",
+            WARM_UP,
+            ITERATIONS,
+            () ->
+                taskController.getAll(
+                    listQuery, new ServletWebRequest(new MockHttpServletRequest())));
+
+    log.info("{}", resolved);
+    log.info("{}", batched);
+  }
+
+  /** Builds a template whose converter resolves the references, as the default one did. */
+  private MongoTemplate createResolvingTemplate() {
+    var converter =
+        new MappingMongoConverter(new DefaultDbRefResolver(databaseFactory), mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.setCodecRegistryProvider(databaseFactory);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+
+    return new MongoTemplate(databaseFactory, converter);
+  }
+}
@@ -0,0 +1,108 @@
+package com.github.mavbraz.timemanager.benchmark;
+
+import com.github.mavbraz.timemanager.TimeManagerApplication;
+import com.github.mavbraz.timemanager.configuration.VirtualThreadConfig;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.helper.BenchmarkHelper;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Compares the requests served by the Tomcat worker pool with the ones served by virtual threads,
+ * under more concurrent requests than workers.
+ *
+ * <p>Each mode starts its own server on the test database. Run with {@code mvn test -Pbenchmark}
+ * on Java 21 or later, on older runtimes it is skipped, as the experimental mode of {@link
+ * VirtualThreadConfig} can not start.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+public class RequestThreadsBenchmarkTest {
+
+  private static final int WORKER_THREADS = 50;
+  private static final int CONCURRENCY = 400;
+  private static final int WARM_UP = 2000;
+  private static final int ITERATIONS = 20000;
+  private static final int PEOPLE = 100;
+
+  @Autowired private Environment environment;
+  @Autowired private PersonRepository personRepository;
+
+  @AfterEach
+  public void reset() {
+    personRepository.deleteAll();
+  }
+
+  @Test
+  public void Given_People_When_GettingAllConcurrently_Then_ComparePlatformWithVirtualThreads()
+      throws Exception {
+    Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21");
+
+    personRepository.saveAll(
+        IntStream.range(0, PEOPLE)
+            .mapToObj(i -> Person.builder().name("Person " + i).build())
+            .collect(Collectors.toList()));
+
+    var platformThreads = measure("GET /person: platform threads", false);
+    var virtualThreads = measure("GET /person: virtual threads", true);
+
+    log.info("{}", platformThreads);
+    log.info("{}", virtualThreads);
+  }
+
+  private BenchmarkHelper.Result measure(String name, boolean virtualThreads) throws Exception {
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(TimeManagerApplication.class)
+            .run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + WORKER_THREADS,
+                "--" + VirtualThreadConfig.ENABLED_PROPERTY + "=" + virtualThreads,
+                "--spring.data.mongodb.uri=" + environment.getProperty("spring.data.mongodb.uri"),
+                // Reuses the database of the test, instead of starting another one
+                "--embedded.mongodb.enabled=false",
+                "--spring.devtools.restart.enabled=false")) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/person?limit=50"))
+              .build();
+
+      return BenchmarkHelper.measureConcurrently(
+          name, CONCURRENCY, WARM_UP, ITERATIONS, () -> send(client, request));
+    }
+  }
+
+  private static void send(HttpClient client, HttpRequest request) {
+    try {
+      int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+
+      if (status != 200) {
+        throw new IllegalStateException("Unexpected status " + status);
+      }
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(exception);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.github.mavbraz.timemanager.benchmark;
+
+import com.github.mavbraz.timemanager.controller.PersonController;
+import com.github.mavbraz.timemanager.controller.TaskController;
+import com.github.mavbraz.timemanager.dto.PersonDTO;
+import com.github.mavbraz.timemanager.dto.ProjectDTO;
+import com.github.mavbraz.timemanager.dto.TaskDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.helper.BenchmarkHelper;
+import com.github.mavbraz.timemanager.mapper.PersonMapper;
+import com.github.mavbraz.timemanager.mapper.TaskMapper;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import com.github.mavbraz.timemanager.repository.ProjectRepository;
+import com.github.mavbraz.timemanager.repository.TaskRepository;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Compares the write path that re-reads the saved entity with the one that returns the save
+ * result.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+public class WritePathBenchmarkTest {
+
+  private static final int WARM_UP = 200;
+  private static final int ITERATIONS = 2000;
+
+  @Autowired private PersonController personController;
+  @Autowired private TaskController taskController;
+  @Autowired private PersonMapper personMapper;
+  @Autowired private TaskMapper taskMapper;
+  @Autowired private PersonRepository personRepository;
+  @Autowired private ProjectRepository projectRepository;
+  @Autowired private TaskRepository taskRepository;
+
+  @AfterEach
+  public void reset() {
+    personRepository.deleteAll();
+    projectRepository.deleteAll();
+    taskRepository.deleteAll();
+  }
+
+  @Test
+  public void Given_Person_When_Creating_Then_CompareReReadWithSaveResult() {
+    PersonDTO personDTO = PersonDTO.builder().name("Person DTO Name").build();
+
+    var reRead =
+        BenchmarkHelper.measure(
+            "person: save + re-read",
+            WARM_UP,
+            ITERATIONS,
+            () -> {
+              var entity = personRepository.save(personMapper.toEntity(personDTO));
+              personMapper.toDTO(personRepository.findById(entity.getId()).orElseThrow());
+            });
+    var saveResult =
+        BenchmarkHelper.measure(
+            "person: save result",
+            WARM_UP,
+            ITERATIONS,
+            () -> personController.create(personDTO));
+
+    log.info("{}", reRead);
+    log.info("{}", saveResult);
+  }
+
+  @Test
+  public void Given_Task_When_Creating_Then_CompareReReadWithSaveResult() {
+    List<PersonDTO> contributors =
+        personRepository
+            .saveAll(
+                List.of(
+                    Person.builder().name("Person 1").build(),
+                    Person.builder().name("Person 2").build(),
+                    Person.builder().name("Person 3").build()))
+            .stream()
+            .map(person -> PersonDTO.builder().id(person.getId()).build())
+            .collect(Collectors.toList());
+    Project project = projectRepository.save(Project.builder().name("Project").build());
+    TaskDTO taskDTO =
+        TaskDTO.builder()
+            .description("Task DTO Description")
+            .contributors(contributors)
+            .project(ProjectDTO.builder().id(project.getId()).build())
+            .build();
+
+    var reRead =
+        BenchmarkHelper.measure(
+            "task: save + re-read",
+            WARM_UP,
+            ITERATIONS,
+            () -> {
+              var entity = taskRepository.save(taskMapper.toEntity(taskDTO));
+              taskMapper.toDTO(taskRepository.findById(entity.getId()).orElseThrow());
+            });
+    var saveResult =
+        BenchmarkHelper.measure(
+            "task: save result + references",
+            WARM_UP,
+            ITERATIONS,
+            () -> taskController.create(taskDTO));
+
+    log.info("{}", reRead);
+    log.info("{}", saveResult);
+  }
+}
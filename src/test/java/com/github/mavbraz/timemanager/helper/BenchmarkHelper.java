@@ -0,0 +1,169 @@
+package com.github.mavbraz.timemanager.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+
+/** Measures the latency of an operation run many times, in a row or concurrently. */
+public class BenchmarkHelper {
+
+  private BenchmarkHelper() {}
+
+  /**
+   * Runs the operation "warmUp" times without measuring, then "iterations" times measuring each
+   * run.
+   *
+   * @param name the name of the measured operation
+   * @param warmUp the runs before measuring
+   * @param iterations the measured runs
+   * @param operation the operation
+   * @return the latency statistics
+   */
+  public static Result measure(String name, int warmUp, int iterations, Runnable operation) {
+    for (int i = 0; i < warmUp; i++) {
+      operation.run();
+    }
+
+    long[] latencies = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      operation.run();
+      latencies[i] = System.nanoTime() - start;
+    }
+
+    return Result.of(name, latencies);
+  }
+
+  /**
+   * Runs the operation "warmUp" times without measuring, then "iterations" times measuring each
+   * run, always with "concurrency" runs at the same time.
+   *
+   * @param name the name of the measured operation
+   * @param concurrency the runs at the same time
+   * @param warmUp the runs before measuring
+   * @param iterations the measured runs
+   * @param operation the operation
+   * @return the latency statistics
+   * @throws InterruptedException if interrupted while waiting for the runs
+   * @throws ExecutionException if a run fails
+   */
+  public static Result measureConcurrently(
+      String name, int concurrency, int warmUp, int iterations, Runnable operation)
+      throws InterruptedException, ExecutionException {
+    runConcurrently(concurrency, warmUp, index -> operation.run());
+
+    long[] latencies = new long[iterations];
+    long start = System.nanoTime();
+    runConcurrently(
+        concurrency,
+        iterations,
+        index -> {
+          long runStart = System.nanoTime();
+          operation.run();
+          latencies[index] = System.nanoTime() - runStart;
+        });
+
+    return Result.of(name, latencies, System.nanoTime() - start);
+  }
+
+  private static void runConcurrently(int concurrency, int runs, IndexedRun run)
+      throws InterruptedException, ExecutionException {
+    var executor = Executors.newFixedThreadPool(concurrency);
+    var next = new AtomicInteger();
+
+    try {
+      var workers = new ArrayList<Future<?>>(concurrency);
+      for (int i = 0; i < concurrency; i++) {
+        workers.add(
+            executor.submit(
+                () -> {
+                  for (int index = next.getAndIncrement();
+                      index < runs;
+                      index = next.getAndIncrement()) {
+                    run.run(index);
+                  }
+                }));
+      }
+
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private interface IndexedRun {
+
+    void run(int index);
+  }
+
+  /** Latency statistics of a measured operation, in microseconds. */
+  @Data
+  public static class Result {
+
+    private final String name;
+    private final int iterations;
+    private final double mean;
+    private final long p50;
+    private final long p99;
+    /** Runs per second. */
+    private final double throughput;
+
+    /**
+     * Computes the statistics of the latencies of runs made in a row.
+     *
+     * @param name the name of the measured operation
+     * @param latencies the latency of each run, in nanoseconds
+     * @return the statistics
+     */
+    public static Result of(String name, long[] latencies) {
+      return of(name, latencies, Arrays.stream(latencies).sum());
+    }
+
+    /**
+     * Computes the statistics of the latencies.
+     *
+     * @param name the name of the measured operation
+     * @param latencies the latency of each run, in nanoseconds
+     * @param elapsed the time taken by all runs, in nanoseconds
+     * @return the statistics
+     */
+    public static Result of(String name, long[] latencies, long elapsed) {
+      long[] sorted = latencies.clone();
+      Arrays.sort(sorted);
+
+      return new Result(
+          name,
+          sorted.length,
+          toMicros((long) Arrays.stream(sorted).average().orElse(0)),
+          toMicros(percentile(sorted, 0.50)),
+          toMicros(percentile(sorted, 0.99)),
+          elapsed == 0 ? 0 : sorted.length / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+
+      return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long toMicros(long nanos) {
+      return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-40s iterations=%6d mean=%8.0fus p50=%8dus p99=%8dus throughput=%8.0f/s",
+          name, iterations, mean, p50, p99, throughput);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.github.mavbraz.timemanager.integration_tests.controller;
+
+import com.github.mavbraz.timemanager.controller.IdempotencyFilter;
+import com.github.mavbraz.timemanager.dto.ProjectDTO;
+import com.github.mavbraz.timemanager.entity.IdempotencyRecord;
+import com.github.mavbraz.timemanager.helper.IdempotencyHelper;
+import com.github.mavbraz.timemanager.helper.JsonTestHelper;
+import com.github.mavbraz.timemanager.repository.ProjectRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+public class IdempotencyFilterTest {
+
+  private static final String KEY = "idempotency-key";
+
+  @Autowired private MockMvc mvc;
+  @Autowired private MongoTemplate mongoTemplate;
+  @Autowired private ProjectRepository projectRepository;
+
+  @AfterEach
+  public void reset() {
+    projectRepository.deleteAll();
+    mongoTemplate.remove(new Query(), IdempotencyRecord.class);
+  }
+
+  @Test
+  public void Given_CompletedKey_When_Repeating_Then_ReplayResponseWithoutWriting()
+      throws Exception {
+    // Given
+    String body = JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 1").build());
+    MockHttpServletResponse first =
+        createProject(KEY, body)
+            .andExpect(MockMvcResultMatchers.status().isCreated())
+            .andReturn()
+            .getResponse();
+
+    // When
+    ResultActions resultActions = createProject(KEY, body);
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isCreated())
+        .andExpect(MockMvcResultMatchers.header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+        .andExpect(MockMvcResultMatchers.content().string(first.getContentAsString()));
+    Assertions.assertEquals(1, projectRepository.count());
+  }
+
+  @Test
+  public void Given_CompletedKey_When_SendingAnotherBody_Then_Return422() throws Exception {
+    // Given
+    createProject(
+            KEY, JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 1").build()))
+        .andExpect(MockMvcResultMatchers.status().isCreated());
+
+    // When
+    ResultActions resultActions =
+        createProject(
+            KEY, JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 2").build()));
+
+    // Then
+    resultActions.andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+    Assertions.assertEquals(1, projectRepository.count());
+  }
+
+  @Test
+  public void Given_KeyBeingProcessed_When_Repeating_Then_Return409() throws Exception {
+    // Given
+    String body = JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 1").build());
+    reserve(body, LocalDateTime.now().plusMinutes(1));
+
+    // When
+    ResultActions resultActions = createProject(KEY, body);
+
+    // Then
+    resultActions.andExpect(MockMvcResultMatchers.status().isConflict());
+    Assertions.assertEquals(0, projectRepository.count());
+  }
+
+  @Test
+  public void Given_KeyWithEndedLease_When_Repeating_Then_TakeKeyOverAndWrite() throws Exception {
+    // Given
+    String body = JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 1").build());
+    reserve(body, LocalDateTime.now().minusMinutes(1));
+
+    // When
+    ResultActions resultActions = createProject(KEY, body);
+
+    // Then
+    resultActions.andExpect(MockMvcResultMatchers.status().isCreated());
+    Assertions.assertEquals(1, projectRepository.count());
+    Assertions.assertTrue(mongoTemplate.findById(KEY, IdempotencyRecord.class).isCompleted());
+  }
+
+  @Test
+  public void Given_RejectedRequest_When_Repeating_Then_KeyWasReleased() throws Exception {
+    // Given
+    createProject(KEY, JsonTestHelper.asJsonString(ProjectDTO.builder().name("").build()))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+    // When
+    ResultActions resultActions =
+        createProject(
+            KEY, JsonTestHelper.asJsonString(ProjectDTO.builder().name("Project 1").build()));
+
+    // Then
+    resultActions.andExpect(MockMvcResultMatchers.status().isCreated());
+    Assertions.assertEquals(1, projectRepository.count());
+  }
+
+  private ResultActions createProject(String key, String body) throws Exception {
+    return mvc.perform(
+        MockMvcRequestBuilders.post("/project")
+            .header(IdempotencyFilter.KEY_HEADER, key)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body));
+  }
+
+  /** Stores the reservation of a request that is running, or that stopped before its response. */
+  private void reserve(String body, LocalDateTime lockedUntil) {
+    byte[] content = body.getBytes(StandardCharsets.UTF_8);
+
+    mongoTemplate.insert(
+        IdempotencyRecord.builder()
+            .id(KEY)
+            .fingerprint(
+                IdempotencyHelper.getFingerprint(
+                    new MockHttpServletRequest("POST", "/project"), content))
+            .createdAt(LocalDateTime.now())
+            .lockedUntil(lockedUntil)
+            .build());
+  }
+}
@@ -1,14 +1,20 @@
 package com.github.mavbraz.timemanager.integration_tests.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.mavbraz.timemanager.controller.BaseController;
+import com.github.mavbraz.timemanager.dto.BulkItemResultDTO;
 import com.github.mavbraz.timemanager.dto.PersonDTO;
 import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
 import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
+import com.github.mavbraz.timemanager.exceptions.UnindexedQueryException;
 import com.github.mavbraz.timemanager.helper.JsonTestHelper;
 import com.github.mavbraz.timemanager.helper.matcher.DataTimeMatcher;
 import com.github.mavbraz.timemanager.repository.PersonRepository;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -20,11 +26,14 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.validation.FieldError;
@@ -123,6 +132,51 @@ public class PersonControllerTest extends BaseIntegrationTest<Person, PersonDTO>
             });
   }
 
+  @Test
+  public void Given_Entities_When_CreatingInBulk_Then_ReturnResultPerItem() throws Exception {
+    // Given
+    List<PersonDTO> peopleDTO =
+        List.of(
+            PersonDTO.builder().name("Person DTO Name 1").build(),
+            PersonDTO.builder().name("   ").build(),
+            PersonDTO.builder().name("Person DTO Name 3").build());
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.post("/person/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonTestHelper.asJsonString(peopleDTO)));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isMultiStatus())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(201)))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.is(400)))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[1].id", Matchers.nullValue()))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$[1].errors[0]", Matchers.is("name: must not be blank")))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[2].status", Matchers.is(201)))
+        .andExpect(
+            result -> {
+              List<BulkItemResultDTO> results =
+                  JsonTestHelper.fromJsonString(
+                      result.getResponse().getContentAsString(), new TypeReference<>() {});
+
+              for (int i : List.of(0, 2)) {
+                Person personSaved =
+                    personRepository.findById(results.get(i).getId()).orElse(null);
+                Assertions.assertNotNull(personSaved);
+                Assertions.assertEquals(peopleDTO.get(i).getName(), personSaved.getName());
+                Assertions.assertNotNull(personSaved.getCreatedAt());
+                Assertions.assertNotNull(personSaved.getModifiedAt());
+                Assertions.assertEquals(1, personSaved.getVersion());
+              }
+              Assertions.assertEquals(2, personRepository.count());
+            });
+  }
+
   @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
   @ParameterizedTest
   @MethodSource("provideInvalidPersonDTO")
@@ -203,6 +257,91 @@ public class PersonControllerTest extends BaseIntegrationTest<Person, PersonDTO>
             });
   }
 
+  @Test
+  public void Given_Entities_When_GettingAllByPages_Then_ReturnAllInIdOrder() throws Exception {
+    // Given
+    List<Person> peopleSaved = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      peopleSaved.add(personRepository.save(Person.builder().name("Person " + i).build()));
+    }
+
+    // When
+    List<String> idsRead = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      MockHttpServletRequestBuilder request =
+          MockMvcRequestBuilders.get("/person").param("limit", "2");
+      if (cursor != null) {
+        request.param("after", cursor);
+      }
+
+      MockHttpServletResponse response =
+          mvc.perform(request.contentType(MediaType.APPLICATION_JSON))
+              .andExpect(MockMvcResultMatchers.status().isOk())
+              .andReturn()
+              .getResponse();
+      List<PersonDTO> page =
+          JsonTestHelper.fromJsonString(response.getContentAsString(), new TypeReference<>() {});
+      page.forEach(personDTO -> idsRead.add(personDTO.getId()));
+      cursor = response.getHeader(BaseController.NEXT_CURSOR_HEADER);
+      pages++;
+    } while (cursor != null);
+
+    // Then
+    Assertions.assertEquals(3, pages);
+    Assertions.assertEquals(
+        peopleSaved.stream().map(Person::getId).collect(Collectors.toList()), idsRead);
+  }
+
+  @Test
+  public void Given_Entities_When_Exporting_Then_ReturnOneJsonLinePerEntity() throws Exception {
+    // Given
+    List<Person> peopleSaved = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      peopleSaved.add(personRepository.save(Person.builder().name("Person " + i).build()));
+    }
+
+    // When
+    MvcResult mvcResult =
+        mvc.perform(
+                MockMvcRequestBuilders.get("/person/export")
+                    .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+    ResultActions resultActions = mvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(
+            MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            result -> {
+              String[] lines = result.getResponse().getContentAsString().split("\n");
+              Assertions.assertEquals(peopleSaved.size(), lines.length);
+
+              for (int i = 0; i < lines.length; i++) {
+                PersonDTO personDTO = JsonTestHelper.fromJsonString(lines[i], PersonDTO.class);
+                Assertions.assertEquals(peopleSaved.get(i).getId(), personDTO.getId());
+                Assertions.assertEquals(peopleSaved.get(i).getName(), personDTO.getName());
+              }
+            });
+  }
+
+  @Test
+  public void Given_InvalidCursor_When_GettingAll_Then_Return400() throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.get("/person")
+                .param("after", "not a cursor")
+                .contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions.andExpect(MockMvcResultMatchers.status().isBadRequest());
+  }
+
   @ParameterizedTest
   @MethodSource("provideValidPerson")
   @Override
@@ -313,6 +452,147 @@ public class PersonControllerTest extends BaseIntegrationTest<Person, PersonDTO>
             });
   }
 
+  @Test
+  public void Given_Entities_When_GettingSelectedFields_Then_ReturnOnlyThem() throws Exception {
+    // Given
+    Person personSaved = personRepository.save(Person.builder().name("Person 1").build());
+
+    // When
+    ResultActions listActions = mvc.perform(MockMvcRequestBuilders.get("/person?fields=name"));
+    ResultActions getActions =
+        mvc.perform(
+            MockMvcRequestBuilders.get("/person/{id}", personSaved.getId())
+                .param("fields", "createdAt"));
+
+    // Then
+    listActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, Matchers.notNullValue()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(personSaved.getId())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].name", Matchers.is("Person 1")))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].createdAt").doesNotExist())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].modifiedAt").doesNotExist());
+    getActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\""))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(personSaved.getId())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.createdAt", DataTimeMatcher.is(personSaved.getCreatedAt())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.name").doesNotExist());
+  }
+
+  @Test
+  public void Given_UnindexedSort_When_GettingAll_Then_Return400() throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(MockMvcRequestBuilders.get("/person").param("sort", "-name"));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(
+            result ->
+                Assertions.assertEquals(
+                    "No index supports filtering by [] and sorting by name",
+                    ((UnindexedQueryException) result.getResolvedException()).getReason()));
+  }
+
+  @Test
+  public void Given_UnknownField_When_GettingAll_Then_Return400() throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(MockMvcRequestBuilders.get("/person").param("fields", "name,version"));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(
+            result ->
+                Assertions.assertEquals(
+                    "Unknown field: version",
+                    ((InvalidFieldException) result.getResolvedException()).getReason()));
+  }
+
+  @Test
+  public void Given_Entity_When_PatchingWithMatchingVersion_Then_Return200() throws Exception {
+    // Given
+    Person personSaved = personRepository.save(Person.builder().name("Person 1").build());
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.patch("/person/{id}", personSaved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Person 2\"}"));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(personSaved.getId())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.name", Matchers.is("Person 2")))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.createdAt", DataTimeMatcher.is(personSaved.getCreatedAt())));
+
+    Person personPatched = personRepository.findById(personSaved.getId()).orElseThrow();
+    Assertions.assertEquals("Person 2", personPatched.getName());
+    Assertions.assertEquals(2, personPatched.getVersion());
+    Assertions.assertTrue(personPatched.getModifiedAt().isAfter(personSaved.getModifiedAt()));
+  }
+
+  @Test
+  public void Given_Entity_When_WritingWithStaleVersion_Then_Return412() throws Exception {
+    // Given
+    Person personSaved = personRepository.save(Person.builder().name("Person 1").build());
+    personSaved.setName("Person 2");
+    personRepository.save(personSaved);
+
+    // When
+    ResultActions patchActions =
+        mvc.perform(
+            MockMvcRequestBuilders.patch("/person/{id}", personSaved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Person 3\"}"));
+    ResultActions putActions =
+        mvc.perform(
+            MockMvcRequestBuilders.put("/person/{id}", personSaved.getId())
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Person 3\"}"));
+
+    // Then
+    patchActions.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+    putActions.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+    Assertions.assertEquals(
+        "Person 2", personRepository.findById(personSaved.getId()).orElseThrow().getName());
+  }
+
+  @Test
+  public void Given_Entity_When_PatchingInvalid_Then_Return400() throws Exception {
+    // Given
+    Person personSaved = personRepository.save(Person.builder().name("Person 1").build());
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.patch("/person/{id}", personSaved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"  \"}"));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(
+            result ->
+                Assertions.assertEquals(
+                    "name: must not be blank",
+                    ((InvalidFieldException) result.getResolvedException()).getReason()));
+  }
+
   @ParameterizedTest
   @MethodSource("provideInvalidPersonDTO")
   @Override
@@ -413,6 +693,29 @@ public class PersonControllerTest extends BaseIntegrationTest<Person, PersonDTO>
     Assertions.assertFalse(personRepository.existsById(personSaved.getId()));
   }
 
+  @Test
+  public void Given_Entities_When_RemovingByIds_Then_Return200() throws Exception {
+    // Given
+    Person person1 = personRepository.save(Person.builder().name("Person 1").build());
+    Person person2 = personRepository.save(Person.builder().name("Person 2").build());
+    Person person3 = personRepository.save(Person.builder().name("Person 3").build());
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.delete("/person")
+                .param("ids", person1.getId(), person2.getId(), person1.getId(), "nonexistent"));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.requested", Matchers.is(3)))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.deleted", Matchers.is(2)));
+    Assertions.assertFalse(personRepository.existsById(person1.getId()));
+    Assertions.assertFalse(personRepository.existsById(person2.getId()));
+    Assertions.assertTrue(personRepository.existsById(person3.getId()));
+  }
+
   @ParameterizedTest
   @MethodSource("provideInvalidId")
   @Override
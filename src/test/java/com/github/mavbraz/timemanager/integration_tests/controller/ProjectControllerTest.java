@@ -20,6 +20,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -233,6 +234,74 @@ public class ProjectControllerTest extends BaseIntegrationTest<Project, ProjectD
         .andExpect(MockMvcResultMatchers.jsonPath("$.name", Matchers.is(projectSaved.getName())));
   }
 
+  @Test
+  public void Given_Entity_When_GettingWithMatchingETag_Then_Return304() throws Exception {
+    // Given
+    Project projectSaved = projectRepository.save(Project.builder().name("Project 1").build());
+    String eTag =
+        mvc.perform(MockMvcRequestBuilders.get("/project/{id}", projectSaved.getId()))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\""))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.get("/project/{id}", projectSaved.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, eTag))
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+    // When the entity changes, the old tag no longer matches
+    projectSaved.setName("Project 2");
+    projectRepository.save(projectSaved);
+
+    mvc.perform(
+            MockMvcRequestBuilders.get("/project/{id}", projectSaved.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.name", Matchers.is("Project 2")));
+  }
+
+  @Test
+  public void Given_Entities_When_GettingAllWithMatchingETag_Then_Return304() throws Exception {
+    // Given
+    projectRepository.saveAll(
+        List.of(
+            Project.builder().name("Project 1").build(),
+            Project.builder().name("Project 2").build()));
+    String eTag =
+        mvc.perform(MockMvcRequestBuilders.get("/project"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    Assertions.assertNotNull(eTag);
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(MockMvcRequestBuilders.get("/project").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+    // When a new entity joins the page, the old tag no longer matches
+    projectRepository.save(Project.builder().name("Project 3").build());
+
+    mvc.perform(MockMvcRequestBuilders.get("/project").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()", Matchers.is(3)));
+  }
+
   @ParameterizedTest
   @MethodSource("provideInvalidId")
   @Override
@@ -0,0 +1,552 @@
+package com.github.mavbraz.timemanager.integration_tests.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.mavbraz.timemanager.dto.BulkTransitionResultDTO;
+import com.github.mavbraz.timemanager.dto.PersonDTO;
+import com.github.mavbraz.timemanager.dto.ProjectDTO;
+import com.github.mavbraz.timemanager.dto.TaskDTO;
+import com.github.mavbraz.timemanager.dto.TimeRollupDTO;
+import com.github.mavbraz.timemanager.dto.enums.TaskStatusDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.TaskEvent;
+import com.github.mavbraz.timemanager.entity.TaskSnapshot;
+import com.github.mavbraz.timemanager.entity.TimeRollup;
+import com.github.mavbraz.timemanager.entity.WorkPeriod;
+import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.github.mavbraz.timemanager.exceptions.ResourceNotFoundException;
+import com.github.mavbraz.timemanager.helper.JsonTestHelper;
+import com.github.mavbraz.timemanager.helper.matcher.DataTimeMatcher;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import com.github.mavbraz.timemanager.repository.ProjectRepository;
+import com.github.mavbraz.timemanager.repository.TaskRepository;
+import com.github.mavbraz.timemanager.service.TaskEventLog;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+public class TaskControllerTest extends BaseIntegrationTest<Task, TaskDTO> {
+
+  /** Events of a task waited for at most, as the event log writes them in background. */
+  private static final int EVENTS_TIMEOUT_MILLIS = 5000;
+
+  @Autowired private MockMvc mvc;
+  @Autowired private MongoTemplate mongoTemplate;
+  @Autowired private PersonRepository personRepository;
+  @Autowired private ProjectRepository projectRepository;
+  @Autowired private TaskRepository taskRepository;
+
+  private Person person;
+  private Project project;
+
+  private static Stream<Arguments> provideValidTaskDTO() {
+    return Stream.of(
+        Arguments.of(TaskDTO.builder().description("Task DTO Description").build()),
+        Arguments.of(TaskDTO.builder().description("   a ").build()));
+  }
+
+  private static Stream<Arguments> provideInvalidTaskDTO() {
+    return Stream.of(
+        Arguments.of(TaskDTO.builder().description(null).build()),
+        Arguments.of(TaskDTO.builder().description("     ").build()));
+  }
+
+  private static Stream<Arguments> provideValidTask() {
+    return Stream.of(
+        Arguments.of(Task.builder().description("Task Description").build()),
+        Arguments.of(Task.builder().description("   a ").build()));
+  }
+
+  private static Stream<Arguments> provideInvalidId() {
+    return Stream.of(
+        Arguments.of("null"), Arguments.of("   "), Arguments.of("Task ID Not Found"));
+  }
+
+  private static Stream<Arguments> provideValidTasks() {
+    return Stream.of(
+        Arguments.of(
+            List.of(
+                Task.builder().description("Task Description").build(),
+                Task.builder().description("   a ").build())),
+        Arguments.of(List.of()));
+  }
+
+  @BeforeEach
+  public void setUp() {
+    person = personRepository.save(Person.builder().name("Person 1").build());
+    project = projectRepository.save(Project.builder().name("Project 1").build());
+  }
+
+  @AfterEach
+  public void resetTimeTracking() {
+    mongoTemplate.remove(new Query(), TimeRollup.class);
+    mongoTemplate.remove(new Query(), WorkPeriod.class);
+    mongoTemplate.remove(new Query(), TaskEvent.class);
+    mongoTemplate.remove(new Query(), TaskSnapshot.class);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideValidTaskDTO")
+  @Override
+  public void Given_Entity_When_Creating_Then_Return302(TaskDTO taskDTO) throws Exception {
+    // When
+    ResultActions resultActions = createTask(withReferences(taskDTO));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isCreated())
+        .andExpect(
+            MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.notNullValue()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.createdAt", DataTimeMatcher.valid()))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.createdAt", DataTimeMatcher.before(LocalDateTime.now())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.description", Matchers.is(taskDTO.getDescription())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("NOT_STARTED")))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.contributors[0].name", Matchers.is("Person 1")))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.project.name", Matchers.is("Project 1")))
+        .andExpect(
+            result -> {
+              TaskDTO taskDTOSaved =
+                  JsonTestHelper.fromJsonString(
+                      result.getResponse().getContentAsString(), TaskDTO.class);
+
+              Task taskSaved = taskRepository.findById(taskDTOSaved.getId()).orElse(null);
+              Assertions.assertNotNull(taskSaved);
+              Assertions.assertEquals(taskSaved.getDescription(), taskDTOSaved.getDescription());
+              Assertions.assertEquals(TaskStatus.NOT_STARTED, taskSaved.getStatus());
+              Assertions.assertEquals(1, taskSaved.getVersion());
+            });
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidTaskDTO")
+  @Override
+  public void Given_Entity_When_CreatingInvalid_Then_Return400(TaskDTO taskDTO) throws Exception {
+    // When
+    ResultActions resultActions = createTask(withReferences(taskDTO));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(result -> assertDescriptionNotBlank(result.getResolvedException(), taskDTO));
+    Assertions.assertEquals(0, taskRepository.count());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideValidTasks")
+  @Override
+  public void Given_Entity_When_GettingAll_Then_Return404(List<Task> tasks) throws Exception {
+    // Given
+    tasks.forEach(this::withReferences);
+    List<Task> tasksSaved = taskRepository.saveAll(tasks);
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(MockMvcRequestBuilders.get("/task").contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(
+            MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(
+            result -> {
+              MockHttpServletResponse response = result.getResponse();
+              List<TaskDTO> tasksDTO =
+                  JsonTestHelper.fromJsonString(
+                      response.getContentAsString(), new TypeReference<>() {});
+              Assertions.assertNotNull(tasksDTO);
+
+              Assertions.assertEquals(tasksSaved.size(), tasksDTO.size());
+              for (int i = 0; i < tasksDTO.size(); i++) {
+                Assertions.assertEquals(tasksSaved.get(i).getId(), tasksDTO.get(i).getId());
+                Assertions.assertEquals(
+                    tasksSaved.get(i).getDescription(), tasksDTO.get(i).getDescription());
+                Assertions.assertEquals(
+                    project.getName(), tasksDTO.get(i).getProject().getName());
+              }
+            });
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideValidTask")
+  @Override
+  public void Given_Entity_When_Getting_Then_Return200(Task task) throws Exception {
+    // Given
+    Task taskSaved = taskRepository.save(withReferences(task));
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.get("/task/{id}", taskSaved.getId())
+                .contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(taskSaved.getId())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.createdAt", DataTimeMatcher.is(taskSaved.getCreatedAt())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.description", Matchers.is(taskSaved.getDescription())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.status", Matchers.is("NOT_STARTED")))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.contributors[0].id", Matchers.is(person.getId())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.project.id", Matchers.is(project.getId())));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidId")
+  @Override
+  public void Given_Entity_When_GettingNonExisting_Then_Return404(String id) throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.get("/task/{id}", id).contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isNotFound())
+        .andExpect(result -> assertNotFound(result.getResolvedException()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideValidTaskDTO")
+  @Override
+  public void Given_Entity_When_Updating_Then_Return200(TaskDTO taskDTO) throws Exception {
+    // Given
+    Task taskSaved =
+        taskRepository.save(withReferences(Task.builder().description("Task 1").build()));
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.put("/task/{id}", taskSaved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonTestHelper.asJsonString(withReferences(taskDTO))));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(taskSaved.getId())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath(
+                "$.createdAt", DataTimeMatcher.is(taskSaved.getCreatedAt())))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.description", Matchers.is(taskDTO.getDescription())))
+        .andExpect(
+            result -> {
+              Task taskUpdated = taskRepository.findById(taskSaved.getId()).orElse(null);
+              Assertions.assertNotNull(taskUpdated);
+              Assertions.assertEquals(taskDTO.getDescription(), taskUpdated.getDescription());
+              Assertions.assertEquals(2, taskUpdated.getVersion());
+            });
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidTaskDTO")
+  @Override
+  public void Given_Entity_When_UpdatingInvalid_Then_Return400(TaskDTO taskDTO) throws Exception {
+    // Given
+    Task taskSaved =
+        taskRepository.save(withReferences(Task.builder().description("Task 1").build()));
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.put("/task/{id}", taskSaved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonTestHelper.asJsonString(withReferences(taskDTO))));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(result -> assertDescriptionNotBlank(result.getResolvedException(), taskDTO));
+    Assertions.assertEquals(
+        "Task 1", taskRepository.findById(taskSaved.getId()).orElseThrow().getDescription());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidId")
+  @Override
+  public void Given_Entity_When_UpdatingNonExisting_Then_Return404(String id) throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.put("/task/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    JsonTestHelper.asJsonString(
+                        withReferences(TaskDTO.builder().description("Task 1").build()))));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isNotFound())
+        .andExpect(result -> assertNotFound(result.getResolvedException()));
+  }
+
+  @Test
+  @Override
+  public void Given_Entity_When_Removing_Then_Return200() throws Exception {
+    // Given
+    Task taskSaved =
+        taskRepository.save(withReferences(Task.builder().description("Task 1").build()));
+
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.delete("/task/{id}", taskSaved.getId())
+                .contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(taskSaved.getId())))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.description", Matchers.is("Task 1")));
+    Assertions.assertFalse(taskRepository.existsById(taskSaved.getId()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidId")
+  @Override
+  public void Given_Entity_When_RemovingNonExisting_Then_Return404(String id) throws Exception {
+    // When
+    ResultActions resultActions =
+        mvc.perform(
+            MockMvcRequestBuilders.delete("/task/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON));
+
+    // Then
+    resultActions
+        .andExpect(MockMvcResultMatchers.status().isNotFound())
+        .andExpect(result -> assertNotFound(result.getResolvedException()));
+  }
+
+  @Test
+  public void Given_Task_When_StartingPausingAndFinishing_Then_AddToRollupsAndHistory()
+      throws Exception {
+    // Given
+    String id =
+        JsonTestHelper.fromJsonString(
+                createTask(withReferences(TaskDTO.builder().description("Task 1").build()))
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(),
+                TaskDTO.class)
+            .getId();
+
+    // When
+    transition("/task/{id}/start", id).andExpect(jsonStatus("STARTED"));
+    LocalDateTime startedAt = LocalDateTime.now();
+    // Periods worked are measured in milliseconds
+    Thread.sleep(20);
+    transition("/task/{id}/pause", id).andExpect(jsonStatus("PAUSED"));
+    transition("/task/{id}/finish", id).andExpect(jsonStatus("FINISHED"));
+
+    // Then
+    Task task = taskRepository.findById(id).orElseThrow();
+    Assertions.assertEquals(TaskStatus.FINISHED, task.getStatus());
+    Assertions.assertEquals(1, task.getWorkIntervals().size());
+    Assertions.assertTrue(task.getDuration() > 0);
+
+    for (String uri : List.of("/rollup/project/{id}", "/rollup/person/{id}")) {
+      List<TimeRollupDTO> rollups =
+          getRollups(uri, uri.contains("project") ? project.getId() : person.getId());
+
+      Assertions.assertEquals(
+          task.getDuration(), rollups.stream().mapToLong(TimeRollupDTO::getDuration).sum());
+      Assertions.assertEquals(
+          1, rollups.stream().mapToLong(TimeRollupDTO::getFinishedTasks).sum());
+    }
+
+    awaitEvents(id, 4);
+    getTaskAt(id, startedAt)
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(jsonStatus("STARTED"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.workIntervals", Matchers.empty()));
+    getTaskAt(id, LocalDateTime.now())
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(jsonStatus("FINISHED"))
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.duration", Matchers.is((int) task.getDuration())));
+    getTaskAt(id, task.getCreatedAt().minusSeconds(1))
+        .andExpect(MockMvcResultMatchers.status().isNotFound());
+  }
+
+  @Test
+  public void Given_Tasks_When_StartingAndFinishingInBulk_Then_ReturnChangedAndSkipped()
+      throws Exception {
+    // Given
+    Task notStarted1 =
+        taskRepository.save(withReferences(Task.builder().description("Task 1").build()));
+    Task notStarted2 =
+        taskRepository.save(withReferences(Task.builder().description("Task 2").build()));
+    Task finished =
+        taskRepository.save(
+            withReferences(
+                Task.builder()
+                    .description("Task 3")
+                    .status(TaskStatus.FINISHED)
+                    .startDate(LocalDateTime.now().minusHours(1))
+                    .finishDate(LocalDateTime.now().minusMinutes(1))
+                    .build()));
+
+    // When
+    BulkTransitionResultDTO started =
+        transitionAll(
+            "/task/start",
+            notStarted1.getId(),
+            notStarted2.getId(),
+            finished.getId(),
+            "Task ID Not Found");
+    BulkTransitionResultDTO finishedResult =
+        transitionAll("/task/finish", notStarted1.getId(), finished.getId());
+
+    // Then
+    Assertions.assertEquals(
+        List.of(notStarted1.getId(), notStarted2.getId()), started.getChanged());
+    Assertions.assertEquals(List.of(finished.getId(), "Task ID Not Found"), started.getSkipped());
+    Assertions.assertEquals(List.of(notStarted1.getId()), finishedResult.getChanged());
+    Assertions.assertEquals(List.of(finished.getId()), finishedResult.getSkipped());
+
+    Assertions.assertEquals(
+        TaskStatus.FINISHED,
+        taskRepository.findById(notStarted1.getId()).orElseThrow().getStatus());
+    Assertions.assertEquals(
+        TaskStatus.STARTED,
+        taskRepository.findById(notStarted2.getId()).orElseThrow().getStatus());
+    Assertions.assertEquals(
+        1,
+        getRollups("/rollup/project/{id}", project.getId()).stream()
+            .mapToLong(TimeRollupDTO::getFinishedTasks)
+            .sum());
+  }
+
+  private ResultActions createTask(TaskDTO taskDTO) throws Exception {
+    return mvc.perform(
+        MockMvcRequestBuilders.post("/task")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(JsonTestHelper.asJsonString(taskDTO)));
+  }
+
+  private ResultActions transition(String uri, String id) throws Exception {
+    return mvc.perform(MockMvcRequestBuilders.post(uri, id))
+        .andExpect(MockMvcResultMatchers.status().isOk());
+  }
+
+  private BulkTransitionResultDTO transitionAll(String uri, String... ids) throws Exception {
+    return JsonTestHelper.fromJsonString(
+        mvc.perform(MockMvcRequestBuilders.post(uri).param("ids", ids))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(),
+        BulkTransitionResultDTO.class);
+  }
+
+  private List<TimeRollupDTO> getRollups(String uri, String id) throws Exception {
+    return JsonTestHelper.fromJsonString(
+        mvc.perform(MockMvcRequestBuilders.get(uri, id))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString(),
+        new TypeReference<>() {});
+  }
+
+  private ResultActions getTaskAt(String id, LocalDateTime at) throws Exception {
+    return mvc.perform(
+        MockMvcRequestBuilders.get("/task/{id}/history", id).param("at", at.toString()));
+  }
+
+  /** Waits for the event log to write the events of a task. */
+  private void awaitEvents(String id, long events) throws InterruptedException {
+    var query = Query.query(Criteria.where("taskId").is(id));
+    long deadline = System.currentTimeMillis() + EVENTS_TIMEOUT_MILLIS;
+
+    while (mongoTemplate.count(query, TaskEvent.class) < events) {
+      Assertions.assertTrue(System.currentTimeMillis() < deadline, "Events not written");
+      Thread.sleep(TaskEventLog.FLUSH_INTERVAL_MILLIS);
+    }
+  }
+
+  private TaskDTO withReferences(TaskDTO taskDTO) {
+    return taskDTO.toBuilder()
+        .status(TaskStatusDTO.NOT_STARTED)
+        .contributors(List.of(PersonDTO.builder().id(person.getId()).name("Person 1").build()))
+        .project(ProjectDTO.builder().id(project.getId()).name("Project 1").build())
+        .build();
+  }
+
+  private Task withReferences(Task task) {
+    if (task.getStatus() == null) {
+      task.setStatus(TaskStatus.NOT_STARTED);
+    }
+
+    task.setContributors(List.of(person));
+    task.setProject(project);
+
+    return task;
+  }
+
+  private static ResultMatcher jsonStatus(String status) {
+    return MockMvcResultMatchers.jsonPath("$.status", Matchers.is(status));
+  }
+
+  private static void assertDescriptionNotBlank(Exception resolvedException, TaskDTO taskDTO) {
+    Assertions.assertTrue(resolvedException instanceof MethodArgumentNotValidException);
+    List<ObjectError> allErrors =
+        ((MethodArgumentNotValidException) resolvedException).getAllErrors();
+
+    Assertions.assertEquals(1, allErrors.size());
+    Assertions.assertTrue(allErrors.get(0) instanceof FieldError);
+    FieldError fieldError = (FieldError) allErrors.get(0);
+    Assertions.assertEquals("must not be blank", fieldError.getDefaultMessage());
+    Assertions.assertEquals("taskDTO", fieldError.getObjectName());
+    Assertions.assertEquals("description", fieldError.getField());
+    Assertions.assertEquals(taskDTO.getDescription(), fieldError.getRejectedValue());
+    Assertions.assertEquals("NotBlank", fieldError.getCode());
+  }
+
+  private static void assertNotFound(Exception resolvedException) {
+    Assertions.assertTrue(resolvedException instanceof ResourceNotFoundException);
+    ResourceNotFoundException exception = (ResourceNotFoundException) resolvedException;
+    Assertions.assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    Assertions.assertEquals("Task not found", exception.getReason());
+  }
+}
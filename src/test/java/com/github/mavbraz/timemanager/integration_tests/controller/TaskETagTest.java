@@ -0,0 +1,106 @@
+package com.github.mavbraz.timemanager.integration_tests.controller;
+
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import com.github.mavbraz.timemanager.repository.ProjectRepository;
+import com.github.mavbraz.timemanager.repository.TaskRepository;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+public class TaskETagTest {
+
+  @Autowired private MockMvc mvc;
+  @Autowired private PersonRepository personRepository;
+  @Autowired private ProjectRepository projectRepository;
+  @Autowired private TaskRepository taskRepository;
+
+  @AfterEach
+  public void reset() {
+    taskRepository.deleteAll();
+    personRepository.deleteAll();
+    projectRepository.deleteAll();
+  }
+
+  @Test
+  public void Given_Task_When_GettingWithMatchingETag_Then_Return304UntilAReferenceChanges()
+      throws Exception {
+    // Given
+    Person person = personRepository.save(Person.builder().name("Person 1").build());
+    Project project = projectRepository.save(Project.builder().name("Project 1").build());
+    Task task =
+        taskRepository.save(
+            Task.builder()
+                .description("Task 1")
+                .contributors(List.of(person))
+                .project(project)
+                .build());
+    String eTag = getETag("/task/{id}", task.getId());
+
+    // When, Then
+    mvc.perform(
+            MockMvcRequestBuilders.get("/task/{id}", task.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+    // When a contributor changes, the old tag no longer matches
+    person.setName("Person 2");
+    personRepository.save(person);
+
+    mvc.perform(
+            MockMvcRequestBuilders.get("/task/{id}", task.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(
+            MockMvcResultMatchers.jsonPath("$.contributors[0].name", Matchers.is("Person 2")))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.project.name", Matchers.is("Project 1")));
+  }
+
+  @Test
+  public void Given_Tasks_When_GettingAllWithMatchingETag_Then_Return304UntilAReferenceChanges()
+      throws Exception {
+    // Given
+    Project project = projectRepository.save(Project.builder().name("Project 1").build());
+    taskRepository.save(Task.builder().description("Task 1").project(project).build());
+    String eTag = getETag("/task");
+
+    // When, Then
+    mvc.perform(MockMvcRequestBuilders.get("/task").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+    // When the project changes, the old tag no longer matches
+    project.setName("Project 2");
+    projectRepository.save(project);
+
+    mvc.perform(MockMvcRequestBuilders.get("/task").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].project.name", Matchers.is("Project 2")));
+  }
+
+  private String getETag(String uri, Object... uriVariables) throws Exception {
+    String eTag =
+        mvc.perform(MockMvcRequestBuilders.get(uri, uriVariables))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    Assertions.assertNotNull(eTag);
+
+    return eTag;
+  }
+}
@@ -0,0 +1,149 @@
+package com.github.mavbraz.timemanager.integration_tests.controller.reactive;
+
+import com.github.mavbraz.timemanager.controller.ControllerSupport;
+import com.github.mavbraz.timemanager.dto.PersonDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.repository.PersonRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+public class ReactivePersonControllerTest {
+
+  @Autowired private WebTestClient client;
+  @Autowired private PersonRepository personRepository;
+
+  @AfterEach
+  public void reset() {
+    personRepository.deleteAll();
+  }
+
+  @Test
+  public void Given_Entity_When_Creating_Then_Return201() {
+    // When
+    PersonDTO personDTO =
+        client
+            .post()
+            .uri("/person")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(PersonDTO.builder().name("Person DTO Name").build())
+            .exchange()
+            // Then
+            .expectStatus()
+            .isCreated()
+            .expectBody(PersonDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+    Assertions.assertNotNull(personDTO);
+    Assertions.assertNotNull(personDTO.getId());
+    Assertions.assertEquals(
+        "Person DTO Name", personRepository.findById(personDTO.getId()).orElseThrow().getName());
+  }
+
+  @Test
+  public void Given_Entity_When_GettingWithMatchingETag_Then_Return304() {
+    // Given
+    Person person = personRepository.save(Person.builder().name("Person Name").build());
+    String eTag =
+        client
+            .get()
+            .uri("/person/{id}", person.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.name")
+            .isEqualTo("Person Name")
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+
+    // When
+    client
+        .get()
+        .uri("/person/{id}", person.getId())
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .exchange()
+        // Then
+        .expectStatus()
+        .isNotModified();
+  }
+
+  @Test
+  public void Given_Entities_When_GettingAllWithFields_Then_ReturnPageWithFields() {
+    // Given
+    personRepository.saveAll(
+        List.of(
+            Person.builder().name("Person 1").build(),
+            Person.builder().name("Person 2").build(),
+            Person.builder().name("Person 3").build()));
+
+    // When
+    client
+        .get()
+        .uri("/person?limit=2&fields=name")
+        .exchange()
+        // Then
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .exists(ControllerSupport.NEXT_CURSOR_HEADER)
+        .expectBody()
+        .jsonPath("$.length()")
+        .isEqualTo(2)
+        .jsonPath("$[0].name")
+        .isEqualTo("Person 1")
+        .jsonPath("$[0].createdAt")
+        .doesNotExist();
+  }
+
+  @Test
+  public void Given_Entity_When_PatchingWithStaleVersion_Then_Return412() {
+    // Given
+    Person person = personRepository.save(Person.builder().name("Person Name").build());
+
+    // When
+    client
+        .patch()
+        .uri("/person/{id}", person.getId())
+        .header(HttpHeaders.IF_MATCH, "\"" + (person.getVersion() + 1) + "\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(PersonDTO.builder().name("New Name").build())
+        .exchange()
+        // Then
+        .expectStatus()
+        .isEqualTo(412);
+  }
+
+  @Test
+  public void Given_Entity_When_Removing_Then_Return200() {
+    // Given
+    Person person = personRepository.save(Person.builder().name("Person Name").build());
+
+    // When
+    client
+        .delete()
+        .uri("/person/{id}", person.getId())
+        .exchange()
+        // Then
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.id")
+        .isEqualTo(person.getId());
+
+    Assertions.assertFalse(personRepository.existsById(person.getId()));
+  }
+}
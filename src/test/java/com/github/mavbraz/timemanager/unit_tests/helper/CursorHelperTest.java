@@ -0,0 +1,57 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.exceptions.InvalidCursorException;
+import com.github.mavbraz.timemanager.helper.CursorHelper;
+import java.util.Date;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class CursorHelperTest {
+
+  private static Stream<Arguments> provideKeys() {
+    return Stream.of(
+        Arguments.of(new Document(CursorHelper.ID_KEY, new ObjectId())),
+        Arguments.of(new Document(CursorHelper.ID_KEY, "Task ID 1")),
+        Arguments.of(
+            new Document("startDate", new Date()).append(CursorHelper.ID_KEY, new ObjectId())),
+        Arguments.of(new Document("startDate", null).append(CursorHelper.ID_KEY, new ObjectId())));
+  }
+
+  private static Stream<Arguments> provideInvalidCursor() {
+    return Stream.of(
+        Arguments.of("not base64!"),
+        Arguments.of(CursorHelper.encode(new Document("startDate", new Date())).substring(1)),
+        Arguments.of(CursorHelper.encode(new Document("startDate", new Date()))));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideKeys")
+  public void Given_Keys_When_EncodingAndDecoding_Then_KeysShouldBeEquals(Document keys) {
+    // When
+    String cursor = CursorHelper.encode(keys);
+
+    // Then
+    Assertions.assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    Assertions.assertEquals(keys, CursorHelper.decode(cursor));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidCursor")
+  public void Given_InvalidCursor_When_Decoding_Then_ThrowsException(String cursor) {
+    Assertions.assertThrows(InvalidCursorException.class, () -> CursorHelper.decode(cursor));
+  }
+
+  @Test
+  public void Given_Id_When_ConvertingToStoredId_Then_ReturnsObjectIdOnlyIfValid() {
+    ObjectId objectId = new ObjectId();
+
+    Assertions.assertEquals(objectId, CursorHelper.toStoredId(objectId.toHexString()));
+    Assertions.assertEquals("Person ID", CursorHelper.toStoredId("Person ID"));
+  }
+}
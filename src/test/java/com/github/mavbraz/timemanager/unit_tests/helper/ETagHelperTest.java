@@ -0,0 +1,49 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.exceptions.PreconditionFailedException;
+import com.github.mavbraz.timemanager.helper.ETagHelper;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ETagHelperTest {
+
+  private static Stream<Arguments> provideIfMatch() {
+    return Stream.of(
+        Arguments.of("\"3\"", 3L),
+        Arguments.of("W/\"3\"", 3L),
+        Arguments.of(" \"12\" ", 12L),
+        Arguments.of("\"" + ETagHelper.of(7, List.of("a:1", "b:2")) + "\"", 7L),
+        Arguments.of("*", null));
+  }
+
+  private static Stream<Arguments> provideInvalidIfMatch() {
+    return Stream.of(Arguments.of("\"abc\""), Arguments.of(""), Arguments.of("\"-1-\""));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideIfMatch")
+  public void Given_IfMatch_When_ReadingVersion_Then_ReturnsVersion(String ifMatch, Long version) {
+    Assertions.assertEquals(version, ETagHelper.toVersion(ifMatch));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideInvalidIfMatch")
+  public void Given_InvalidIfMatch_When_ReadingVersion_Then_ThrowsException(String ifMatch) {
+    Assertions.assertThrows(
+        PreconditionFailedException.class, () -> ETagHelper.toVersion(ifMatch));
+  }
+
+  @Test
+  public void Given_Parts_When_BuildingTag_Then_DependsOnEveryPartAndOrder() {
+    String eTag = ETagHelper.of(List.of("a:1", "b:1"));
+
+    Assertions.assertEquals(eTag, ETagHelper.of(List.of("a:1", "b:1")));
+    Assertions.assertNotEquals(eTag, ETagHelper.of(List.of("a:1", "b:2")));
+    Assertions.assertNotEquals(eTag, ETagHelper.of(List.of("b:1", "a:1")));
+  }
+}
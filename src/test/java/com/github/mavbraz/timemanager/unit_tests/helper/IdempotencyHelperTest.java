@@ -0,0 +1,47 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.helper.IdempotencyHelper;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class IdempotencyHelperTest {
+
+  @Test
+  public void Given_ParametersInAnotherOrder_When_Fingerprinting_Then_ReturnSameFingerprint() {
+    MockHttpServletRequest request = request("/task/task-id/start", "{}");
+    request.addParameter("b", "2");
+    request.addParameter("a", "1");
+    MockHttpServletRequest repeat = request("/task/task-id/start", "{}");
+    repeat.addParameter("a", "1");
+    repeat.addParameter("b", "2");
+
+    Assertions.assertEquals(
+        IdempotencyHelper.getFingerprint(request, body("{}")),
+        IdempotencyHelper.getFingerprint(repeat, body("{}")));
+  }
+
+  @Test
+  public void Given_AnotherBodyOrPath_When_Fingerprinting_Then_ReturnAnotherFingerprint() {
+    String fingerprint =
+        IdempotencyHelper.getFingerprint(request("/task", "{}"), body("{\"a\":1}"));
+
+    Assertions.assertNotEquals(
+        fingerprint, IdempotencyHelper.getFingerprint(request("/task", "{}"), body("{\"a\":2}")));
+    Assertions.assertNotEquals(
+        fingerprint,
+        IdempotencyHelper.getFingerprint(request("/project", "{}"), body("{\"a\":1}")));
+  }
+
+  private static MockHttpServletRequest request(String uri, String content) {
+    var request = new MockHttpServletRequest("POST", uri);
+    request.setContent(body(content));
+
+    return request;
+  }
+
+  private static byte[] body(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
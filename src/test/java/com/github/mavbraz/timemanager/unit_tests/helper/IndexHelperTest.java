@@ -0,0 +1,115 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.dto.IndexReportDTO;
+import com.github.mavbraz.timemanager.dto.enums.IndexUsageDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.helper.IndexHelper;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.Index;
+
+public class IndexHelperTest {
+
+  private static final List<List<String>> TASK_INDEXES = IndexHelper.getIndexes(Task.class);
+
+  private static Stream<Arguments> provideSupportedQuery() {
+    return Stream.of(
+        Arguments.of(Set.of(), Set.of(), "_id"),
+        Arguments.of(Set.of(), Set.of(), "startDate"),
+        Arguments.of(Set.of("status"), Set.of(), "_id"),
+        Arguments.of(Set.of("status"), Set.of(), "finishDate"),
+        Arguments.of(Set.of("status", "project"), Set.of(), "startDate"),
+        Arguments.of(Set.of("contributors"), Set.of("startDate"), "startDate"),
+        Arguments.of(Set.of(), Set.of("finishDate"), "_id"));
+  }
+
+  private static Stream<Arguments> provideUnsupportedQuery() {
+    return Stream.of(
+        Arguments.of(Set.of(), Set.of(), "description"),
+        Arguments.of(Set.of(), Set.of(), "status"),
+        Arguments.of(Set.of("description"), Set.of(), "_id"),
+        Arguments.of(Set.of("project"), Set.of(), "finishDate"),
+        Arguments.of(Set.of("contributors"), Set.of(), "status"),
+        Arguments.of(Set.of(), Set.of("finishDate"), "startDate"));
+  }
+
+  @Test
+  public void Given_Entity_When_GettingIndexes_Then_ReturnDeclaredIndexesInOrder() {
+    Assertions.assertEquals(
+        List.of(List.of("_id"), List.of("name", "_id")), IndexHelper.getIndexes(Person.class));
+    Assertions.assertEquals(List.of("_id"), TASK_INDEXES.get(0));
+    Assertions.assertTrue(TASK_INDEXES.contains(List.of("status", "startDate", "_id")));
+    Assertions.assertTrue(TASK_INDEXES.contains(List.of("contributors", "startDate", "_id")));
+  }
+
+  @Test
+  public void Given_UniqueOrTtlIndex_When_CheckingRequired_Then_OnlyThoseAreRequired() {
+    Assertions.assertTrue(IndexHelper.isRequired(new Index().on("day", Direction.ASC).unique()));
+    Assertions.assertTrue(
+        IndexHelper.isRequired(new Index().on("createdAt", Direction.ASC).expire(60)));
+    Assertions.assertFalse(IndexHelper.isRequired(new Index().on("name", Direction.ASC)));
+  }
+
+  @Test
+  public void Given_DeclaredAndStoredIndexes_When_Reporting_Then_FlagUsage() {
+    var date = new Date();
+    List<Document> stats =
+        List.of(
+            stat("_id_", new Document("_id", 1), 3L, date),
+            stat("status_startDate", new Document("status", 1.0).append("_id", 1.0), 0L, date),
+            stat("description", new Document("description", 1), 5L, date));
+    List<Index> declared =
+        List.of(
+            new Index()
+                .named("status_startDate")
+                .on("status", Direction.ASC)
+                .on("_id", Direction.ASC),
+            new Index().named("startDate").on("startDate", Direction.ASC).on("_id", Direction.ASC));
+
+    List<IndexReportDTO> report = IndexHelper.getIndexReport("task", declared, stats);
+
+    Assertions.assertEquals(
+        List.of(
+            IndexUsageDTO.USED,
+            IndexUsageDTO.UNUSED,
+            IndexUsageDTO.UNDECLARED,
+            IndexUsageDTO.MISSING),
+        report.stream().map(IndexReportDTO::getUsage).collect(Collectors.toList()));
+    Assertions.assertEquals("startDate", report.get(3).getName());
+    Assertions.assertNull(report.get(3).getAccesses());
+    Assertions.assertEquals(new Document("status", 1).append("_id", 1), report.get(1).getKeys());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideSupportedQuery")
+  public void Given_IndexedQuery_When_Checking_Then_ReturnTrue(
+      Set<String> equalityFields, Set<String> rangeFields, String sortField) {
+    Assertions.assertTrue(
+        IndexHelper.isSupported(TASK_INDEXES, equalityFields, rangeFields, sortField));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideUnsupportedQuery")
+  public void Given_UnindexedQuery_When_Checking_Then_ReturnFalse(
+      Set<String> equalityFields, Set<String> rangeFields, String sortField) {
+    Assertions.assertFalse(
+        IndexHelper.isSupported(TASK_INDEXES, equalityFields, rangeFields, sortField));
+  }
+
+  private static Document stat(String name, Document key, long operations, Date since) {
+    return new Document("name", name)
+        .append("key", key)
+        .append("accesses", new Document("ops", operations).append("since", since));
+  }
+}
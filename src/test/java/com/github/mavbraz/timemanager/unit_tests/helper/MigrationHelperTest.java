@@ -0,0 +1,145 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.helper.MigrationHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.mongodb.client.model.UpdateOneModel;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class MigrationHelperTest {
+
+  private static final ObjectId ID = new ObjectId("60a0f0f0f0f0f0f0f0f0f0f0");
+
+  private final MappingMongoConverter converter = createConverter();
+
+  @Test
+  public void Given_LastId_When_BuildingBatchQuery_Then_MatchPendingAfterItInIdOrder() {
+    Query query =
+        MigrationHelper.getBatchQuery(Criteria.where("workIntervals").exists(false), ID, 500);
+
+    Assertions.assertEquals(
+        new Document("workIntervals", new Document("$exists", false))
+            .append("_id", new Document("$gt", ID)),
+        query.getQueryObject());
+    Assertions.assertEquals(new Document("_id", 1), query.getSortObject());
+    Assertions.assertEquals(500, query.getLimit());
+    Assertions.assertFalse(
+        MigrationHelper.getBatchQuery(Criteria.where("workIntervals").exists(false), null, 500)
+            .getQueryObject()
+            .containsKey("_id"));
+  }
+
+  @Test
+  public void Given_DocumentWithoutVersion_When_BuildingGuard_Then_MatchOnlyWhileItHasNone() {
+    Assertions.assertEquals(
+        new Document("_id", ID).append("version", 3L),
+        MigrationHelper.getGuard(new Document("_id", ID).append("version", 3L)));
+    Assertions.assertEquals(
+        new Document("_id", ID).append("version", new Document("$exists", false)),
+        MigrationHelper.getGuard(new Document("_id", ID)));
+  }
+
+  @Test
+  public void Given_SlowBatch_When_GettingPause_Then_PauseAsLongAsTheBatch() {
+    Duration batchDelay = Duration.ofMillis(200);
+
+    Assertions.assertEquals(
+        batchDelay, MigrationHelper.getPause(batchDelay, Duration.ofMillis(50)));
+    Assertions.assertEquals(
+        Duration.ofSeconds(2), MigrationHelper.getPause(batchDelay, Duration.ofSeconds(2)));
+  }
+
+  @Test
+  public void Given_FinishedTaskWithoutIntervals_When_BuildingUpdate_Then_SetSinglePeriod() {
+    var start = new Date(1_620_640_800_000L);
+    var finish = new Date(start.getTime() + 5_400_000L);
+    Document task =
+        new Document("_id", ID)
+            .append("status", "FINISHED")
+            .append("startDate", start)
+            .append("finishDate", finish)
+            .append("version", 2L);
+
+    var update =
+        (UpdateOneModel<Document>) MigrationHelper.getWorkIntervalsUpdate(task, "write-id");
+
+    Assertions.assertEquals(new Document("_id", ID).append("version", 2L), update.getFilter());
+    Assertions.assertEquals(
+        new Document(
+                "$set",
+                new Document("bulkWriteId", "write-id")
+                    .append(
+                        "workIntervals",
+                        List.of(new Document("start", start).append("finish", finish)))
+                    .append("duration", 5_400_000L))
+            .append("$inc", new Document("version", 1L)),
+        update.getUpdate());
+  }
+
+  @Test
+  public void Given_StartedTaskWithoutIntervals_When_BuildingUpdate_Then_RunStartsAtStartDate() {
+    var start = new Date(1_620_640_800_000L);
+    Document task = new Document("_id", ID).append("status", "STARTED").append("startDate", start);
+
+    var update =
+        (UpdateOneModel<Document>) MigrationHelper.getWorkIntervalsUpdate(task, "write-id");
+
+    Assertions.assertEquals(
+        new Document("bulkWriteId", "write-id")
+            .append("workIntervals", List.of())
+            .append("duration", 0L)
+            .append("runStartDate", start),
+        ((Document) update.getUpdate()).get("$set"));
+  }
+
+  @Test
+  public void Given_TaskWithoutSummaries_When_BuildingUpdate_Then_SetSummariesWithoutVersion() {
+    Task task =
+        Task.builder()
+            .contributors(List.of(Person.builder().id("person-id").name("Person").build()))
+            .project(Project.builder().id("project-id").name("Project").build())
+            .build();
+    TaskHelper.setSummaries(List.of(task));
+
+    var update =
+        (UpdateOneModel<Document>)
+            MigrationHelper.getSummariesUpdate(
+                new Document("_id", ID).append("version", 1L), task, converter);
+
+    Assertions.assertEquals(
+        new Document(
+            "$set",
+            new Document(
+                    "contributorSummaries",
+                    List.of(new Document("id", "person-id").append("name", "Person")))
+                .append(
+                    "projectSummary", new Document("id", "project-id").append("name", "Project"))),
+        update.getUpdate());
+  }
+
+  private static MappingMongoConverter createConverter() {
+    var conversions = new MongoCustomConversions(List.of());
+    var mappingContext = new MongoMappingContext();
+    // Like Spring Boot does, so the dates are not mapped as entities
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    var converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+
+    return converter;
+  }
+}
@@ -0,0 +1,190 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.dto.RollupQueryDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.WorkInterval;
+import com.github.mavbraz.timemanager.entity.WorkPeriod;
+import com.github.mavbraz.timemanager.entity.WorkPeriodMeta;
+import com.github.mavbraz.timemanager.entity.enums.RollupDimension;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.helper.RollupHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+public class RollupHelperTest {
+
+  private static final LocalDate DAY = LocalDate.of(2021, 5, 10);
+
+  private final MappingMongoConverter converter = createConverter();
+
+  @Test
+  public void Given_IntervalOverMidnight_When_SplittingByDay_Then_ReturnMillisecondsOfEachDay() {
+    WorkInterval interval =
+        WorkInterval.builder()
+            .start(DAY.atTime(22, 0))
+            .finish(DAY.plusDays(2).atTime(1, 30))
+            .build();
+
+    Assertions.assertEquals(
+        Map.of(DAY, 7_200_000L, DAY.plusDays(1), 86_400_000L, DAY.plusDays(2), 5_400_000L),
+        RollupHelper.getDurationsByDay(interval));
+  }
+
+  @Test
+  public void Given_FinishedTask_When_BuildingRollupUpdates_Then_IncrementProjectAndPeople() {
+    LocalDateTime finish = DAY.atTime(12, 0);
+    Task task =
+        Task.builder()
+            .project(Project.builder().id("project-id").build())
+            .contributors(
+                List.of(
+                    Person.builder().id("person-1").build(),
+                    Person.builder().id("person-2").build(),
+                    Person.builder().id("person-1").build()))
+            .workIntervals(
+                List.of(
+                    WorkInterval.builder().start(finish.minusHours(5)).finish(finish).build()))
+            .build();
+
+    List<WriteModel<Document>> updates = RollupHelper.getRollupUpdates(task, true, converter);
+
+    Assertions.assertEquals(3, updates.size());
+
+    UpdateOneModel<Document> projectUpdate = (UpdateOneModel<Document>) updates.get(0);
+    Assertions.assertEquals(
+        new Document("dimension", "PROJECT")
+            .append("reference", "project-id")
+            .append("day", converter.convertToMongoType(DAY)),
+        projectUpdate.getFilter());
+    Assertions.assertEquals(
+        new Document("$inc", new Document("duration", 18_000_000L).append("finishedTasks", 1L)),
+        projectUpdate.getUpdate());
+    Assertions.assertTrue(projectUpdate.getOptions().isUpsert());
+
+    Document personFilter = (Document) ((UpdateOneModel<Document>) updates.get(2)).getFilter();
+    Assertions.assertEquals("PERSON", personFilter.get("dimension"));
+    Assertions.assertEquals("person-2", personFilter.get("reference"));
+  }
+
+  @Test
+  public void Given_ClosedPeriod_When_GettingWorkPeriods_Then_ReturnProjectAndEachPerson() {
+    LocalDateTime finish = DAY.atTime(12, 0);
+    Task task =
+        Task.builder()
+            .id("task-id")
+            .project(Project.builder().id("project-id").build())
+            .contributors(
+                List.of(
+                    Person.builder().id("person-1").build(),
+                    Person.builder().id("person-1").build()))
+            .workIntervals(
+                List.of(
+                    WorkInterval.builder().start(DAY.atTime(8, 0)).finish(DAY.atTime(9, 0)).build(),
+                    WorkInterval.builder().start(finish.minusHours(2)).finish(finish).build()))
+            .build();
+
+    List<WorkPeriod> periods = RollupHelper.getWorkPeriods(task);
+
+    Assertions.assertEquals(2, periods.size());
+    Assertions.assertEquals(
+        new WorkPeriodMeta(RollupDimension.PROJECT, "project-id"), periods.get(0).getMeta());
+    Assertions.assertEquals(
+        new WorkPeriodMeta(RollupDimension.PERSON, "person-1"), periods.get(1).getMeta());
+    periods.forEach(
+        period -> {
+          Assertions.assertEquals("task-id", period.getTaskId());
+          Assertions.assertEquals(finish.minusHours(2), period.getStart());
+          Assertions.assertEquals(7_200_000L, period.getDuration());
+        });
+  }
+
+  @Test
+  public void Given_PausedTask_When_BuildingRollupUpdates_Then_DoNotCountAsFinished() {
+    LocalDateTime finish = DAY.atTime(12, 0);
+    Task task =
+        Task.builder()
+            .project(Project.builder().id("project-id").build())
+            .contributors(List.of())
+            .workIntervals(
+                List.of(
+                    WorkInterval.builder().start(finish.minusHours(1)).finish(finish).build()))
+            .build();
+
+    List<WriteModel<Document>> updates = RollupHelper.getRollupUpdates(task, false, converter);
+
+    Assertions.assertEquals(1, updates.size());
+    Assertions.assertEquals(
+        new Document("$inc", new Document("duration", 3_600_000L)),
+        ((UpdateOneModel<Document>) updates.get(0)).getUpdate());
+  }
+
+  @Test
+  public void Given_FinishedPausedTask_When_BuildingRollupUpdates_Then_CountOnlyTheFinish() {
+    LocalDateTime finish = DAY.atTime(12, 0);
+    Task task =
+        Task.builder()
+            .project(Project.builder().id("project-id").build())
+            .contributors(List.of(Person.builder().id("person-1").build()))
+            .workIntervals(
+                List.of(
+                    WorkInterval.builder()
+                        .start(DAY.atTime(8, 0))
+                        .finish(DAY.atTime(9, 0))
+                        .build()))
+            .finishDate(finish.plusDays(1))
+            .build();
+
+    List<WriteModel<Document>> updates =
+        RollupHelper.getRollupUpdates(task, Transition.FINISH_PAUSED, converter);
+
+    Assertions.assertEquals(2, updates.size());
+    updates.forEach(
+        update -> {
+          Assertions.assertEquals(
+              converter.convertToMongoType(DAY.plusDays(1)),
+              ((Document) ((UpdateOneModel<Document>) update).getFilter()).get("day"));
+          Assertions.assertEquals(
+              new Document("$inc", new Document("duration", 0L).append("finishedTasks", 1L)),
+              ((UpdateOneModel<Document>) update).getUpdate());
+        });
+  }
+
+  @Test
+  public void Given_TaskWithoutIntervals_When_BuildingRollupUpdates_Then_ReturnEmpty() {
+    Task task = Task.builder().project(Project.builder().id("project-id").build()).build();
+
+    Assertions.assertTrue(RollupHelper.getRollupUpdates(task, true, converter).isEmpty());
+  }
+
+  @Test
+  public void Given_RangeEndingBeforeStart_When_BuildingRollupQuery_Then_ThrowsException() {
+    var rollupQuery = new RollupQueryDTO();
+    rollupQuery.setFrom(DAY);
+    rollupQuery.setTo(DAY.minusDays(1));
+
+    Assertions.assertThrows(
+        InvalidFieldException.class,
+        () -> RollupHelper.getRollupQuery(RollupDimension.PROJECT, "project-id", rollupQuery));
+  }
+
+  private static MappingMongoConverter createConverter() {
+    var converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    converter.afterPropertiesSet();
+
+    return converter;
+  }
+}
@@ -0,0 +1,94 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.entity.enums.TaskEventType;
+import com.github.mavbraz.timemanager.helper.TaskEventHelper;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TaskEventHelperTest {
+
+  @Test
+  public void Given_Transition_When_GettingChanges_Then_OnlyStatusFieldsWithRemovedAsNull() {
+    Document state =
+        new Document("_id", "task-id")
+            .append("description", "Description")
+            .append("status", "PAUSED")
+            .append("duration", 1000L)
+            .append("version", 3L);
+
+    Document changes = TaskEventHelper.getChanges(TaskEventType.PAUSED, state);
+
+    Assertions.assertEquals("PAUSED", changes.get("status"));
+    Assertions.assertEquals(1000L, changes.get("duration"));
+    Assertions.assertEquals(3L, changes.get("version"));
+    Assertions.assertTrue(changes.containsKey("runStartDate"));
+    Assertions.assertNull(changes.get("runStartDate"));
+    Assertions.assertFalse(changes.containsKey("description"));
+  }
+
+  @Test
+  public void Given_Version_When_CheckingSnapshot_Then_OnlyEveryInterval() {
+    Assertions.assertTrue(
+        TaskEventHelper.isSnapshot(
+            new Document("version", (long) TaskEventHelper.SNAPSHOT_INTERVAL)));
+    Assertions.assertFalse(TaskEventHelper.isSnapshot(new Document("version", 1L)));
+    Assertions.assertFalse(TaskEventHelper.isSnapshot(null));
+  }
+
+  @Test
+  public void Given_SnapshotAndEvents_When_Replaying_Then_ApplyChangesInOrder() {
+    Document snapshot =
+        new Document("_id", "task-id")
+            .append("description", "Description")
+            .append("status", "STARTED")
+            .append("runStartDate", "start");
+    List<Document> events =
+        List.of(
+            event(
+                TaskEventType.PAUSED,
+                new Document("status", "PAUSED").append("runStartDate", null)),
+            event(
+                TaskEventType.RESUMED,
+                new Document("status", "STARTED").append("runStartDate", "resume")));
+
+    Document state = TaskEventHelper.replay(snapshot, events);
+
+    Assertions.assertEquals(
+        new Document("_id", "task-id")
+            .append("description", "Description")
+            .append("status", "STARTED")
+            .append("runStartDate", "resume"),
+        state);
+    Assertions.assertEquals("start", snapshot.get("runStartDate"));
+  }
+
+  @Test
+  public void Given_DeletedEvent_When_Replaying_Then_ReturnNone() {
+    Document created = new Document("_id", "task-id").append("status", "NOT_STARTED");
+
+    Assertions.assertNull(
+        TaskEventHelper.replay(
+            null,
+            List.of(event(TaskEventType.CREATED, created), event(TaskEventType.DELETED, null))));
+    Assertions.assertEquals(
+        created, TaskEventHelper.replay(null, List.of(event(TaskEventType.CREATED, created))));
+  }
+
+  @Test
+  public void Given_DeleteReadBeforeVersionedEvents_When_Replaying_Then_ReturnNone() {
+    Document snapshot = new Document("_id", "task-id").append("status", "STARTED");
+
+    Assertions.assertNull(
+        TaskEventHelper.replay(
+            snapshot,
+            List.of(
+                event(TaskEventType.DELETED, null),
+                event(TaskEventType.PAUSED, new Document("status", "PAUSED")))));
+  }
+
+  private static Document event(TaskEventType type, Document changes) {
+    return new Document("type", type.name()).append("changes", changes);
+  }
+}
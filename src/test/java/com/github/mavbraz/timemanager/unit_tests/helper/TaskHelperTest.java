@@ -0,0 +1,380 @@
+package com.github.mavbraz.timemanager.unit_tests.helper;
+
+import com.github.mavbraz.timemanager.dto.BulkTransitionResultDTO;
+import com.github.mavbraz.timemanager.dto.TaskTransitionQueryDTO;
+import com.github.mavbraz.timemanager.entity.Person;
+import com.github.mavbraz.timemanager.entity.Project;
+import com.github.mavbraz.timemanager.entity.ReferenceSummary;
+import com.github.mavbraz.timemanager.entity.Task;
+import com.github.mavbraz.timemanager.entity.enums.ReferenceType;
+import com.github.mavbraz.timemanager.entity.enums.TaskStatus;
+import com.github.mavbraz.timemanager.exceptions.InvalidFieldException;
+import com.github.mavbraz.timemanager.helper.TaskHelper;
+import com.github.mavbraz.timemanager.helper.TaskHelper.Transition;
+import com.mongodb.DBRef;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class TaskHelperTest {
+
+  private final MappingMongoConverter converter = createConverter();
+
+  @Test
+  public void Given_Transition_When_BuildingTransitionQuery_Then_MatchesIdAndExpectedStatus() {
+    Document query = TaskHelper.getTransitionQuery("task-id", Transition.START).getQueryObject();
+
+    Assertions.assertEquals(
+        new Document("id", "task-id").append("status", TaskStatus.NOT_STARTED), query);
+  }
+
+  @Test
+  public void Given_Transition_When_BuildingTransitionUpdate_Then_SetsStatusDateAndVersion() {
+    LocalDateTime date = TaskHelper.now();
+    Document update =
+        ((Update) TaskHelper.getTransitionUpdate(Transition.START, date, converter))
+            .getUpdateObject();
+    Document set = update.get("$set", Document.class);
+
+    Assertions.assertEquals(TaskStatus.STARTED, set.get("status"));
+    Assertions.assertEquals(date, set.get("startDate"));
+    Assertions.assertEquals(date, set.get("runStartDate"));
+    Assertions.assertEquals(date, set.get("modifiedAt"));
+    Assertions.assertEquals(new Document("version", 1), update.get("$inc"));
+  }
+
+  @Test
+  public void Given_PausedTaskFinish_When_BuildingTransitionUpdate_Then_SetsOnlyStatusAndDate() {
+    LocalDateTime date = TaskHelper.now();
+    Document update =
+        ((Update) TaskHelper.getTransitionUpdate(Transition.FINISH_PAUSED, date, converter))
+            .getUpdateObject();
+    Document set = update.get("$set", Document.class);
+
+    Assertions.assertEquals(TaskStatus.FINISHED, set.get("status"));
+    Assertions.assertEquals(date, set.get("finishDate"));
+    Assertions.assertFalse(set.containsKey("runStartDate"));
+    Assertions.assertFalse(set.containsKey("workIntervals"));
+  }
+
+  @Test
+  public void Given_ClosingTransition_When_BuildingTransitionUpdate_Then_AppendsInterval() {
+    LocalDateTime date = TaskHelper.now();
+    Object storedDate = converter.convertToMongoType(date);
+    AggregationUpdate update =
+        (AggregationUpdate) TaskHelper.getTransitionUpdate(Transition.FINISH, date, converter);
+    List<Document> pipeline = update.toPipeline(Aggregation.DEFAULT_CONTEXT);
+    Document set = pipeline.get(0).get("$set", Document.class);
+    List<?> arrays = set.get("workIntervals", Document.class).get("$concatArrays", List.class);
+    Document interval = (Document) ((List<?>) arrays.get(1)).get(0);
+
+    Assertions.assertEquals("FINISHED", set.get("status"));
+    Assertions.assertEquals(storedDate, set.get("finishDate"));
+    Assertions.assertEquals(storedDate, interval.get("finish"));
+    Assertions.assertNotNull(set.get("duration", Document.class).get("$add"));
+    // Incremented once, as the template does not add its own version increment
+    Assertions.assertTrue(update.modifies("version"));
+    Assertions.assertEquals(new Document("$unset", "runStartDate"), pipeline.get(2));
+  }
+
+  @Test
+  public void Given_BulkTransition_When_BuildingTransitionUpdate_Then_TagsTheWrite() {
+    LocalDateTime date = TaskHelper.now();
+    Document startSet =
+        ((Update) TaskHelper.getTransitionUpdate(Transition.START, date, "write-id", converter))
+            .getUpdateObject()
+            .get("$set", Document.class);
+    AggregationUpdate finish =
+        (AggregationUpdate)
+            TaskHelper.getTransitionUpdate(Transition.FINISH, date, "write-id", converter);
+    Document finishSet =
+        finish.toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$set", Document.class);
+
+    Assertions.assertEquals("write-id", startSet.get(TaskHelper.BULK_WRITE_FIELD));
+    Assertions.assertEquals("write-id", finishSet.get(TaskHelper.BULK_WRITE_FIELD));
+    Assertions.assertFalse(
+        ((Update) TaskHelper.getTransitionUpdate(Transition.START, date, converter))
+            .getUpdateObject()
+            .get("$set", Document.class)
+            .containsKey(TaskHelper.BULK_WRITE_FIELD));
+  }
+
+  @Test
+  public void Given_StaleTask_When_BuildingAutoFinishUpdate_Then_CapsFinishDate() {
+    LocalDateTime date = TaskHelper.now();
+    List<Document> pipeline =
+        ((AggregationUpdate)
+                TaskHelper.getAutoFinishUpdate(date, Duration.ofHours(12), converter))
+            .toPipeline(Aggregation.DEFAULT_CONTEXT);
+    Document set = pipeline.get(0).get("$set", Document.class);
+    List<?> bounds = set.get("finishDate", Document.class).get("$min", List.class);
+
+    Assertions.assertEquals("FINISHED", set.get("status"));
+    Assertions.assertEquals(converter.convertToMongoType(date), bounds.get(0));
+    Assertions.assertEquals(43_200_000L, ((Document) bounds.get(1)).get("$add", List.class).get(1));
+    Assertions.assertEquals(converter.convertToMongoType(date), set.get("modifiedAt"));
+    Assertions.assertEquals(converter.convertToMongoType(date), set.get("autoFinishDate"));
+  }
+
+  @Test
+  public void Given_AutoFinish_When_BuildingAutoFinishedAggregation_Then_MatchesTheTag() {
+    LocalDateTime date = TaskHelper.now();
+    Document match =
+        TaskHelper.getAutoFinishedAggregation(List.of("task-id"), date)
+            .toPipeline(Aggregation.DEFAULT_CONTEXT)
+            .get(0)
+            .get("$match", Document.class);
+
+    Assertions.assertEquals(TaskStatus.FINISHED, match.get("status"));
+    Assertions.assertEquals(date, match.get("autoFinishDate"));
+    Assertions.assertFalse(match.containsKey("modifiedAt"));
+    Assertions.assertTrue(TaskHelper.STATUS_FIELDS.contains("autoFinishDate"));
+  }
+
+  @Test
+  public void Given_Cutoff_When_BuildingStaleQuery_Then_MatchesStartedBeforeCutoffOldestFirst() {
+    LocalDateTime cutoff = TaskHelper.now();
+    var query = TaskHelper.getStaleQuery(cutoff, 10);
+    Document queryObject = query.getQueryObject();
+
+    Assertions.assertEquals(TaskStatus.STARTED, queryObject.get("status"));
+    Assertions.assertEquals(new Document("$lte", cutoff), queryObject.get("startDate"));
+    Assertions.assertEquals(2, queryObject.getList("$or", Document.class).size());
+    Assertions.assertEquals(new Document("startDate", 1), query.getSortObject());
+    Assertions.assertEquals(10, query.getLimit());
+  }
+
+  @Test
+  public void Given_ChangedIds_When_BuildingTransitionResult_Then_SkipsTheOtherIdsInOrder() {
+    BulkTransitionResultDTO result =
+        TaskHelper.getTransitionResult(List.of("c", "a", "b", "d"), Set.of("a", "d"));
+
+    Assertions.assertEquals(List.of("a", "d"), result.getChanged());
+    Assertions.assertEquals(List.of("c", "b"), result.getSkipped());
+  }
+
+  @Test
+  public void Given_TasksSharingReferences_When_SettingReferences_Then_ShareLoadedInstances() {
+    Task first =
+        Task.builder()
+            .contributors(List.of(reference("person-1"), reference("missing")))
+            .project(Project.builder().id("project-id").build())
+            .build();
+    Task second =
+        Task.builder()
+            .contributors(List.of(reference("person-1")))
+            .project(Project.builder().id("project-id").build())
+            .build();
+    Person person = Person.builder().id("person-1").name("Person").build();
+    Project project = Project.builder().id("project-id").name("Project").build();
+
+    Assertions.assertEquals(
+        Set.of("person-1", "missing"), TaskHelper.getContributorIds(List.of(first, second)));
+    Assertions.assertEquals(Set.of("project-id"), TaskHelper.getProjectIds(List.of(first, second)));
+
+    TaskHelper.setReferences(
+        List.of(first, second), Map.of("person-1", person), Map.of("project-id", project));
+
+    Assertions.assertEquals(List.of(person), first.getContributors());
+    Assertions.assertSame(person, second.getContributors().get(0));
+    Assertions.assertSame(project, first.getProject());
+    Assertions.assertSame(project, second.getProject());
+  }
+
+  @Test
+  public void Given_Summaries_When_SettingReferencesFromSummaries_Then_ReturnUnsummarizedTasks() {
+    ReferenceSummary summary = new ReferenceSummary("person-1", "Person");
+    Task first =
+        Task.builder()
+            .contributors(List.of(reference("person-1")))
+            .contributorSummaries(List.of(summary))
+            .build();
+    Task second =
+        Task.builder()
+            .contributors(List.of(reference("person-1")))
+            .contributorSummaries(List.of(summary))
+            .build();
+    Task unsummarized =
+        Task.builder()
+            .contributors(List.of(reference("person-1")))
+            .project(Project.builder().id("project-id").build())
+            .contributorSummaries(List.of(summary))
+            .build();
+
+    Assertions.assertEquals(
+        List.of(unsummarized),
+        TaskHelper.setReferencesFromSummaries(List.of(first, second, unsummarized)));
+    Assertions.assertEquals("Person", first.getContributors().get(0).getName());
+    Assertions.assertSame(first.getContributors().get(0), second.getContributors().get(0));
+    Assertions.assertNull(unsummarized.getContributors().get(0).getName());
+  }
+
+  @Test
+  public void Given_PageQuery_When_BuildingLookupAggregation_Then_JoinReferencesAfterLimit() {
+    Query query =
+        Query.query(Criteria.where("status").is(TaskStatus.STARTED))
+            .with(Sort.by("id"))
+            .limit(11);
+    var context =
+        new TypeBasedAggregationOperationContext(
+            Task.class, converter.getMappingContext(), new QueryMapper(converter));
+
+    List<Document> pipeline =
+        TaskHelper.getLookupAggregation(query, converter).toPipeline(context);
+
+    Assertions.assertEquals(
+        List.of(
+            new Document("$match", new Document("status", "STARTED")),
+            new Document("$sort", new Document("_id", 1)),
+            new Document("$limit", 11L)),
+        pipeline.subList(0, 3));
+    Assertions.assertEquals(
+        new Document(
+            "$lookup",
+            new Document("from", "person")
+                .append("localField", "contributors.$id")
+                .append("foreignField", "_id")
+                .append("as", "joinedContributors")),
+        pipeline.get(3));
+    Assertions.assertEquals("project", pipeline.get(4).get("$lookup", Document.class).get("from"));
+  }
+
+  @Test
+  public void Given_JoinedReferences_When_ReadingJoinedTasks_Then_KeepStoredOrderAndDropMissing() {
+    var document =
+        new Document("_id", "task-id")
+            .append(
+                "contributors",
+                List.of(
+                    new DBRef("person", "person-2"),
+                    new DBRef("person", "missing"),
+                    new DBRef("person", "person-1")))
+            .append("project", new DBRef("project", "project-id"))
+            .append(
+                "joinedContributors",
+                List.of(
+                    new Document("_id", "person-1").append("name", "One"),
+                    new Document("_id", "person-2").append("name", "Two")))
+            .append(
+                "joinedProject", List.of(new Document("_id", "project-id").append("name", "P")));
+
+    List<Task> tasks = TaskHelper.readJoinedTasks(List.of(document), converter);
+
+    Assertions.assertEquals("task-id", tasks.get(0).getId());
+    Assertions.assertEquals(
+        List.of("Two", "One"),
+        tasks.get(0).getContributors().stream().map(Person::getName).collect(Collectors.toList()));
+    Assertions.assertEquals("P", tasks.get(0).getProject().getName());
+  }
+
+  @Test
+  public void Given_DeletedPerson_When_BuildingRemovalUpdate_Then_PullReferenceAndSummary() {
+    Update update =
+        TaskHelper.getReferenceRemovalUpdate(
+            ReferenceType.PERSON, "person-1", "write-id", converter);
+
+    Assertions.assertEquals(
+        new Document(
+                "$pull",
+                new Document("contributors", new DBRef("person", "person-1"))
+                    .append("contributorSummaries", new Document("id", "person-1")))
+            .append("$set", new Document("bulkWriteId", "write-id"))
+            .append("$inc", new Document("version", 1)),
+        update.getUpdateObject());
+  }
+
+  @Test
+  public void Given_DeletedProject_When_BuildingRemovalUpdate_Then_UnsetProjectAndSummary() {
+    Document update =
+        TaskHelper.getReferenceRemovalUpdate(
+                ReferenceType.PROJECT, "project-id", "write-id", converter)
+            .getUpdateObject();
+
+    Assertions.assertEquals(
+        new Document("project", 1).append("projectSummary", 1), update.get("$unset"));
+  }
+
+  @Test
+  public void Given_RenamedPerson_When_BuildingRenameUpdate_Then_SetsNameOfMatchingSummaries() {
+    Person person = Person.builder().id("person-1").name("New Name").build();
+
+    Assertions.assertEquals(
+        new Document(
+            "contributorSummaries",
+            new Document(
+                "$elemMatch",
+                new Document("id", "person-1").append("name", new Document("$ne", "New Name")))),
+        TaskHelper.getContributorRenameQuery(person).getQueryObject());
+
+    Update update = TaskHelper.getContributorRenameUpdate(person, "write-id");
+
+    Assertions.assertEquals(
+        new Document("contributorSummaries.$[summary].name", "New Name")
+            .append("bulkWriteId", "write-id"),
+        update.getUpdateObject().get("$set"));
+    Assertions.assertEquals(
+        List.of(new Document("summary.id", "person-1")),
+        update.getArrayFilters().stream()
+            .map(filter -> filter.asDocument())
+            .collect(Collectors.toList()));
+    Assertions.assertEquals(new Document("version", 1), update.getUpdateObject().get("$inc"));
+  }
+
+  @Test
+  public void Given_BulkWrite_When_BuildingBulkWrittenAggregation_Then_MatchesIdsAndTag() {
+    Document match =
+        TaskHelper.getBulkWrittenAggregation(List.of("task-id"), "write-id")
+            .toPipeline(Aggregation.DEFAULT_CONTEXT)
+            .get(0)
+            .get("$match", Document.class);
+
+    Assertions.assertEquals(
+        new Document("id", new Document("$in", List.of("task-id")))
+            .append("bulkWriteId", "write-id"),
+        match);
+    Assertions.assertNotEquals(TaskHelper.newBulkWriteId(), TaskHelper.newBulkWriteId());
+  }
+
+  @Test
+  public void Given_NoFilter_When_BuildingTransitionCandidatesQuery_Then_ThrowsException() {
+    Assertions.assertThrows(
+        InvalidFieldException.class,
+        () ->
+            TaskHelper.getTransitionCandidatesQuery(
+                new TaskTransitionQueryDTO(), Transition.START, 1000, null));
+  }
+
+  private static Person reference(String id) {
+    return Person.builder().id(id).build();
+  }
+
+  private static MappingMongoConverter createConverter() {
+    var conversions = new MongoCustomConversions(List.of());
+    var mappingContext = new MongoMappingContext();
+    // Like Spring Boot does, so the dates are not mapped as entities
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    var converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+
+    return converter;
+  }
+}
@@ -294,6 +294,22 @@ public class TaskMapperTest implements MapperTest<Task, TaskDTO> {
     Assertions.assertTrue(task.getModifiedAt().isEqual(taskDTO.getModifiedAt()));
   }
 
+  @Test
+  public void Given_EntityBuiltWithoutIntervals_When_ConvertingToDTO_Then_IntervalsAreEmpty() {
+    // Given
+    Task task = Task.builder().description("Task").build();
+
+    // When
+    TaskDTO taskDTO = taskMapper.toDTO(task);
+
+    // Then
+    Assertions.assertEquals(List.of(), task.getWorkIntervals());
+    Assertions.assertEquals(List.of(), taskDTO.getWorkIntervals());
+    Assertions.assertEquals(List.of(), TaskDTO.builder().build().getWorkIntervals());
+    Assertions.assertEquals(List.of(), new Task().getWorkIntervals());
+    Assertions.assertEquals(List.of(), new TaskDTO().getWorkIntervals());
+  }
+
   @Test
   @Override
   public void Given_Entity_When_ConvertingNullToDTO_Then_ReturnsNull() {